@@ -261,4 +261,5 @@ buildConfig {
     val jextractVersion = jextractVersionFile.asFile.readText().trim()
 
     buildConfigField("JEXTRACT_VERSION", provider { jextractVersion })
+    buildConfigField("PLUGIN_VERSION", provider { project.version.toString() })
 }
@@ -1,6 +1,7 @@
 package de.timscho.jextract;
 
 import de.timscho.jextract.internal.download.JextractToolService;
+import de.timscho.jextract.internal.execution.JextractToolAction;
 import de.timscho.jextract.internal.model.PlatformType;
 import de.timscho.jextract.internal.model.SupportedPlatform;
 import java.io.File;
@@ -9,11 +10,15 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import javax.annotation.Nullable;
+import javax.tools.ToolProvider;
 import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.io.TempDir;
 
 public abstract class AbstractJextractFunctionalTest {
+    protected static final String TOOL_PROVIDER_MARKER = "Generated by the jextract tool provider";
+
     @TempDir
     protected Path testProjectDir;
 
@@ -46,7 +51,106 @@ public abstract class AbstractJextractFunctionalTest {
 
     protected void mockJextractTool(final Path userHome, final String version) throws IOException {
         final File jextractFile = this.createJextractFileMock(userHome, version);
+        this.writeMockScript(jextractFile);
+
+        // Create the marker file
+        Files.createFile(this.getCacheDir(userHome, version).resolve(JextractToolService.FILE_INTEGRITY_NAME));
+    }
+
+    /**
+     * Mocks a distribution that bundles its runtime like the real ones. The runtime links to the JDK running the
+     * tests and jextract is a stub module, so the returned module path must be passed with {@code --module-path} in
+     * the library's JVM arguments. The stub marks the header classes it writes with {@link #TOOL_PROVIDER_MARKER}.
+     */
+    protected Path mockJextractToolWithRuntime(final Path userHome, final String version) throws IOException {
+        Assumptions.assumeFalse(
+                SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS,
+                "Linking the bundled runtime requires symbolic links");
+        this.mockJextractTool(userHome, version);
+        final Path cacheDir = this.getCacheDir(userHome, version);
+        Files.createSymbolicLink(cacheDir.resolve("runtime"), Path.of(System.getProperty("java.home")));
+
+        final Path sources = cacheDir.resolve("stub-sources");
+        Files.createDirectories(sources.resolve("stub"));
+        Files.writeString(
+                sources.resolve("module-info.java"),
+                "module " + JextractToolAction.MODULE_NAME + " {\n"
+                        + "    provides java.util.spi.ToolProvider with stub.StubTool;\n}\n");
+        Files.writeString(sources.resolve("stub/StubTool.java"), """
+                package stub;
+
+                import java.io.IOException;
+                import java.io.PrintWriter;
+                import java.nio.file.Files;
+                import java.nio.file.Path;
+                import java.util.List;
+
+                public class StubTool implements java.util.spi.ToolProvider {
+                    public String name() {
+                        return "jextract";
+                    }
+
+                    public int run(PrintWriter out, PrintWriter err, String... args) {
+                        // Fails generations overlapping with another one holding the same marker
+                        final String marker = System.getProperty("stub.exclusiveMarker");
+                        if (marker == null) {
+                            return this.generate(err, args);
+                        }
+                        try {
+                            Files.createFile(Path.of(marker));
+                        } catch (final IOException exception) {
+                            err.println("Overlapping generations: " + exception);
+                            return 1;
+                        }
+                        try {
+                            Thread.sleep(1000);
+                            return this.generate(err, args);
+                        } catch (final InterruptedException exception) {
+                            return 1;
+                        } finally {
+                            try {
+                                Files.delete(Path.of(marker));
+                            } catch (final IOException exception) {
+                                exception.printStackTrace(err);
+                            }
+                        }
+                    }
+
+                    private int generate(PrintWriter err, String... args) {
+                        final List<String> arguments = List.of(args);
+                        final String pkg = arguments.get(arguments.indexOf("--target-package") + 1);
+                        final Path output = Path.of(arguments.get(arguments.indexOf("--output") + 1));
+                        final Path dir = output.resolve(pkg.replace('.', '/'));
+                        final String className = arguments.get(arguments.indexOf("--header-class-name") + 1);
+                        try {
+                            Files.createDirectories(dir);
+                            Files.writeString(dir.resolve(className + ".java"), "// %s\\n");
+                            return 0;
+                        } catch (final IOException exception) {
+                            exception.printStackTrace(err);
+                            return 1;
+                        }
+                    }
+                }
+                """.formatted(AbstractJextractFunctionalTest.TOOL_PROVIDER_MARKER));
+
+        final Path modules = cacheDir.resolve("stub-modules");
+        final int exitCode = ToolProvider.getSystemJavaCompiler()
+                .run(
+                        null,
+                        null,
+                        null,
+                        "-d",
+                        modules.resolve(JextractToolAction.MODULE_NAME).toString(),
+                        sources.resolve("module-info.java").toString(),
+                        sources.resolve("stub/StubTool.java").toString());
+        if (exitCode != 0) {
+            throw new IOException("Failed to compile the jextract stub module");
+        }
+        return modules.toAbsolutePath();
+    }
 
+    protected void writeMockScript(final File jextractFile) throws IOException {
         // Simple debug log file in the test project dir
         final Path debugLog = this.testProjectDir.resolve("jextract-mock.log");
 
@@ -55,6 +159,8 @@ public abstract class AbstractJextractFunctionalTest {
                 writer.println("@echo off");
                 writer.println("echo Mock Jextract Running...");
                 writer.println("echo Args: %* >> \"" + debugLog.toAbsolutePath() + "\"");
+                writer.println("echo JvmOptions: %JDK_JAVA_OPTIONS% >> \"" + debugLog.toAbsolutePath() + "\"");
+                writer.println("if \"%~1\"==\"--dump-includes\" goto dump");
 
                 // Parse arguments based on fixed order from JextractTask
                 // %1=--output, %2=dir, %3=--target-package, %4=pkg, %5=--header-class-name, %6=class
@@ -68,10 +174,26 @@ public abstract class AbstractJextractFunctionalTest {
 
                 writer.println("mkdir \"%OUTDIR%\\%PKG_PATH%\" 2>nul");
                 writer.println("echo // Generated > \"%OUTDIR%\\%PKG_PATH%\\%CLASS%.java\"");
+                writer.println("goto :eof");
+
+                // Symbol inventory requested by symbol filters and shards
+                writer.println(":dump");
+                writer.println("echo --include-function add    # header: math.h> \"%~2\"");
+                writer.println("echo --include-function sub    # header: math.h>> \"%~2\"");
+                writer.println("echo --include-struct point    # header: math.h>> \"%~2\"");
             } else {
                 writer.println("#!/bin/sh");
                 writer.println("echo 'Mock Jextract Running...'");
                 writer.println("echo \"Args: $@\" >> \"" + debugLog.toAbsolutePath() + "\"");
+                writer.println("echo \"JvmOptions: $JDK_JAVA_OPTIONS\" >> \"" + debugLog.toAbsolutePath() + "\"");
+
+                // Symbol inventory requested by symbol filters and shards
+                writer.println("if [ \"$1\" = \"--dump-includes\" ]; then");
+                writer.println("  printf '%s\\n' '--include-function add    # header: math.h' "
+                        + "'--include-function sub    # header: math.h' "
+                        + "'--include-struct point    # header: math.h' > \"$2\"");
+                writer.println("  exit 0");
+                writer.println("fi");
 
                 // $2 is output dir, $4 is package, $6 is class name
                 writer.println("OUTDIR=\"$2\"");
@@ -84,9 +206,6 @@ public abstract class AbstractJextractFunctionalTest {
             }
         }
         jextractFile.setExecutable(true);
-
-        // Create the marker file
-        Files.createFile(this.getCacheDir(userHome, version).resolve(JextractToolService.FILE_INTEGRITY_NAME));
     }
 
     protected GradleRunner createRunner(final Path gradleUserHome) {
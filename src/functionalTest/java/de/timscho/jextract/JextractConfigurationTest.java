@@ -2,9 +2,14 @@ package de.timscho.jextract;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import de.timscho.jextract.internal.download.ToolSharedArchive;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.stream.Stream;
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
@@ -49,4 +54,234 @@ class JextractConfigurationTest extends AbstractJextractFunctionalTest {
         assertThat(content).as("Should contain custom package").contains("com.example.custom");
         assertThat(content).as("Should contain define").contains("-DMY_DEFINE");
     }
+
+    @Test
+    void passesJvmArgsAndSharedArchiveToLauncher() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("big.h"), "void big();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/jvm-args-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("bigLib")
+                        .headerFile("src/main/c/big.h")
+                        .targetPackage("com.example.big")
+                        .jvmArg("-Xmx2g")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateBigLibBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+
+        final String content = Files.readString(this.testProjectDir.resolve("jextract-mock.log"));
+        assertThat(content).as("Should pass the heap size").contains("-Xmx2g");
+        assertThat(content)
+                .as("Should create the shared archive in the tool cache")
+                .contains("-XX:SharedArchiveFile=")
+                .contains(ToolSharedArchive.DIRECTORY_NAME)
+                .contains(ToolSharedArchive.ARCHIVE_NAME)
+                .contains("-XX:+AutoCreateSharedArchive");
+    }
+
+    @Test
+    void workerModeFallsBackToExecWithoutBundledRuntime() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("small.h"), "void small();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/worker-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("smallLib")
+                        .headerFile("src/main/c/small.h")
+                        .targetPackage("com.example.small")
+                        .build());
+        Files.writeString(
+                this.buildFile.toPath(),
+                "\njextract { executionMode = de.timscho.jextract.extension.ExecutionMode.WORKER }\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateSmallLibBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve(
+                        "build/generated/sources/jextract/smallLib/com/example/small/small_h.java"))
+                .exists();
+    }
+
+    @Test
+    void workerModeRunsToolProviderOfBundledRuntime() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("small.h"), "void small();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/worker-runtime-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        final Path stubModules = this.mockJextractToolWithRuntime(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("smallLib")
+                        .headerFile("src/main/c/small.h")
+                        .targetPackage("com.example.small")
+                        .jvmArg("--module-path")
+                        .jvmArg(stubModules.toString())
+                        .build());
+        Files.writeString(
+                this.buildFile.toPath(),
+                "\njextract { executionMode = de.timscho.jextract.extension.ExecutionMode.WORKER }\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateSmallLibBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve(
+                        "build/generated/sources/jextract/smallLib/com/example/small/small_h.java"))
+                .content()
+                .contains(AbstractJextractFunctionalTest.TOOL_PROVIDER_MARKER);
+        assertThat(this.testProjectDir.resolve("jextract-mock.log"))
+                .as("Should not fork the launcher")
+                .doesNotExist();
+    }
+
+    @Test
+    void workerModeStaysWithinConcurrencyBudget() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("first.h"), "void first();");
+        Files.writeString(cDir.resolve("second.h"), "void second();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/worker-budget-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        final Path stubModules = this.mockJextractToolWithRuntime(stableUserHome, version);
+        final String marker = "-Dstub.exclusiveMarker="
+                + this.testProjectDir.resolve("generating").toAbsolutePath();
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("first")
+                        .headerFile("src/main/c/first.h")
+                        .targetPackage("com.example.first")
+                        .jvmArg("--module-path")
+                        .jvmArg(stubModules.toString())
+                        .jvmArg(marker)
+                        .build(),
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("second")
+                        .headerFile("src/main/c/second.h")
+                        .targetPackage("com.example.second")
+                        .jvmArg("--module-path")
+                        .jvmArg(stubModules.toString())
+                        .jvmArg(marker)
+                        .build());
+        Files.writeString(
+                this.buildFile.toPath(),
+                "\njextract { executionMode = de.timscho.jextract.extension.ExecutionMode.WORKER }\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "build",
+                        "--parallel",
+                        "--stacktrace",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString(),
+                        "-P" + JextractPlugin.MAX_CONCURRENT_GENERATIONS_PROPERTY + "=1")
+                .build();
+
+        // Assert
+        assertThat(result.task(":generateFirstBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.task(":generateSecondBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.getOutput()).doesNotContain("Overlapping generations");
+    }
+
+    @Test
+    void daemonModeRunsToolProviderOfBundledRuntime() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("small.h"), "void small();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/daemon-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        final Path stubModules = this.mockJextractToolWithRuntime(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("smallLib")
+                        .headerFile("src/main/c/small.h")
+                        .targetPackage("com.example.small")
+                        .jvmArg("--module-path")
+                        .jvmArg(stubModules.toString())
+                        .build());
+        Files.writeString(
+                this.buildFile.toPath(),
+                "\njextract { executionMode = de.timscho.jextract.extension.ExecutionMode.DAEMON }\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        final BuildResult result;
+        try {
+            result = this.createRunner(stableUserHome).build();
+        } finally {
+            JextractConfigurationTest.stopDaemons(stableUserHome);
+        }
+
+        // Assert
+        assertThat(result.task(":generateSmallLibBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.getOutput()).contains("Starting jextract daemon");
+        assertThat(this.testProjectDir.resolve(
+                        "build/generated/sources/jextract/smallLib/com/example/small/small_h.java"))
+                .content()
+                .contains(AbstractJextractFunctionalTest.TOOL_PROVIDER_MARKER);
+        assertThat(this.testProjectDir.resolve("jextract-mock.log"))
+                .as("Should not fork the launcher")
+                .doesNotExist();
+    }
+
+    private static void stopDaemons(final Path userHome) throws IOException {
+        final Path daemonsDir = userHome.resolve(JextractPlugin.RELATIVE_TOOL_CACHE).resolve("daemons");
+        if (!Files.isDirectory(daemonsDir)) {
+            return;
+        }
+        try (Stream<Path> daemonDirs = Files.list(daemonsDir)) {
+            for (final Path stateFile : daemonDirs.map(dir -> dir.resolve("daemon.properties")).toList()) {
+                if (Files.exists(stateFile)) {
+                    final Properties state = new Properties();
+                    try (InputStream in = Files.newInputStream(stateFile)) {
+                        state.load(in);
+                    }
+                    ProcessHandle.of(Long.parseLong(state.getProperty("pid"))).ifPresent(ProcessHandle::destroy);
+                }
+            }
+        }
+    }
 }
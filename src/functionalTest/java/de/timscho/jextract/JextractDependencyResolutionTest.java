@@ -0,0 +1,68 @@
+package de.timscho.jextract;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.timscho.jextract.internal.download.JextractBinaryLocator;
+import de.timscho.jextract.internal.model.SupportedPlatform;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+
+class JextractDependencyResolutionTest extends AbstractJextractFunctionalTest {
+
+    @Test
+    void resolvesToolFromLocalIvyRepository() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+
+        final String version = "25-jextract+2-4";
+        final Path distribution = this.testProjectDir.resolve("dist");
+        final Path binDir = distribution.resolve("jextract-25/bin");
+        Files.createDirectories(binDir);
+        this.writeMockScript(binDir.resolve(JextractBinaryLocator.binaryName()).toFile());
+
+        // Same layout as download.java.net: <major>/<build>/openjdk-<version>_<platform>_bin.tar.gz
+        final Path repoDir = this.testProjectDir.resolve("ivy-repo/25/2");
+        Files.createDirectories(repoDir);
+        final String platform = SupportedPlatform.getCurrentSupported().getId();
+        JextractTestUtils.writeTarGz(
+                distribution, repoDir.resolve("openjdk-" + version + "_" + platform + "_bin.tar.gz"));
+
+        final Path stableUserHome = Path.of("build/functionalTest/dependency-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build());
+        Files.writeString(
+                this.buildFile.toPath(),
+                """
+
+                jextract {
+                    resolveToolAsDependency = true
+                    toolRepositoryUrl = uri('ivy-repo').toString()
+                }
+                """,
+                java.nio.file.StandardOpenOption.APPEND);
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve("build/generated/sources/jextract/math/com/math/math_h.java"))
+                .exists();
+        assertThat(this.getCacheDir(stableUserHome, version))
+                .as("The built-in downloader should not be used")
+                .doesNotExist();
+    }
+}
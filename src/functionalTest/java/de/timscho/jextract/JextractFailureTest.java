@@ -31,4 +31,28 @@ class JextractFailureTest extends AbstractJextractFunctionalTest {
                 .isInstanceOf(UnexpectedBuildFailure.class)
                 .hasMessageContaining("does-not-exist.h");
     }
+
+    @Test
+    void failsConfigurationWithAbsoluteExtractionPath() throws IOException {
+        // Arrange
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/failure-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("absolute")
+                        .headerFile("src/main/c/absolute.h")
+                        .targetPackage("com.absolute")
+                        .nativeLibraryResourcePath("native/absolute")
+                        .nativeLibraryExtractionPath("/opt/natives")
+                        .build());
+
+        // Act & Assert
+        assertThatThrownBy(() -> this.createRunner(stableUserHome).build())
+                .isInstanceOf(UnexpectedBuildFailure.class)
+                .hasMessageContaining("nativeLibraryLoading.extractionPath of library 'absolute' must be relative");
+    }
 }
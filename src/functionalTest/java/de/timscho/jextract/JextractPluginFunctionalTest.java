@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
@@ -58,4 +59,85 @@ class JextractPluginFunctionalTest extends AbstractJextractFunctionalTest {
                 .as("Audio bindings should have been generated at " + audioOut)
                 .exists();
     }
+
+    @Test
+    void precompiledBindingsAreCompiledIntoOwnJar() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("gl.h"), "void render();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/mock-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("opengl")
+                        .headerFile("src/main/c/gl.h")
+                        .targetPackage("com.gl")
+                        .precompile(true)
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":compileOpenglBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.task(":jarOpenglBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve("build/jextract/opengl/libs/opengl-bindings.jar")).exists();
+    }
+
+    @Test
+    void isolatedProjectsUseTheirOwnToolVersions() throws IOException {
+        // Arrange
+        final Path stableUserHome = Path.of("build/functionalTest/mock-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, "22-ea+5");
+        this.mockJextractTool(stableUserHome, "25-jextract+2-4");
+
+        Files.writeString(
+                this.settingsFile.toPath(), "rootProject.name = 'jextract-demo'\ninclude 'graphics', 'sound'");
+        for (final String project : List.of("graphics", "sound")) {
+            final Path cDir = this.testProjectDir.resolve(project + "/src/main/c");
+            Files.createDirectories(cDir);
+            Files.writeString(cDir.resolve(project + ".h"), "void " + project + "();");
+        }
+        JextractTestUtils.writeBuildScript(
+                this.testProjectDir.resolve("graphics/build.gradle"),
+                "22-ea+5",
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("opengl")
+                        .headerFile("src/main/c/graphics.h")
+                        .targetPackage("com.gl")
+                        .build());
+        JextractTestUtils.writeBuildScript(
+                this.testProjectDir.resolve("sound/build.gradle"),
+                "25-jextract+2-4",
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("audio")
+                        .headerFile("src/main/c/sound.h")
+                        .targetPackage("com.audio")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "build",
+                        "--info",
+                        "-Dorg.gradle.unsafe.isolated-projects=true",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString())
+                .build();
+
+        // Assert
+        assertThat(result.task(":graphics:generateOpenglBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.task(":sound:generateAudioBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.getOutput())
+                .as("Every project should run the jextract version it configured")
+                .contains(this.getCacheDir(stableUserHome, "22-ea+5").getFileName().toString())
+                .contains(this.getCacheDir(stableUserHome, "25-jextract+2-4").getFileName().toString());
+    }
 }
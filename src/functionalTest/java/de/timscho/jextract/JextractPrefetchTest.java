@@ -0,0 +1,128 @@
+package de.timscho.jextract;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+
+class JextractPrefetchTest extends AbstractJextractFunctionalTest {
+
+    @Test
+    void prefetchedToolIsUsedByBindingTasks() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/prefetch-home-" + System.nanoTime());
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "build",
+                        "--stacktrace",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString(),
+                        "-P" + JextractPlugin.PREFETCH_TOOL_PROPERTY + "=true",
+                        "-P" + JextractPlugin.PREFETCH_TOOL_VERSION_PROPERTY + "=" + version)
+                .build();
+
+        // Assert
+        assertThat(result.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve("build/generated/sources/jextract/math/com/math/math_h.java"))
+                .exists();
+    }
+
+    @Test
+    void prefetchFailureDoesNotFailBuildsNotNeedingTheTool() throws IOException {
+        // Arrange
+        final Path stableUserHome = Path.of("build/functionalTest/prefetch-failure-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+
+        final String version = "not-a-jextract-version";
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "help",
+                        "--stacktrace",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString(),
+                        "-P" + JextractPlugin.PREFETCH_TOOL_PROPERTY + "=true",
+                        "-P" + JextractPlugin.PREFETCH_TOOL_VERSION_PROPERTY + "=" + version)
+                .build();
+
+        // Assert
+        assertThat(result.task(":help").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    }
+
+    @Test
+    void prefetchWorksWithIsolatedProjects() throws IOException {
+        // Arrange
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/prefetch-isolated-home-" + System.nanoTime());
+        this.mockJextractTool(stableUserHome, version);
+
+        Files.writeString(
+                this.settingsFile.toPath(), "rootProject.name = 'jextract-demo'\ninclude 'graphics', 'sound'");
+        for (final String project : List.of("graphics", "sound")) {
+            final Path cDir = this.testProjectDir.resolve(project + "/src/main/c");
+            Files.createDirectories(cDir);
+            Files.writeString(cDir.resolve(project + ".h"), "void " + project + "();");
+        }
+        JextractTestUtils.writeBuildScript(
+                this.testProjectDir.resolve("graphics/build.gradle"),
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("opengl")
+                        .headerFile("src/main/c/graphics.h")
+                        .targetPackage("com.gl")
+                        .build());
+        JextractTestUtils.writeBuildScript(
+                this.testProjectDir.resolve("sound/build.gradle"),
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("audio")
+                        .headerFile("src/main/c/sound.h")
+                        .targetPackage("com.audio")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "build",
+                        "--stacktrace",
+                        "-Dorg.gradle.unsafe.isolated-projects=true",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString(),
+                        "-P" + JextractPlugin.PREFETCH_TOOL_PROPERTY + "=true",
+                        "-P" + JextractPlugin.PREFETCH_TOOL_VERSION_PROPERTY + "=" + version)
+                .build();
+
+        // Assert
+        assertThat(result.task(":graphics:generateOpenglBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.task(":sound:generateAudioBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    }
+}
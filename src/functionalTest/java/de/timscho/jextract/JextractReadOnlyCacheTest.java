@@ -0,0 +1,55 @@
+package de.timscho.jextract;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+
+class JextractReadOnlyCacheTest extends AbstractJextractFunctionalTest {
+
+    @Test
+    void usesToolFromReadOnlyCacheLayer() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+
+        final String version = "22-ea+5";
+        final Path imageHome = Path.of("build/functionalTest/read-only-image-" + System.nanoTime());
+        this.mockJextractTool(imageHome, version);
+        final Path readOnlyRoot = imageHome.resolve(JextractPlugin.RELATIVE_TOOL_CACHE).toAbsolutePath();
+
+        final Path stableUserHome = Path.of("build/functionalTest/read-only-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome)
+                .withArguments(
+                        "build",
+                        "--stacktrace",
+                        "--gradle-user-home",
+                        stableUserHome.toAbsolutePath().toString(),
+                        "-P" + JextractPlugin.READ_ONLY_TOOL_CACHE_PROPERTY + "=" + readOnlyRoot)
+                .build();
+
+        // Assert
+        assertThat(result.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve("build/generated/sources/jextract/math/com/math/math_h.java"))
+                .exists();
+        assertThat(this.getCacheDir(stableUserHome, version))
+                .as("Nothing should be copied into the writable cache")
+                .doesNotExist();
+    }
+}
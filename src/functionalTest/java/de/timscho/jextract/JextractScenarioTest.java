@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
@@ -53,6 +54,235 @@ class JextractScenarioTest extends AbstractJextractFunctionalTest {
         assertThat(result3.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
     }
 
+    @Test
+    void editingIncludedHeaderReruns() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        final Path includeDir = this.testProjectDir.resolve("include/math");
+        Files.createDirectories(cDir);
+        Files.createDirectories(includeDir);
+        Files.writeString(cDir.resolve("math.h"), "#include <math/types.h>\nnumber add(number a, number b);");
+        Files.writeString(includeDir.resolve("types.h"), "#include \"config.h\"\ntypedef int number;");
+        Files.writeString(includeDir.resolve("config.h"), "#define MATH_VERSION 1");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/scenario-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .compilerArg("-I")
+                        .compilerArg("include")
+                        .build());
+
+        // Act (Initial Build)
+        final BuildResult result1 = this.createRunner(stableUserHome).build();
+
+        // Assert (Initial Build)
+        assertThat(result1.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+
+        // Act (Modify Transitively Included Header)
+        Files.writeString(includeDir.resolve("config.h"), "#define MATH_VERSION 2");
+        final BuildResult result2 = this.createRunner(stableUserHome).build();
+
+        // Assert (Second Build)
+        assertThat(result2.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+
+        // Act (Modify Unrelated Header)
+        Files.writeString(includeDir.resolve("unused.h"), "int unused();");
+        final BuildResult result3 = this.createRunner(stableUserHome).build();
+
+        // Assert (Third Build)
+        assertThat(result3.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+    }
+
+    @Test
+    void commentOnlyEditRestoresPreviousBindings() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/scenario-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build());
+        final Path headerClass =
+                this.testProjectDir.resolve("build/generated/sources/jextract/math/com/math/math_h.java");
+
+        // Act (Initial Build)
+        this.createRunner(stableUserHome).build();
+
+        // Act (Comment and Whitespace Edit)
+        Files.writeString(cDir.resolve("math.h"), "/* Adds two numbers */\nint add(int a,\n        int b);\n");
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.getOutput()).contains("restored the previous bindings");
+        assertThat(headerClass).exists();
+        final String log = Files.readString(this.testProjectDir.resolve("jextract-mock.log"));
+        assertThat(log).as("jextract should not run again").containsOnlyOnce("Args:");
+    }
+
+    @Test
+    void headerEditWithoutChangedSymbolsKeepsBindings() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/scenario-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .incrementalGeneration(true)
+                        .build());
+        final Path headerClass =
+                this.testProjectDir.resolve("build/generated/sources/jextract/math/com/math/math_h.java");
+
+        // Act (Initial Build)
+        this.createRunner(stableUserHome).build();
+
+        // Act (Header Edit, the mock inventory lists the same symbols)
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);\n#define UNUSED(x) (void) x\n");
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result.getOutput()).contains("kept the previous bindings");
+        assertThat(headerClass).exists();
+        assertThat(this.testProjectDir.resolve("build/jextract/math/inventory/manifest.txt"))
+                .content()
+                .contains("--include-function add");
+        final List<String> generations = Files.readAllLines(this.testProjectDir.resolve("jextract-mock.log")).stream()
+                .filter(line -> line.startsWith("Args:") && !line.contains("--dump-includes"))
+                .toList();
+        assertThat(generations).as("jextract should only list the symbols again").hasSize(1);
+    }
+
+    @Test
+    void relocatedCheckoutLoadsBindingsFromBuildCache() throws IOException {
+        // Arrange
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/scenario-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        final Path buildCache = this.testProjectDir.resolve("build-cache");
+        final Path first = this.testProjectDir.resolve("first");
+        final Path second = this.testProjectDir.resolve("second");
+        for (final Path checkout : List.of(first, second)) {
+            Files.createDirectories(checkout.resolve("include"));
+            Files.writeString(checkout.resolve("include/types.h"), "typedef int handle;");
+            Files.createDirectories(checkout.resolve("src/main/c"));
+            Files.writeString(checkout.resolve("src/main/c/math.h"), "#include <types.h>\nhandle add(int a);");
+            Files.writeString(
+                    checkout.resolve("settings.gradle"),
+                    "rootProject.name = 'jextract-demo'\nbuildCache { local { directory = file('"
+                            + buildCache.toAbsolutePath().toString().replace('\\', '/') + "') } }");
+            JextractTestUtils.writeBuildScript(
+                    checkout.resolve("build.gradle"),
+                    version,
+                    JextractTestUtils.LibraryDefinition.builder()
+                            .name("math")
+                            .headerFile("src/main/c/math.h")
+                            .targetPackage("com.math")
+                            .includeDir("include")
+                            .define("MATH_API", "")
+                            .nativeLibraryResourcePath("native/math")
+                            .nativeLibraryExtractionPath("math-natives")
+                            .build());
+        }
+
+        // Act
+        final String userHome = stableUserHome.toAbsolutePath().toString();
+        final BuildResult result1 = this.createRunner(stableUserHome)
+                .withProjectDir(first.toFile())
+                .withArguments("build", "--build-cache", "--gradle-user-home", userHome)
+                .build();
+        final BuildResult result2 = this.createRunner(stableUserHome)
+                .withProjectDir(second.toFile())
+                .withArguments("build", "--build-cache", "--gradle-user-home", userHome)
+                .build();
+
+        // Assert
+        assertThat(result1.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result2.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+        assertThat(Files.readString(this.testProjectDir.resolve("jextract-mock.log")))
+                .contains("-I")
+                .contains("MATH_API");
+    }
+
+    @Test
+    void configurationCacheIsReused() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "int add(int a, int b);");
+        Files.writeString(cDir.resolve("audio.h"), "void play();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/scenario-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .build(),
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("audio")
+                        .headerFile("src/main/c/audio.h")
+                        .targetPackage("com.audio")
+                        .build());
+        final List<String> arguments = List.of(
+                "build",
+                "--configuration-cache",
+                "--gradle-user-home",
+                stableUserHome.toAbsolutePath().toString());
+
+        // Act (Initial Build)
+        final BuildResult result1 = this.createRunner(stableUserHome).withArguments(arguments).build();
+
+        // Assert (Initial Build)
+        assertThat(result1.getOutput()).contains("Configuration cache entry stored.");
+        assertThat(result1.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result1.task(":generateAudioBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+
+        // Act (Modify Header, Second Build)
+        Files.writeString(cDir.resolve("math.h"), "int sub(int a, int b);");
+        final BuildResult result2 = this.createRunner(stableUserHome).withArguments(arguments).build();
+
+        // Assert (Second Build)
+        assertThat(result2.getOutput()).contains("Configuration cache entry reused.");
+        assertThat(result2.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(result2.task(":generateAudioBindings").getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+    }
+
     @Test
     void taskDependenciesAreSetCorrectly() throws IOException {
         // Arrange
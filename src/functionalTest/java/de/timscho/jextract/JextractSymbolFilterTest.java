@@ -0,0 +1,62 @@
+package de.timscho.jextract;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+
+class JextractSymbolFilterTest extends AbstractJextractFunctionalTest {
+
+    @Test
+    void generatesSelectedSymbolsAndReusesInventory() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("math.h"), "typedef struct { int x; } point;\nint add(int a, int b);");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/symbols-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .includeSymbol("add")
+                        .build());
+
+        // Act (Initial Build)
+        final BuildResult result1 = this.createRunner(stableUserHome).build();
+
+        // Assert (Initial Build)
+        assertThat(result1.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        final Path selection = this.testProjectDir.resolve("build/jextract/math/inventory/selected.args");
+        assertThat(selection).content().contains("--include-function add").doesNotContain("sub");
+
+        // Act (Changed Filter)
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("math")
+                        .headerFile("src/main/c/math.h")
+                        .targetPackage("com.math")
+                        .includeSymbol("add|sub")
+                        .build());
+        final BuildResult result2 = this.createRunner(stableUserHome).build();
+
+        // Assert (Changed Filter)
+        assertThat(result2.task(":generateMathBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(selection).content().contains("--include-function add", "--include-function sub");
+
+        final String log = Files.readString(this.testProjectDir.resolve("jextract-mock.log"));
+        assertThat(log).as("Symbols should be listed once").containsOnlyOnce("--dump-includes");
+        assertThat(log).as("Selection should be passed as argument file").contains("@");
+    }
+}
@@ -1,9 +1,14 @@
 package de.timscho.jextract;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Singular;
@@ -29,10 +34,19 @@ public class JextractTestUtils {
         if (libraries != null) {
             for (final LibraryDefinition lib : libraries) {
                 libsBlock.append("        ").append(lib.name).append(" {\n");
-                libsBlock
-                        .append("            headerFile = file('")
-                        .append(lib.headerFile)
-                        .append("')\n");
+                if (lib.headerFile != null) {
+                    libsBlock
+                            .append("            headerFile = file('")
+                            .append(lib.headerFile)
+                            .append("')\n");
+                }
+                if (lib.headerFiles != null && !lib.headerFiles.isEmpty()) {
+                    libsBlock.append("            headerFiles.from([");
+                    for (final String header : lib.headerFiles) {
+                        libsBlock.append("'").append(header).append("',");
+                    }
+                    libsBlock.append("])\n");
+                }
                 libsBlock
                         .append("            targetPackage = '")
                         .append(lib.targetPackage)
@@ -62,8 +76,47 @@ public class JextractTestUtils {
                     }
                     libsBlock.append("]\n");
                 }
+                if (lib.includeDirs != null && !lib.includeDirs.isEmpty()) {
+                    libsBlock.append("            includeDirs.from([");
+                    for (final String dir : lib.includeDirs) {
+                        libsBlock.append("'").append(dir).append("',");
+                    }
+                    libsBlock.append("])\n");
+                }
+                if (lib.defines != null && !lib.defines.isEmpty()) {
+                    libsBlock.append("            defines = [");
+                    lib.defines.forEach((name, value) ->
+                            libsBlock.append("'").append(name).append("': '").append(value).append("',"));
+                    libsBlock.append("]\n");
+                }
+                if (lib.jvmArgs != null && !lib.jvmArgs.isEmpty()) {
+                    libsBlock.append("            jvmArgs = [");
+                    for (final String arg : lib.jvmArgs) {
+                        libsBlock.append("'").append(arg).append("',");
+                    }
+                    libsBlock.append("]\n");
+                }
+                if (lib.incrementalGeneration != null) {
+                    libsBlock
+                            .append("            incrementalGeneration = ")
+                            .append(lib.incrementalGeneration)
+                            .append("\n");
+                }
+                if (lib.precompile != null) {
+                    libsBlock.append("            precompile = ").append(lib.precompile).append("\n");
+                }
+                if (lib.symbolIncludeNames != null && !lib.symbolIncludeNames.isEmpty()) {
+                    libsBlock.append("            symbols {\n");
+                    libsBlock.append("                includeNames = [");
+                    for (final String pattern : lib.symbolIncludeNames) {
+                        libsBlock.append("'").append(pattern).append("',");
+                    }
+                    libsBlock.append("]\n");
+                    libsBlock.append("            }\n");
+                }
                 if (lib.nativeLibraryResourcePath != null
                         || lib.nativeLibraryExtractionDir != null
+                        || lib.nativeLibraryExtractionPath != null
                         || lib.nativeLibraryEnableCaching != null) {
                     libsBlock.append("            nativeLibraryLoading {\n");
                     if (lib.nativeLibraryResourcePath != null) {
@@ -78,6 +131,12 @@ public class JextractTestUtils {
                                 .append(lib.nativeLibraryExtractionDir)
                                 .append("')\n");
                     }
+                    if (lib.nativeLibraryExtractionPath != null) {
+                        libsBlock
+                                .append("                extractionPath = '")
+                                .append(lib.nativeLibraryExtractionPath)
+                                .append("'\n");
+                    }
                     if (lib.nativeLibraryEnableCaching != null) {
                         libsBlock
                                 .append("                enableCaching = ")
@@ -108,6 +167,44 @@ public class JextractTestUtils {
         Files.writeString(buildFile, buildScript);
     }
 
+    /**
+     * Packs a directory into a gzip compressed ustar archive, keeping the executable bit of files.
+     *
+     * @param sourceDir The directory to pack, entries are stored relative to it.
+     * @param archive The archive to write.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void writeTarGz(final Path sourceDir, final Path archive) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceDir)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            for (final Path file : files) {
+                final byte[] content = Files.readAllBytes(file);
+                final String name = sourceDir.relativize(file).toString().replace('\\', '/');
+                final byte[] header = new byte[512];
+                final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+                JextractTestUtils.putOctal(header, 100, 8, Files.isExecutable(file) ? 0755 : 0644);
+                JextractTestUtils.putOctal(header, 124, 12, content.length);
+                header[156] = '0';
+                System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+
+                out.write(header);
+                out.write(content);
+                out.write(new byte[(512 - content.length % 512) % 512]);
+            }
+            out.write(new byte[1024]);
+        }
+    }
+
+    private static void putOctal(final byte[] header, final int offset, final int length, final long value) {
+        final String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+    }
+
     @Data
     @Builder
     public static class LibraryDefinition {
@@ -115,6 +212,10 @@ public class JextractTestUtils {
 
         @Nullable String headerFile;
 
+        // The singular name must not clash with the builder method of headerFile
+        @Singular("umbrellaHeader")
+        @Nullable List<String> headerFiles;
+
         @Nullable String targetPackage;
 
         @Nullable String headerClassName;
@@ -126,11 +227,29 @@ public class JextractTestUtils {
         @Singular
         @Nullable List<String> compilerArgs;
 
+        @Singular
+        @Nullable List<String> jvmArgs;
+
+        @Singular
+        @Nullable List<String> includeDirs;
+
+        @Singular
+        @Nullable Map<String, String> defines;
+
+        @Singular("includeSymbol")
+        @Nullable List<String> symbolIncludeNames;
+
+        @Nullable Boolean incrementalGeneration;
+
+        @Nullable Boolean precompile;
+
         // Native library loading configuration
         @Nullable String nativeLibraryResourcePath;
 
         @Nullable String nativeLibraryExtractionDir;
 
+        @Nullable String nativeLibraryExtractionPath;
+
         @Nullable Boolean nativeLibraryEnableCaching;
     }
 }
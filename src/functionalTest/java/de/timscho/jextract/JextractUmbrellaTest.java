@@ -0,0 +1,50 @@
+package de.timscho.jextract;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+
+class JextractUmbrellaTest extends AbstractJextractFunctionalTest {
+
+    @Test
+    void generatesSeveralHeadersInOneRun() throws IOException {
+        // Arrange
+        final Path cDir = this.testProjectDir.resolve("src/main/c");
+        Files.createDirectories(cDir);
+        Files.writeString(cDir.resolve("base.h"), "typedef struct { int x; } point;");
+        Files.writeString(cDir.resolve("window.h"), "#include \"base.h\"\nvoid move(point p);");
+        Files.writeString(cDir.resolve("input.h"), "#include \"base.h\"\npoint cursor();");
+
+        final String version = "22-ea+5";
+        final Path stableUserHome = Path.of("build/functionalTest/umbrella-home-" + System.nanoTime());
+        Files.createDirectories(stableUserHome);
+        this.mockJextractTool(stableUserHome, version);
+
+        this.writeBuildScript(
+                version,
+                JextractTestUtils.LibraryDefinition.builder()
+                        .name("sdk")
+                        .umbrellaHeader("src/main/c/window.h")
+                        .umbrellaHeader("src/main/c/input.h")
+                        .targetPackage("com.example.sdk")
+                        .build());
+
+        // Act
+        final BuildResult result = this.createRunner(stableUserHome).build();
+
+        // Assert
+        assertThat(result.task(":generateSdkBindings").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(this.testProjectDir.resolve("build/generated/sources/jextract/sdk/com/example/sdk/sdk_h.java"))
+                .as("Header class should be named after the library")
+                .exists();
+
+        final String log = Files.readString(this.testProjectDir.resolve("jextract-mock.log"));
+        assertThat(log).as("jextract should run once").containsOnlyOnce("Args:");
+        assertThat(log).as("jextract should parse the umbrella header").contains("sdk.h");
+    }
+}
@@ -1,45 +1,152 @@
 package de.timscho.jextract;
 
+import de.timscho.jextract.extension.ExecutionMode;
+import de.timscho.jextract.extension.JextractDefinition;
 import de.timscho.jextract.extension.JextractExtension;
+import de.timscho.jextract.internal.download.JextractDistributionTransform;
 import de.timscho.jextract.internal.download.JextractToolService;
+import de.timscho.jextract.internal.download.JextractUrlGenerator;
+import de.timscho.jextract.internal.download.ToolSharedArchive;
+import de.timscho.jextract.internal.execution.JextractBudgetService;
+import de.timscho.jextract.internal.model.SupportedPlatform;
 import de.timscho.jextract.task.JextractTask;
 import java.io.File;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import javax.inject.Inject;
+import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildServiceRegistry;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.Sync;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.build.event.BuildEventsListenerRegistry;
 import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
 
 public final class JextractPlugin implements Plugin<Project> {
     public static final String TASK_GROUP = "jextract";
+    public static final String TOOL_CONFIGURATION = "jextractTool";
     public static final Path RELATIVE_TOOL_CACHE = Path.of("caches", "jextract-tool");
+    public static final String READ_ONLY_TOOL_CACHE_PROPERTY = "jextract.readOnlyToolCaches";
+    public static final String READ_ONLY_TOOL_CACHE_ENV = "JEXTRACT_RO_TOOL_CACHE";
+    public static final String TOOL_CACHE_MAX_UNUSED_DAYS_PROPERTY = "jextract.toolCache.maxUnusedDays";
+    public static final String TOOL_CACHE_MAX_SIZE_PROPERTY = "jextract.toolCache.maxSizeMb";
+    public static final String PREFETCH_TOOL_PROPERTY = "jextract.prefetchTool";
+    public static final String PREFETCH_TOOL_VERSION_PROPERTY = "jextract.prefetchToolVersion";
+    public static final String MAX_CONCURRENT_GENERATIONS_PROPERTY = "jextract.maxConcurrentGenerations";
+    public static final String MAX_GENERATION_MEMORY_PROPERTY = "jextract.maxGenerationMemoryMb";
+
+    private final BuildEventsListenerRegistry listenerRegistry;
+
+    @Inject
+    public JextractPlugin(final BuildEventsListenerRegistry listenerRegistry) {
+        this.listenerRegistry = listenerRegistry;
+    }
 
     @Override
     public void apply(final Project project) {
         final JextractExtension extension = project.getExtensions()
                 .create(JextractPlugin.TASK_GROUP, JextractExtension.class, project.getObjects());
         extension.getToolVersion().convention(JextractToolService.DEFAULT_VERSION);
+        extension.getToolHomeFromEnvironment().convention(false);
+        extension
+                .getToolHome()
+                .convention(project.getLayout()
+                        .getProjectDirectory()
+                        .dir(project.getProviders()
+                                .environmentVariable("JEXTRACT_HOME")
+                                .filter(_ -> extension.getToolHomeFromEnvironment().get())));
+        extension.getResolveToolAsDependency().convention(false);
+        extension.getToolRepositoryUrl().convention(JextractUrlGenerator.DEFAULT_REPOSITORY_URL);
+        extension.getToolClassDataSharing().convention(true);
+        extension.getExecutionMode().convention(ExecutionMode.EXEC);
+        extension.getDaemonIdleTimeout().convention(Duration.ofHours(3));
 
-        final Provider<JextractToolService> serviceProvider = project.getGradle()
-                .getSharedServices()
-                .registerIfAbsent("jextractTool", JextractToolService.class, spec -> {
-                    spec.getParameters().getVersion().set(extension.getToolVersion());
-
-                    final File cacheDir = project.getGradle()
-                            .getGradleUserHomeDir()
-                            .toPath()
-                            .resolve(JextractPlugin.RELATIVE_TOOL_CACHE)
-                            .toFile();
-                    spec.getParameters().getCacheDir().set(cacheDir);
+        final FileCollection toolDistribution = this.registerToolConfiguration(project, extension);
+
+        // The parameters of shared services come from whichever project registers them first, which varies with
+        // parallel configuration. They are read from Gradle properties only, tasks pass their own tool version.
+        final BuildServiceRegistry sharedServices = project.getGradle().getSharedServices();
+        final File toolCacheDir = project.getGradle()
+                .getGradleUserHomeDir()
+                .toPath()
+                .resolve(JextractPlugin.RELATIVE_TOOL_CACHE)
+                .toFile();
+
+        final Provider<JextractToolService> serviceProvider =
+                sharedServices.registerIfAbsent("jextractTool", JextractToolService.class, spec -> {
+                    spec.getParameters().getCacheDir().set(toolCacheDir);
+                    spec.getParameters()
+                            .getReadOnlyCacheDirs()
+                            .from(project.getProviders()
+                                    .gradleProperty(JextractPlugin.READ_ONLY_TOOL_CACHE_PROPERTY)
+                                    .orElse(project.getProviders()
+                                            .environmentVariable(JextractPlugin.READ_ONLY_TOOL_CACHE_ENV))
+                                    .map(roots -> Arrays.stream(roots.split(File.pathSeparator))
+                                            .map(String::trim)
+                                            .filter(root -> !root.isEmpty())
+                                            .toList()));
+                    spec.getParameters()
+                            .getMaxUnusedDays()
+                            .set(project.getProviders()
+                                    .gradleProperty(JextractPlugin.TOOL_CACHE_MAX_UNUSED_DAYS_PROPERTY)
+                                    .map(Integer::parseInt));
+                    spec.getParameters()
+                            .getMaxCacheSizeMegabytes()
+                            .set(project.getProviders()
+                                    .gradleProperty(JextractPlugin.TOOL_CACHE_MAX_SIZE_PROPERTY)
+                                    .map(Long::parseLong));
+                    spec.getParameters()
+                            .getPrefetchVersion()
+                            .set(project.getProviders().gradleProperty(JextractPlugin.PREFETCH_TOOL_VERSION_PROPERTY));
+                    spec.getParameters()
+                            .getPrefetch()
+                            .set(project.getProviders()
+                                    .gradleProperty(JextractPlugin.PREFETCH_TOOL_PROPERTY)
+                                    .map(Boolean::parseBoolean));
                 });
+        this.registerPrefetch(project, serviceProvider);
+
+        // Referenced by name from the binding tasks
+        final Provider<Integer> maxConcurrentGenerations = project.getProviders()
+                .gradleProperty(JextractPlugin.MAX_CONCURRENT_GENERATIONS_PROPERTY)
+                .map(Integer::parseInt);
+        sharedServices.registerIfAbsent("jextractBudget", JextractBudgetService.class, spec -> {
+            spec.getParameters().getMaxConcurrent().set(maxConcurrentGenerations);
+            // Worker daemons cannot reach build services, Gradle holds back the tasks submitting to them instead.
+            // Waiting for the budget in a task would hold a worker lease the running generations may still need.
+            spec.getMaxParallelUsages().set(maxConcurrentGenerations.map(max -> Math.max(1, max)));
+            spec.getParameters()
+                    .getMaxMemoryMegabytes()
+                    .set(project.getProviders()
+                            .gradleProperty(JextractPlugin.MAX_GENERATION_MEMORY_PROPERTY)
+                            .map(Integer::parseInt));
+        });
+
+        // Fail while configuring instead of generating loaders that silently resolve the path elsewhere
+        project.afterEvaluate(_ -> extension.getLibraries().forEach(this::validateExtractionPath));
 
         // Process Container
         extension.getLibraries().all(library -> {
             final String taskName = "generate" + this.capitalize(library.getName()) + "Bindings";
+            final Provider<Directory> outputDir =
+                    project.getLayout().getBuildDirectory().dir("generated/sources/jextract/" + library.getName());
+            final Provider<Boolean> archived = library.getArchiveOutput().orElse(false);
 
             final TaskProvider<JextractTask> task = project.getTasks()
                     .register(taskName, JextractTask.class, taskInnit -> {
@@ -48,6 +155,8 @@ public final class JextractPlugin implements Plugin<Project> {
 
                         // Link inputs
                         taskInnit.getHeaderFile().set(library.getHeaderFile());
+                        taskInnit.getHeaderFiles().from(library.getHeaderFiles());
+                        taskInnit.getUmbrellaHeaderName().set(library.getName() + ".h");
                         taskInnit.getTargetPackage().set(library.getTargetPackage());
                         taskInnit.getHeaderClassName().set(library.getHeaderClassName());
                         taskInnit.getLibraryName().set(library.getLibraryName());
@@ -61,32 +170,234 @@ public final class JextractPlugin implements Plugin<Project> {
                                 .getNativeLibraryLoading()
                                 .getExtractionDir()
                                 .set(library.getNativeLibraryLoading().getExtractionDir());
+                        taskInnit
+                                .getNativeLibraryLoading()
+                                .getExtractionPath()
+                                .set(library.getNativeLibraryLoading().getExtractionPath());
+                        taskInnit
+                                .getNativeLibraryLoading()
+                                .getExtractionBase()
+                                .set(library.getNativeLibraryLoading().getExtractionBase());
                         taskInnit
                                 .getNativeLibraryLoading()
                                 .getEnableCaching()
                                 .set(library.getNativeLibraryLoading().getEnableCaching());
 
+                        taskInnit.getSymbols().getIncludeNames().set(library.getSymbols().getIncludeNames());
+                        taskInnit.getSymbols().getExcludeNames().set(library.getSymbols().getExcludeNames());
+                        taskInnit.getSymbols().getHeaders().set(library.getSymbols().getHeaders());
+                        taskInnit.getSymbols().getKinds().set(library.getSymbols().getKinds());
+
                         taskInnit.getCompilerArgs().set(library.getCompilerArgs());
+                        taskInnit.getIncludeDirs().from(library.getIncludeDirs());
+                        taskInnit.getDefines().set(library.getDefines());
+                        taskInnit.getJvmArgs().set(library.getJvmArgs());
+                        taskInnit.getShards().set(library.getShards());
+                        taskInnit.getIncrementalGeneration().set(library.getIncrementalGeneration());
+                        taskInnit.getCommentPolicy().set(library.getCommentPolicy());
+                        taskInnit.getWorkingDirectory().set(project.getLayout().getProjectDirectory());
+                        taskInnit.getClassDataSharing().set(extension.getToolClassDataSharing());
+                        taskInnit
+                                .getSharedArchiveDirectory()
+                                .set(new File(toolCacheDir, ToolSharedArchive.DIRECTORY_NAME));
+                        taskInnit.getExecutionMode().set(extension.getExecutionMode());
+                        taskInnit.getDaemonIdleTimeout().set(extension.getDaemonIdleTimeout());
+                        taskInnit.getDaemonDirectory().set(new File(toolCacheDir, "daemons"));
+
+                        // Link tool sources
+                        taskInnit.getToolVersion().set(extension.getToolVersion());
+                        taskInnit.getToolHome().set(extension.getToolHome());
+                        taskInnit.getToolDistribution().from(toolDistribution);
+                        // Unpacking the distribution is scheduled as a transform before the task runs
+                        taskInnit.dependsOn(toolDistribution);
 
                         // Link Service
                         taskInnit.getToolService().set(serviceProvider);
                         // Ensure service is ready before task runs (implicit dependency)
                         taskInnit.usesService(serviceProvider);
 
-                        // Output
-                        final Provider<Directory> outputDir = project.getLayout()
-                                .getBuildDirectory()
-                                .dir("generated/sources/jextract/" + library.getName());
-                        taskInnit.getOutputDirectory().set(outputDir);
+                        // Output, either the sources or an archive of them
+                        taskInnit.getOutputDirectory().set(outputDir.filter(_ -> !archived.get()));
+                        taskInnit
+                                .getSourcesArchive()
+                                .set(project.getLayout()
+                                        .getBuildDirectory()
+                                        .file("jextract/" + library.getName() + "/sources.zip")
+                                        .filter(_ -> archived.get()));
+                        taskInnit
+                                .getPackedDirectory()
+                                .set(project.getLayout()
+                                        .getBuildDirectory()
+                                        .dir("jextract/" + library.getName() + "/packed"));
+                        taskInnit
+                                .getInventoryDirectory()
+                                .set(project.getLayout()
+                                        .getBuildDirectory()
+                                        .dir("jextract/" + library.getName() + "/inventory"));
+                        taskInnit
+                                .getSnapshotDirectory()
+                                .set(project.getLayout()
+                                        .getBuildDirectory()
+                                        .dir("jextract/" + library.getName() + "/snapshot"));
+                    });
+
+            final TaskProvider<Sync> unpack = project.getTasks()
+                    .register("unpack" + this.capitalize(library.getName()) + "Bindings", Sync.class, unpackInnit -> {
+                        unpackInnit.setGroup(JextractPlugin.TASK_GROUP);
+                        unpackInnit.setDescription("Unpacks the archived bindings for " + library.getName());
+                        unpackInnit.onlyIf("archived output is enabled", _ -> archived.get());
+                        unpackInnit.dependsOn(task);
+                        unpackInnit.from(project.zipTree(task.flatMap(JextractTask::getSourcesArchive)));
+                        unpackInnit.into(outputDir);
                     });
+            final Callable<Object> sources =
+                    () -> archived.get() ? unpack : task.flatMap(JextractTask::getOutputDirectory);
 
             // Register with Java SourceSets
-            project.getPlugins().withType(org.gradle.api.plugins.JavaPlugin.class, _ -> {
+            project.getPluginManager().withPlugin("java", _ -> {
                 final SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
                 final SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
-                main.getJava().srcDir(task.flatMap(JextractTask::getOutputDirectory));
+                final Provider<Boolean> precompile = library.getPrecompile().orElse(false);
+                main.getJava().srcDir((Callable<Object>) () -> precompile.get() ? List.of() : sources.call());
+                this.registerPrecompilation(project, library.getName(), sources, precompile);
+            });
+        });
+    }
+
+    /**
+     * Registers a cacheable compile task and a jar for the bindings of one library. When precompilation is enabled,
+     * the jar replaces the generated sources in the main source set, so the main compilation neither recompiles the
+     * bindings nor loses compile avoidance to them. The bindings only use {@code java.base}.
+     */
+    private void registerPrecompilation(
+            final Project project,
+            final String libraryName,
+            final Callable<Object> sources,
+            final Provider<Boolean> precompile) {
+        final String capitalized = this.capitalize(libraryName);
+        final TaskProvider<JavaCompile> compile = project.getTasks()
+                .register("compile" + capitalized + "Bindings", JavaCompile.class, compileInnit -> {
+                    compileInnit.setGroup(JextractPlugin.TASK_GROUP);
+                    compileInnit.setDescription("Compiles the bindings for " + libraryName);
+                    compileInnit.setSource(sources);
+                    compileInnit.setClasspath(project.files());
+                    compileInnit.getOptions().setAnnotationProcessorPath(project.files());
+                    compileInnit
+                            .getDestinationDirectory()
+                            .set(project.getLayout().getBuildDirectory().dir("jextract/" + libraryName + "/classes"));
+                });
+        final TaskProvider<Jar> jar = project.getTasks()
+                .register("jar" + capitalized + "Bindings", Jar.class, jarInnit -> {
+                    jarInnit.setGroup(JextractPlugin.TASK_GROUP);
+                    jarInnit.setDescription("Assembles the compiled bindings for " + libraryName);
+                    jarInnit.from(compile.flatMap(JavaCompile::getDestinationDirectory));
+                    jarInnit.getArchiveBaseName().set(libraryName + "-bindings");
+                    jarInnit
+                            .getDestinationDirectory()
+                            .set(project.getLayout().getBuildDirectory().dir("jextract/" + libraryName + "/libs"));
+                });
+
+        final FileCollection bindings = project.files(jar);
+        project.getConfigurations()
+                .named(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME)
+                .configure(configuration -> configuration
+                        .getDependencies()
+                        .addAllLater(precompile.map(enabled -> enabled
+                                ? List.of(project.getDependencies().create(bindings))
+                                : List.of())));
+    }
+
+    /**
+     * Lets the tool service start the prefetch once the first task of the build finished, so the download overlaps
+     * unrelated tasks. Listening to task completion also works for builds reusing the configuration cache.
+     */
+    private void registerPrefetch(final Project project, final Provider<JextractToolService> serviceProvider) {
+        final Provider<Boolean> prefetch = project.getProviders()
+                .gradleProperty(JextractPlugin.PREFETCH_TOOL_PROPERTY)
+                .map(Boolean::parseBoolean)
+                .orElse(false);
+        if (!prefetch.get()) {
+            return;
+        }
+
+        this.listenerRegistry.onTaskCompletion(serviceProvider);
+    }
+
+    /**
+     * Registers the {@code jextractTool} configuration and the transform unpacking its archives.
+     *
+     * @return The unpacked distribution, empty unless {@code resolveToolAsDependency} is enabled
+     */
+    private FileCollection registerToolConfiguration(final Project project, final JextractExtension extension) {
+        final Configuration configuration = project.getConfigurations()
+                .create(JextractPlugin.TOOL_CONFIGURATION, config -> {
+                    config.setCanBeConsumed(false);
+                    config.setDescription("The jextract distribution archive used to generate bindings.");
+                    config.defaultDependencies(dependencies -> {
+                        if (extension.getResolveToolAsDependency().get()) {
+                            dependencies.add(project.getDependencies()
+                                    .create(JextractUrlGenerator.generateDependencyNotation(
+                                            extension.getToolVersion().get(),
+                                            SupportedPlatform.getCurrentSupported())));
+                        }
+                    });
+                });
+
+        project.getDependencies().registerTransform(JextractDistributionTransform.class, spec -> {
+            spec.getFrom()
+                    .attribute(
+                            ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE, JextractDistributionTransform.ARCHIVE_TYPE);
+            spec.getTo()
+                    .attribute(
+                            ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE,
+                            JextractDistributionTransform.DISTRIBUTION_TYPE);
+        });
+
+        final FileCollection distribution = configuration
+                .getIncoming()
+                .artifactView(view -> view.getAttributes()
+                        .attribute(
+                                ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE,
+                                JextractDistributionTransform.DISTRIBUTION_TYPE))
+                .getFiles();
+
+        project.afterEvaluate(_ -> {
+            if (extension.getResolveToolAsDependency().get()
+                    && extension.getToolRepositoryUrl().isPresent()) {
+                this.addToolRepository(project, extension.getToolRepositoryUrl().get());
+            }
+        });
+
+        return project.files((Callable<Object>)
+                () -> extension.getResolveToolAsDependency().get() ? distribution : List.of());
+    }
+
+    private void addToolRepository(final Project project, final String url) {
+        final IvyArtifactRepository repository = project.getRepositories().ivy(ivy -> {
+            ivy.setName("jextractDistributions");
+            ivy.setUrl(url);
+            ivy.patternLayout(layout -> {
+                layout.artifact(JextractUrlGenerator.IVY_ARTIFACT_PATTERN);
+                layout.setM2compatible(true);
             });
+            ivy.metadataSources(IvyArtifactRepository.MetadataSources::artifact);
         });
+
+        project.getRepositories().exclusiveContent(content -> content.forRepositories(repository)
+                .filter(filter -> filter.includeGroupByRegex(JextractUrlGenerator.IVY_GROUP_REGEX)));
+    }
+
+    /**
+     * Loaders join the extraction path to a directory only known at runtime, possibly on another platform, so
+     * absolute paths of any platform are rejected.
+     */
+    private void validateExtractionPath(final JextractDefinition library) {
+        final @Nullable String path = library.getNativeLibraryLoading().getExtractionPath().getOrNull();
+        if (path != null && (path.startsWith("/") || path.startsWith("\\") || path.matches("[A-Za-z]:.*"))) {
+            throw new GradleException("nativeLibraryLoading.extractionPath of library '" + library.getName()
+                    + "' must be relative to its extractionBase, use extractionDir for an absolute directory: "
+                    + path);
+        }
     }
 
     @Contract(pure = true)
@@ -0,0 +1,23 @@
+package de.timscho.jextract.extension;
+
+/**
+ * Which comments of the generated bindings are kept. jextract documents every generated class and method with a
+ * Javadoc block quoting the C declaration, which makes up a large share of the sources of big APIs.
+ */
+public enum CommentPolicy {
+    /**
+     * Keeps the bindings as jextract generated them.
+     */
+    KEEP,
+
+    /**
+     * Shortens every block comment to a single line, e.g. {@code /** int add(int a, int b) *}{@code /} for the
+     * snippet quoting a function prototype. Line comments are kept.
+     */
+    SUMMARY,
+
+    /**
+     * Removes all comments.
+     */
+    STRIP
+}
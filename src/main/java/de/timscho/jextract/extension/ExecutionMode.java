@@ -0,0 +1,25 @@
+package de.timscho.jextract.extension;
+
+/**
+ * How binding tasks run jextract.
+ */
+public enum ExecutionMode {
+    /**
+     * Forks the jextract launcher for every task.
+     */
+    EXEC,
+
+    /**
+     * Runs jextract through its {@link java.util.spi.ToolProvider} in a Gradle worker daemon started on the runtime
+     * bundled with the distribution. The daemon is reused by all binding tasks of the build, so the JVM startup and
+     * JIT warm-up are paid once. Falls back to {@link #EXEC} if the distribution has no bundled runtime.
+     */
+    WORKER,
+
+    /**
+     * Runs jextract through its {@link java.util.spi.ToolProvider} in a background daemon on the bundled runtime,
+     * reached over a loopback socket. The daemon survives the build and is shared by later builds until it was idle
+     * for {@code daemonIdleTimeout}. Falls back to {@link #EXEC} if the distribution has no bundled runtime.
+     */
+    DAEMON
+}
@@ -0,0 +1,32 @@
+package de.timscho.jextract.extension;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Directory the generated loader resolves a relative extraction path against at runtime. Unlike an absolute
+ * extraction directory, it is the same on every machine, so the bindings stay cacheable across checkouts.
+ */
+@RequiredArgsConstructor
+@Getter
+public enum ExtractionBase {
+    /**
+     * The temporary directory of the running JVM.
+     */
+    TEMP("java.io.tmpdir"),
+
+    /**
+     * The home directory of the user running the JVM.
+     */
+    USER_HOME("user.home"),
+
+    /**
+     * The working directory of the running JVM.
+     */
+    WORKING_DIRECTORY("user.dir");
+
+    /**
+     * System property holding the directory at runtime.
+     */
+    private final String systemProperty;
+}
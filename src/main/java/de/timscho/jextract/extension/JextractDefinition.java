@@ -3,9 +3,11 @@ package de.timscho.jextract.extension;
 import javax.inject.Inject;
 import lombok.Getter;
 import org.gradle.api.Action;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
@@ -14,21 +16,104 @@ import org.gradle.api.tasks.Optional;
 public abstract class JextractDefinition {
     private final String name;
     private final NativeLibraryLoadingConfig nativeLibraryLoading;
+    private final SymbolFilterConfig symbols;
 
     @Inject
     public JextractDefinition(final String name, final ObjectFactory objectFactory) {
         this.name = name;
         this.nativeLibraryLoading = objectFactory.newInstance(NativeLibraryLoadingConfig.class);
+        this.symbols = objectFactory.newInstance(SymbolFilterConfig.class);
     }
 
     public abstract RegularFileProperty getHeaderFile();
 
+    /**
+     * Related headers generated together with {@link #getHeaderFile()} in a single jextract run.
+     * A synthetic umbrella header includes all of them, so shared base headers are parsed once and their types
+     * are generated once. Without a {@code headerFile}, the header class is named after the library, e.g.
+     * {@code sdk_h} for a library named {@code sdk}.
+     *
+     * @return the header files, in include order
+     */
+    public abstract ConfigurableFileCollection getHeaderFiles();
+
     public abstract Property<String> getTargetPackage();
 
     public abstract ListProperty<String> getCompilerArgs();
 
+    /**
+     * Include directories searched for headers. Unlike {@code -I} in {@link #getCompilerArgs()}, they are
+     * fingerprinted relative to each directory, so the bindings are cacheable across checkout locations.
+     *
+     * @return the include directories, in search order
+     */
+    public abstract ConfigurableFileCollection getIncludeDirs();
+
+    /**
+     * Preprocessor macros passed as {@code -D name=value}, or {@code -D name} for an empty value.
+     *
+     * @return the macro definitions
+     */
+    public abstract MapProperty<String, String> getDefines();
+
     public abstract Property<String> getHeaderClassName();
 
+    /**
+     * JVM options for the jextract launcher, e.g. {@code -Xmx2g} for huge headers or
+     * {@code -XX:TieredStopAtLevel=1} for faster startup on tiny ones.
+     * Passed to the bundled JVM through the {@code JDK_JAVA_OPTIONS} environment variable.
+     *
+     * @return the JVM options
+     */
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Splits the symbols of giant headers into this many jextract runs, generated in parallel within the
+     * concurrency budget and merged into one package with a single header class.
+     * Default: 1, not sharded
+     *
+     * @return the number of shards
+     */
+    public abstract Property<Integer> getShards();
+
+    /**
+     * Regenerate only the symbols whose declarations changed when nothing but the headers changed, and merge them
+     * into the previous bindings. Costs an extra {@code jextract --dump-includes} run whenever the headers change.
+     * Not combined with {@link #getShards()}.
+     * Default: false
+     *
+     * @return whether generation is incremental
+     */
+    public abstract Property<Boolean> getIncrementalGeneration();
+
+    /**
+     * Compile the bindings in their own cacheable task and put the jar on the main compile and runtime classpath,
+     * instead of compiling the generated sources together with the main sources.
+     * Default: false
+     *
+     * @return whether the bindings are precompiled
+     */
+    public abstract Property<Boolean> getPrecompile();
+
+    /**
+     * Cache the bindings as a single zip archive instead of one file per generated class, which speeds up storing
+     * and loading them from a remote build cache. A cheap unpack task then feeds the sources to the compilation.
+     * Default: false
+     *
+     * @return whether the bindings are cached as an archive
+     */
+    public abstract Property<Boolean> getArchiveOutput();
+
+    /**
+     * Which comments of the generated bindings are kept. jextract quotes the C declaration in a Javadoc snippet on
+     * every generated class and method, {@link CommentPolicy#SUMMARY} shortens them to one line and
+     * {@link CommentPolicy#STRIP} removes them, which shrinks the sources javac lexes and the build cache stores.
+     * Default: {@link CommentPolicy#KEEP}
+     *
+     * @return the comment policy
+     */
+    public abstract Property<CommentPolicy> getCommentPolicy();
+
     /**
      * Library name for system-installed libraries.
      * Uses System.mapLibraryName() at build time for jextract.
@@ -58,4 +143,14 @@ public abstract class JextractDefinition {
     public void nativeLibraryLoading(final Action<? super NativeLibraryLoadingConfig> action) {
         action.execute(this.nativeLibraryLoading);
     }
+
+    /**
+     * Configures which symbols of the headers are generated using a closure/action.
+     * The symbols are listed once with {@code jextract --dump-includes} and cached until the headers change.
+     *
+     * @param action the closure/action to configure the symbol filter
+     */
+    public void symbols(final Action<? super SymbolFilterConfig> action) {
+        action.execute(this.symbols);
+    }
 }
@@ -1,9 +1,11 @@
 package de.timscho.jextract.extension;
 
+import java.time.Duration;
 import javax.inject.Inject;
 import lombok.Getter;
 import org.gradle.api.Action;
 import org.gradle.api.NamedDomainObjectContainer;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
 
@@ -18,6 +20,68 @@ public abstract class JextractExtension {
 
     public abstract Property<String> getToolVersion();
 
+    /**
+     * Existing jextract installation to use instead of downloading one. {@link #getToolVersion()} does not apply to
+     * it. Defaults to the {@code JEXTRACT_HOME} environment variable if {@link #getToolHomeFromEnvironment()} is set.
+     *
+     * @return The jextract installation directory
+     */
+    public abstract DirectoryProperty getToolHome();
+
+    /**
+     * Use the installation the {@code JEXTRACT_HOME} environment variable points to as {@link #getToolHome()}.
+     * Opt-in, so a variable set on some machines does not silently replace the pinned tool version.
+     * Default: false
+     *
+     * @return Whether the tool home is taken from the environment
+     */
+    public abstract Property<Boolean> getToolHomeFromEnvironment();
+
+    /**
+     * Resolve the jextract distribution through the {@code jextractTool} configuration instead of the built-in
+     * downloader. The archive then honours {@code --offline}, repository mirrors and Gradle's dependency cache,
+     * and is unpacked by a cacheable artifact transform.
+     * Default: false
+     *
+     * @return Whether the tool is resolved as a dependency
+     */
+    public abstract Property<Boolean> getResolveToolAsDependency();
+
+    /**
+     * Base URL of the ivy repository added for {@link #getResolveToolAsDependency()}.
+     * Point it to a mirror with the download.java.net layout, or clear it to resolve the {@code jextractTool}
+     * configuration from repositories declared by the build.
+     * Default: https://download.java.net/java/early_access/jextract
+     *
+     * @return The repository URL
+     */
+    public abstract Property<String> getToolRepositoryUrl();
+
+    /**
+     * Let the JVM bundled with jextract create a class data sharing archive on first use and map it on every later
+     * launch, which cuts the startup time of each binding task.
+     * Default: true
+     *
+     * @return Whether class data sharing is used
+     */
+    public abstract Property<Boolean> getToolClassDataSharing();
+
+    /**
+     * How binding tasks run jextract. {@link ExecutionMode#WORKER} runs all tasks in one reused worker daemon.
+     * Default: {@link ExecutionMode#EXEC}
+     *
+     * @return The execution mode
+     */
+    public abstract Property<ExecutionMode> getExecutionMode();
+
+    /**
+     * How long a daemon started for {@link ExecutionMode#DAEMON} stays alive without requests.
+     * Default: 3 hours
+     *
+     * @return The idle timeout
+     */
+    public abstract Property<Duration> getDaemonIdleTimeout();
+
     /**
      * Configures native library loading from JAR resources using a closure/action.
      *
@@ -30,7 +30,8 @@ public abstract class NativeLibraryLoadingConfig {
     public abstract Property<String> getResourcePath();
 
     /**
-     * Directory where extracted libraries are stored.
+     * Directory where extracted libraries are stored. The absolute path is compiled into the loader, so bindings
+     * generated in different checkouts differ. Prefer {@link #getExtractionPath()} for cacheable bindings.
      * Default: system temp directory (java.io.tmpdir)
      *
      * @return The extraction directory
@@ -49,6 +50,29 @@ public abstract class NativeLibraryLoadingConfig {
         return this.getExtractionDir().map(directory -> directory.getAsFile().getPath());
     }
 
+    /**
+     * Directory where extracted libraries are stored, relative to {@link #getExtractionBase()}. Resolved by the
+     * loader at runtime, so the bindings do not depend on the machine they were generated on. Must be relative,
+     * absolute paths of any platform are rejected while the build is configured.
+     * Can not be combined with {@link #getExtractionDir()}.
+     * Default: jextract-natives
+     *
+     * @return The relative extraction path
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getExtractionPath();
+
+    /**
+     * Directory {@link #getExtractionPath()} is relative to.
+     * Default: {@link ExtractionBase#TEMP}
+     *
+     * @return The extraction base
+     */
+    @Input
+    @Optional
+    public abstract Property<ExtractionBase> getExtractionBase();
+
     /**
      * Enable caching of extracted libraries across JVM runs.
      * When enabled, libraries are extracted once and reused if the hash matches.
@@ -0,0 +1,50 @@
+package de.timscho.jextract.extension;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Input;
+
+/**
+ * Restricts the generated bindings to a subset of the symbols declared by the headers.
+ * A symbol is generated if it matches every configured criterion; criteria left empty match all symbols.
+ *
+ * <p>jextract reports an error when a generated symbol depends on a type that is filtered out, so keep the structs
+ * and typedefs used by the selected functions.
+ */
+public abstract class SymbolFilterConfig {
+
+    /**
+     * Regular expressions for symbol names to generate, e.g. {@code SSL_CTX_.*}.
+     * Default: all names
+     *
+     * @return The name patterns, matched against the whole name
+     */
+    @Input
+    public abstract ListProperty<String> getIncludeNames();
+
+    /**
+     * Regular expressions for symbol names never to generate, even if included.
+     *
+     * @return The name patterns, matched against the whole name
+     */
+    @Input
+    public abstract ListProperty<String> getExcludeNames();
+
+    /**
+     * Regular expressions for the headers whose symbols are generated, e.g. {@code .+/openssl/ssl\.h}.
+     * Default: all headers
+     *
+     * @return The header patterns, matched against the whole path with {@code /} separators
+     */
+    @Input
+    public abstract ListProperty<String> getHeaders();
+
+    /**
+     * Kinds of symbols to generate.
+     * Default: all kinds
+     *
+     * @return The symbol kinds
+     */
+    @Input
+    public abstract SetProperty<SymbolKind> getKinds();
+}
@@ -0,0 +1,53 @@
+package de.timscho.jextract.extension;
+
+import java.util.Locale;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Kinds of symbols jextract can filter with its {@code --include-<kind>} options.
+ */
+@RequiredArgsConstructor
+@Getter
+public enum SymbolKind {
+    FUNCTION(true),
+    CONSTANT(true),
+    VAR(true),
+    STRUCT(false),
+    UNION(false),
+    TYPEDEF(false);
+
+    /**
+     * Whether the symbols are independent of each other and can be generated in different runs.
+     * Types are referenced by the other symbols and are generated in every run instead.
+     */
+    private final boolean shardable;
+
+    /**
+     * Returns the jextract option including symbols of this kind.
+     *
+     * @return The option, e.g. {@code --include-function}
+     */
+    @Contract(pure = true)
+    public String getIncludeOption() {
+        return "--include-" + this.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolves a kind from its jextract option.
+     *
+     * @param option The option, e.g. {@code --include-struct}
+     * @return The kind or {@code null} if the option is no include option
+     */
+    @Contract(pure = true)
+    public static @Nullable SymbolKind fromIncludeOption(final String option) {
+        for (final SymbolKind kind : SymbolKind.values()) {
+            if (kind.getIncludeOption().equals(option)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package de.timscho.jextract.internal.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format between {@link JextractDaemonClient} and {@link JextractDaemonMain}.
+ *
+ * <p>Every request starts with the token from the state file and a command. {@link #RUN} is followed by the
+ * working directory and the jextract arguments and answered with the exit code and the combined tool output.
+ * Only JDK classes may be used here, the daemon runs without Gradle on its classpath.
+ */
+final class DaemonProtocol {
+    static final String PING = "PING";
+    static final String RUN = "RUN";
+    static final String PONG = "PONG";
+
+    static final String PORT_KEY = "port";
+    static final String TOKEN_KEY = "token";
+    static final String PID_KEY = "pid";
+
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    private DaemonProtocol() {}
+
+    static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > DaemonProtocol.MAX_STRING_BYTES) {
+            throw new IOException("Invalid string length " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(final DataOutputStream out, final List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (final String value : values) {
+            DaemonProtocol.writeString(out, value);
+        }
+    }
+
+    static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > 64 * 1024) {
+            throw new IOException("Invalid argument count " + count);
+        }
+        final List<String> values = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            values.add(DaemonProtocol.readString(in));
+        }
+        return values;
+    }
+}
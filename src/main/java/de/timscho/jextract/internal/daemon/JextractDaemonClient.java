@@ -0,0 +1,241 @@
+package de.timscho.jextract.internal.daemon;
+
+import de.timscho.jextract.internal.download.ToolCacheLock;
+import de.timscho.jextract.internal.execution.JextractToolAction;
+import de.timscho.jextract.internal.util.GeneratedConstant;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import lombok.Builder;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Runs jextract in a background daemon shared by all builds on this machine.
+ *
+ * <p>Daemons are keyed by the runtime and the JVM options they were started with and live in
+ * {@code <daemonsDir>/<key>}, next to their state file and log. A daemon is health-checked before every request
+ * and started, or restarted, under a cache lock so concurrent builds never spawn duplicates.
+ */
+@Builder
+public final class JextractDaemonClient {
+    private static final String STATE_FILE_NAME = "daemon.properties";
+    private static final String LOG_FILE_NAME = "daemon.log";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final long STARTUP_POLL_MILLIS = 100;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int PING_TIMEOUT_MILLIS = 5000;
+
+    private final Path daemonsDir;
+    private final File runtimeJava;
+    private final List<String> jvmArgs;
+    private final Duration idleTimeout;
+    private final Logger logger;
+
+    /**
+     * Runs jextract with the given arguments, starting a daemon if none is running.
+     *
+     * @param workingDir The directory relative include directories are resolved against
+     * @param arguments The jextract arguments, without the launcher itself
+     * @throws GradleException If jextract fails or no daemon can be started
+     */
+    public void run(final File workingDir, final List<String> arguments) {
+        final Path daemonDir = this.daemonsDir.resolve(this.key());
+        try {
+            Files.createDirectories(daemonDir);
+            try {
+                this.send(this.connect(daemonDir), workingDir, arguments);
+            } catch (final IOException exception) {
+                // The daemon died or was stopped by its idle timeout between the health check and the request
+                this.logger.info("Lost connection to jextract daemon in {}, restarting it", daemonDir, exception);
+                this.send(this.connect(daemonDir), workingDir, arguments);
+            }
+        } catch (final IOException exception) {
+            throw new GradleException("Failed to run jextract in daemon " + daemonDir, exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while waiting for jextract daemon " + daemonDir, exception);
+        }
+    }
+
+    private DaemonAddress connect(final Path daemonDir) throws IOException, InterruptedException {
+        final Path stateFile = daemonDir.resolve(JextractDaemonClient.STATE_FILE_NAME);
+        @Nullable DaemonAddress address = JextractDaemonClient.readState(stateFile);
+        if (address != null && JextractDaemonClient.ping(address)) {
+            return address;
+        }
+
+        try (ToolCacheLock _ = ToolCacheLock.acquire(daemonDir.resolve("spawn.lock"), this.logger)) {
+            // Another build may have started a daemon while we were waiting
+            address = JextractDaemonClient.readState(stateFile);
+            if (address != null && JextractDaemonClient.ping(address)) {
+                return address;
+            }
+
+            Files.deleteIfExists(stateFile);
+            final Process process = this.spawn(daemonDir, stateFile);
+            final long deadline = System.nanoTime() + JextractDaemonClient.STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                address = JextractDaemonClient.readState(stateFile);
+                if (address != null && JextractDaemonClient.ping(address)) {
+                    return address;
+                }
+                if (!process.isAlive()) {
+                    throw new IOException("jextract daemon exited with code " + process.exitValue() + ", see "
+                            + daemonDir.resolve(JextractDaemonClient.LOG_FILE_NAME));
+                }
+                Thread.sleep(JextractDaemonClient.STARTUP_POLL_MILLIS);
+            }
+
+            process.destroy();
+            throw new IOException("jextract daemon did not start within " + JextractDaemonClient.STARTUP_TIMEOUT
+                    + ", see " + daemonDir.resolve(JextractDaemonClient.LOG_FILE_NAME));
+        }
+    }
+
+    private Process spawn(final Path daemonDir, final Path stateFile) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(this.runtimeJava.getAbsolutePath());
+        command.add("--add-modules=" + JextractToolAction.MODULE_NAME);
+        command.add("--enable-native-access=" + JextractToolAction.MODULE_NAME);
+        command.addAll(this.jvmArgs);
+        command.add("-cp");
+        command.add(JextractDaemonClient.daemonClasspath().toString());
+        command.add(JextractDaemonMain.class.getName());
+        command.add(stateFile.toString());
+        command.add(Long.toString(this.idleTimeout.toSeconds()));
+
+        this.logger.lifecycle("Starting jextract daemon in {}", daemonDir);
+        final Process process = new ProcessBuilder(command)
+                .directory(daemonDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(
+                        daemonDir.resolve(JextractDaemonClient.LOG_FILE_NAME).toFile()))
+                .start();
+        process.getOutputStream().close();
+        return process;
+    }
+
+    private void send(final DaemonAddress address, final File workingDir, final List<String> arguments)
+            throws IOException {
+        try (Socket socket = JextractDaemonClient.open(address);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            DaemonProtocol.writeString(out, address.token());
+            DaemonProtocol.writeString(out, DaemonProtocol.RUN);
+            DaemonProtocol.writeString(out, workingDir.getAbsolutePath());
+            DaemonProtocol.writeStrings(out, arguments);
+            out.flush();
+
+            final int exitCode = in.readInt();
+            final String output = DaemonProtocol.readString(in);
+            if (exitCode != 0) {
+                throw new GradleException("jextract failed with exit code " + exitCode + ": " + output.strip());
+            }
+            if (!output.isBlank()) {
+                this.logger.lifecycle(output.strip());
+            }
+        }
+    }
+
+    private static boolean ping(final DaemonAddress address) {
+        try (Socket socket = JextractDaemonClient.open(address);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setSoTimeout(JextractDaemonClient.PING_TIMEOUT_MILLIS);
+            DaemonProtocol.writeString(out, address.token());
+            DaemonProtocol.writeString(out, DaemonProtocol.PING);
+            out.flush();
+            return DaemonProtocol.PONG.equals(DaemonProtocol.readString(in));
+        } catch (final IOException exception) {
+            return false;
+        }
+    }
+
+    private static Socket open(final DaemonAddress address) throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), address.port()),
+                    JextractDaemonClient.CONNECT_TIMEOUT_MILLIS);
+            return socket;
+        } catch (final IOException exception) {
+            socket.close();
+            throw exception;
+        }
+    }
+
+    private static @Nullable DaemonAddress readState(final Path stateFile) throws IOException {
+        final Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+        } catch (final NoSuchFileException exception) {
+            return null;
+        }
+
+        final @Nullable String port = state.getProperty(DaemonProtocol.PORT_KEY);
+        final @Nullable String token = state.getProperty(DaemonProtocol.TOKEN_KEY);
+        if (port == null || token == null) {
+            return null;
+        }
+        return new DaemonAddress(Integer.parseInt(port), token);
+    }
+
+    /**
+     * Daemons can only be shared by requests using the same runtime and JVM options, and the same daemon classes.
+     * A plugin update therefore never talks to a daemon speaking the protocol of the previous version.
+     */
+    private String key() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(GeneratedConstant.PLUGIN_VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(JextractDaemonClient.daemonClasspath().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(this.runtimeJava.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            for (final String jvmArg : this.jvmArgs) {
+                digest.update((byte) 0);
+                digest.update(jvmArg.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", exception);
+        }
+    }
+
+    private static Path daemonClasspath() {
+        try {
+            return Path.of(JextractDaemonMain.class
+                    .getProtectionDomain()
+                    .getCodeSource()
+                    .getLocation()
+                    .toURI());
+        } catch (final URISyntaxException exception) {
+            throw new IllegalStateException("Failed to locate the jextract daemon classes", exception);
+        }
+    }
+
+    private record DaemonAddress(int port, String token) {}
+}
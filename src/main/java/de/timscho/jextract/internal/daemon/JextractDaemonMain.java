@@ -0,0 +1,266 @@
+package de.timscho.jextract.internal.daemon;
+
+import de.timscho.jextract.internal.execution.JextractToolAction;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.spi.ToolProvider;
+
+/**
+ * Entry point of the background jextract daemon.
+ *
+ * <p>Started by {@link JextractDaemonClient} on the runtime bundled with a jextract distribution. It listens on a
+ * loopback port published through a state file, runs every request on its own virtual thread and exits after being
+ * idle for the configured timeout. Only JDK classes may be used here, Gradle is not on the daemon classpath;
+ * constants of other plugin classes are inlined by the compiler.
+ */
+public final class JextractDaemonMain {
+    private static final Duration IDLE_CHECK_INTERVAL = Duration.ofSeconds(10);
+
+    private final ServerSocket server;
+    private final Path stateFile;
+    private final String token;
+    private final Duration idleTimeout;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicLong lastActivity = new AtomicLong(System.nanoTime());
+
+    private JextractDaemonMain(
+            final ServerSocket server, final Path stateFile, final String token, final Duration idleTimeout) {
+        this.server = server;
+        this.stateFile = stateFile;
+        this.token = token;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Starts the daemon.
+     *
+     * @param args The state file and the idle timeout in seconds
+     * @throws IOException If the server socket or the state file can not be created
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: JextractDaemonMain <state file> <idle timeout seconds>");
+        }
+
+        JextractDaemonMain.start(Path.of(args[0]), Duration.ofSeconds(Long.parseLong(args[1]))).serve();
+    }
+
+    /**
+     * Opens the server socket and publishes the state file, requests are only accepted once {@link #serve()} runs.
+     */
+    static JextractDaemonMain start(final Path stateFile, final Duration idleTimeout) throws IOException {
+        final byte[] secret = new byte[16];
+        new SecureRandom().nextBytes(secret);
+
+        final ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final JextractDaemonMain daemon =
+                new JextractDaemonMain(server, stateFile, HexFormat.of().formatHex(secret), idleTimeout);
+        daemon.publishState();
+        return daemon;
+    }
+
+    private void publishState() throws IOException {
+        final Properties state = new Properties();
+        state.setProperty(DaemonProtocol.PORT_KEY, Integer.toString(this.server.getLocalPort()));
+        state.setProperty(DaemonProtocol.TOKEN_KEY, this.token);
+        state.setProperty(DaemonProtocol.PID_KEY, Long.toString(ProcessHandle.current().pid()));
+
+        // Clients must never read a half written state file
+        final Path temp = this.stateFile.resolveSibling(
+                this.stateFile.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+        Files.deleteIfExists(temp);
+        JextractDaemonMain.createOwnerOnly(temp);
+        try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.WRITE)) {
+            state.store(out, null);
+        }
+        Files.move(temp, this.stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Anyone who can read the token can run jextract as this user, so the state file is restricted to its owner
+     * before the token is written.
+     */
+    private static void createOwnerOnly(final Path file) throws IOException {
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            return;
+        }
+
+        Files.createFile(file);
+        final AclFileAttributeView acl = Files.getFileAttributeView(file, AclFileAttributeView.class);
+        if (acl == null) {
+            throw new IOException("Can not restrict access to " + file + " to its owner");
+        }
+        acl.setAcl(List.of(AclEntry.newBuilder()
+                .setType(AclEntryType.ALLOW)
+                .setPrincipal(acl.getOwner())
+                .setPermissions(AclEntryPermission.values())
+                .build()));
+    }
+
+    /**
+     * Accepts requests until {@link #stop()} is called, then removes the state file if it is still our own.
+     */
+    void serve() throws IOException {
+        final ScheduledExecutorService idleCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "jextract-daemon-idle-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleCheck.scheduleWithFixedDelay(
+                this::stopIfIdle,
+                JextractDaemonMain.IDLE_CHECK_INTERVAL.toSeconds(),
+                JextractDaemonMain.IDLE_CHECK_INTERVAL.toSeconds(),
+                TimeUnit.SECONDS);
+
+        try {
+            while (!this.server.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = this.server.accept();
+                } catch (final SocketException exception) {
+                    // Closed by stop()
+                    break;
+                }
+                Thread.ofVirtual().name("jextract-daemon-request").start(() -> this.handle(socket));
+            }
+        } finally {
+            idleCheck.shutdownNow();
+            this.deleteOwnState();
+        }
+    }
+
+    private void handle(final Socket socket) {
+        this.activeRequests.incrementAndGet();
+        try (socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            final String requestToken = DaemonProtocol.readString(in);
+            if (!MessageDigest.isEqual(
+                    requestToken.getBytes(StandardCharsets.UTF_8), this.token.getBytes(StandardCharsets.UTF_8))) {
+                return;
+            }
+
+            switch (DaemonProtocol.readString(in)) {
+                case DaemonProtocol.PING -> DaemonProtocol.writeString(out, DaemonProtocol.PONG);
+                case DaemonProtocol.RUN -> {
+                    final String workingDir = DaemonProtocol.readString(in);
+                    final List<String> arguments = DaemonProtocol.readStrings(in);
+                    this.run(workingDir, arguments, out);
+                }
+                default -> {
+                    // Unknown commands of newer clients are ignored, the client falls back to a new daemon
+                }
+            }
+            out.flush();
+        } catch (final IOException exception) {
+            // The client went away, nothing to report to
+        } finally {
+            this.lastActivity.set(System.nanoTime());
+            this.activeRequests.decrementAndGet();
+        }
+    }
+
+    private void run(final String workingDir, final List<String> arguments, final DataOutputStream out)
+            throws IOException {
+        final StringWriter output = new StringWriter();
+        int exitCode;
+        try (PrintWriter writer = new PrintWriter(output, true)) {
+            final ToolProvider jextract = ToolProvider.findFirst(JextractToolAction.TOOL_NAME)
+                    .orElseThrow(() -> new IllegalStateException("No jextract tool provider in "
+                            + System.getProperty("java.home")));
+            exitCode = jextract.run(writer, writer, JextractDaemonMain.absolutize(workingDir, arguments));
+        } catch (final RuntimeException exception) {
+            final StringWriter trace = new StringWriter();
+            exception.printStackTrace(new PrintWriter(trace));
+            output.append(trace.toString());
+            exitCode = -1;
+        }
+
+        out.writeInt(exitCode);
+        DaemonProtocol.writeString(out, output.toString());
+    }
+
+    /**
+     * The daemon's working directory is shared by all requests, so include directories given relative to the
+     * requesting project are resolved against it first.
+     */
+    private static String[] absolutize(final String workingDir, final List<String> arguments) {
+        final String[] result = arguments.toArray(String[]::new);
+        for (int index = 0; index < result.length; index++) {
+            final String argument = result[index];
+            if ((argument.equals("-I") || argument.equals("--include-dir")) && index + 1 < result.length) {
+                result[index + 1] = Path.of(workingDir).resolve(result[index + 1]).toString();
+                index++;
+            } else if (argument.startsWith("-I") && argument.length() > 2) {
+                result[index] = "-I" + Path.of(workingDir).resolve(argument.substring(2));
+            }
+        }
+        return result;
+    }
+
+    private void stopIfIdle() {
+        final long idleNanos = System.nanoTime() - this.lastActivity.get();
+        if (this.activeRequests.get() == 0 && idleNanos > this.idleTimeout.toNanos()) {
+            this.stop();
+        }
+    }
+
+    /**
+     * Stops accepting requests, requests already running still complete.
+     */
+    void stop() {
+        try {
+            this.server.close();
+        } catch (final IOException exception) {
+            // Exiting anyway
+        }
+    }
+
+    private void deleteOwnState() {
+        try {
+            final Properties state = new Properties();
+            try (InputStream in = Files.newInputStream(this.stateFile)) {
+                state.load(in);
+            }
+            // A newer daemon may already have replaced the state file
+            if (this.token.equals(state.getProperty(DaemonProtocol.TOKEN_KEY))) {
+                Files.deleteIfExists(this.stateFile);
+            }
+        } catch (final IOException exception) {
+            // Clients detect stale state files through the health check
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import lombok.Builder;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Downloads a jextract distribution archive and extracts it while the bytes arrive.
+ *
+ * <p>Servers that advertise {@code Accept-Ranges: bytes} are queried with concurrent range requests. The SHA-256
+ * digest of the archive is computed in the same pass and verified against the published {@code .sha256} file
+ * if the server provides one.
+ */
+@Builder
+final class JextractArchiveDownloader {
+    private static final int HTTP_OK = 200;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final Logger logger;
+
+    @Builder.Default
+    private final int rangeParallelism = 4;
+
+    @Builder.Default
+    private final long segmentSize = 8L * 1024 * 1024;
+
+    @Builder.Default
+    private final int writerThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Downloads the archive and extracts it into the target directory.
+     *
+     * @param targetDir The directory to extract into
+     * @return The hex encoded SHA-256 digest of the downloaded archive
+     * @throws IOException If the download, the extraction or the digest verification fails
+     * @throws InterruptedException If the download is interrupted
+     */
+    String downloadAndExtract(final Path targetDir) throws IOException, InterruptedException {
+        final CompletableFuture<@Nullable String> expectedDigest = this.fetchPublishedDigest();
+        final MessageDigest digest = JextractArchiveDownloader.sha256();
+
+        try (InputStream raw = this.openArchive();
+                DigestInputStream digesting = new DigestInputStream(raw, digest)) {
+            new TarGzExtractor(targetDir, this.writerThreads).extract(digesting);
+        }
+
+        final String actual = HexFormat.of().formatHex(digest.digest());
+        final @Nullable String expected = JextractArchiveDownloader.await(expectedDigest);
+        if (expected == null) {
+            this.logger.info("No published SHA-256 digest found for {}, computed {}", this.uri, actual);
+        } else if (!expected.equalsIgnoreCase(actual)) {
+            throw new IOException(
+                    "SHA-256 mismatch for " + this.uri + ": expected " + expected + " but was " + actual);
+        } else {
+            this.logger.debug("Verified SHA-256 digest {} of {}", actual, this.uri);
+        }
+        return actual;
+    }
+
+    private InputStream openArchive() throws IOException, InterruptedException {
+        if (this.rangeParallelism > 1) {
+            final HttpResponse<Void> head = this.httpClient.send(
+                    HttpRequest.newBuilder()
+                            .uri(this.uri)
+                            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            final long contentLength =
+                    head.headers().firstValueAsLong("Content-Length").orElse(-1L);
+            final boolean acceptsRanges = head.headers()
+                    .firstValue("Accept-Ranges")
+                    .map(value -> value.toLowerCase(Locale.ROOT).contains("bytes"))
+                    .orElse(false);
+
+            if (head.statusCode() == JextractArchiveDownloader.HTTP_OK
+                    && acceptsRanges
+                    && contentLength > 2 * this.segmentSize) {
+                this.logger.info(
+                        "Downloading {} bytes with {} concurrent range requests", contentLength, this.rangeParallelism);
+                // Ask the final location directly so redirects are only followed once
+                return new RangedDownloadInputStream(
+                        this.httpClient, head.uri(), contentLength, this.segmentSize, this.rangeParallelism);
+            }
+        }
+
+        final HttpResponse<InputStream> response = this.httpClient.send(
+                HttpRequest.newBuilder().uri(this.uri).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != JextractArchiveDownloader.HTTP_OK) {
+            response.body().close();
+            throw new IOException("Download request failed with status code: " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private CompletableFuture<@Nullable String> fetchPublishedDigest() {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(this.uri + ".sha256"))
+                .GET()
+                .build();
+        return this.httpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .<@Nullable String>thenApply(response -> {
+                    if (response.statusCode() != JextractArchiveDownloader.HTTP_OK) {
+                        return null;
+                    }
+                    // Format is either "<digest>" or "<digest>  <file name>"
+                    final String[] parts = response.body().trim().split("\\s+");
+                    return parts.length == 0 || parts[0].isEmpty() ? null : parts[0];
+                })
+                .exceptionally(_ -> null);
+    }
+
+    private static @Nullable String await(final CompletableFuture<@Nullable String> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException exception) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 not available", exception);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.timscho.jextract.internal.download;
+
+import de.timscho.jextract.internal.model.PlatformType;
+import de.timscho.jextract.internal.model.SupportedPlatform;
+import java.io.File;
+import java.nio.file.Path;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Locates the jextract launcher inside an extracted distribution.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JextractBinaryLocator {
+
+    /**
+     * Returns the launcher name for the current platform.
+     *
+     * @return {@code jextract.bat} on Windows, {@code jextract} everywhere else
+     */
+    @Contract(pure = true)
+    public static String binaryName() {
+        final boolean isWindows = SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS;
+        return isWindows ? "jextract.bat" : "jextract";
+    }
+
+    /**
+     * Finds the jextract launcher in the given distribution directory.
+     * Both {@code <toolDir>/bin/<binary>} and a single nested folder like {@code <toolDir>/jextract-25/bin/<binary>}
+     * are supported.
+     *
+     * @param toolDir The distribution directory
+     * @param logger The Gradle logger to use for logging.
+     * @return The jextract executable file
+     * @throws GradleException If no launcher exists in the directory
+     */
+    public static File locate(final Path toolDir, final Logger logger) {
+        final String binaryName = JextractBinaryLocator.binaryName();
+        final Path relativePathWithBin = Path.of("bin", binaryName);
+
+        // Check direct path: toolDir/bin/<binary>
+        final File bin = toolDir.resolve(relativePathWithBin).toFile();
+        if (bin.exists()) {
+            logger.debug("Found jextract binary at: {}", bin);
+            return bin;
+        }
+
+        // Deep search (handle nested extraction like 'jextract-25/bin/...')
+        final @Nullable File[] subDirs = toolDir.toFile().listFiles(File::isDirectory);
+        if (subDirs != null) {
+            for (final File sub : subDirs) {
+                if (sub == null) {
+                    continue;
+                }
+
+                final File nestedBin = sub.toPath().resolve(relativePathWithBin).toFile();
+                if (nestedBin.exists()) {
+                    logger.debug("Found jextract binary (nested) at: {}", nestedBin);
+                    return nestedBin;
+                }
+            }
+        }
+
+        throw new GradleException("Jextract binary '" + binaryName + "' not found in " + toolDir);
+    }
+
+    /**
+     * Finds the {@code java} launcher of the runtime bundled with a distribution, in {@code <toolDir>/runtime/bin}.
+     *
+     * @param executable The jextract launcher in {@code <toolDir>/bin}
+     * @return The java launcher or {@code null} if the distribution has no bundled runtime
+     */
+    public static @Nullable File locateRuntimeJava(final File executable) {
+        final @Nullable File binDir = executable.getAbsoluteFile().getParentFile();
+        final @Nullable File toolDir = binDir != null ? binDir.getParentFile() : null;
+        if (toolDir == null) {
+            return null;
+        }
+
+        final boolean isWindows = SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS;
+        final File java = toolDir.toPath()
+                .resolve(Path.of("runtime", "bin", isWindows ? "java.exe" : "java"))
+                .toFile();
+        return java.isFile() ? java : null;
+    }
+}
@@ -0,0 +1,43 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import org.gradle.api.artifacts.transform.CacheableTransform;
+import org.gradle.api.artifacts.transform.InputArtifact;
+import org.gradle.api.artifacts.transform.TransformAction;
+import org.gradle.api.artifacts.transform.TransformOutputs;
+import org.gradle.api.artifacts.transform.TransformParameters;
+import org.gradle.api.file.FileSystemLocation;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+/**
+ * Unpacks a resolved jextract distribution archive.
+ * Gradle runs the transform once per archive and machine and shares the result between all projects.
+ */
+@CacheableTransform
+public abstract class JextractDistributionTransform implements TransformAction<TransformParameters.None> {
+    public static final String ARCHIVE_TYPE = "tar.gz";
+    public static final String DISTRIBUTION_TYPE = "jextract-distribution";
+
+    @InputArtifact
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract Provider<FileSystemLocation> getArchive();
+
+    @Override
+    public void transform(final TransformOutputs outputs) {
+        final File archive = this.getArchive().get().getAsFile();
+        final String name = archive.getName().replaceFirst("\\.tar\\.gz$", "");
+        final File targetDir = outputs.dir(name);
+
+        try (InputStream in = Files.newInputStream(archive.toPath())) {
+            new TarGzExtractor(targetDir.toPath(), Runtime.getRuntime().availableProcessors()).extract(in);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to unpack jextract distribution " + archive, exception);
+        }
+    }
+}
@@ -1,145 +1,382 @@
 package de.timscho.jextract.internal.download;
 
-import de.timscho.jextract.internal.model.PlatformType;
 import de.timscho.jextract.internal.model.SupportedPlatform;
 import de.timscho.jextract.internal.util.GeneratedConstant;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.gradle.api.GradleException;
-import org.gradle.api.file.ArchiveOperations;
-import org.gradle.api.file.Directory;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileSystemOperations;
-import org.gradle.api.file.RegularFile;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.BuildService;
 import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
 import org.jspecify.annotations.Nullable;
 
-public abstract class JextractToolService implements BuildService<JextractToolService.Params> {
+public abstract class JextractToolService
+        implements BuildService<JextractToolService.Params>, OperationCompletionListener, AutoCloseable {
     public static final String DEFAULT_VERSION = GeneratedConstant.JEXTRACT_VERSION;
     public static final String FILE_INTEGRITY_NAME = ".gradleJextractDownload";
-    private static final int HTTP_OK = 200;
+    public static final int DEFAULT_MAX_UNUSED_DAYS = 30;
 
     @Inject
     protected abstract FileSystemOperations getFs();
 
-    @Inject
-    protected abstract ArchiveOperations getArchives();
-
     private final HttpClient httpClient =
             HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
 
     /**
-     * Resolves and returns the jextract tool executable.
+     * Versions of the writable cache used by this build, never evicted by the cleanup at the end of the build.
+     */
+    private final Set<String> usedVersions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Executables resolved by this build, keyed by version folder. Published versions never change, so every
+     * task after the first one is served without touching the file system.
+     */
+    private final ConcurrentMap<String, File> executables = new ConcurrentHashMap<>();
+
+    /**
+     * When this build last refreshed the use marker of a version of the writable cache, keyed by version folder.
+     * Serving an executable from {@link #executables} refreshes it again once half the protection window passed.
+     */
+    private final ConcurrentMap<String, Instant> markedUsed = new ConcurrentHashMap<>();
+
+    /**
+     * Background resolution of {@link Params#getPrefetchVersion()}, started by the first task of the build when
+     * prefetching is enabled. Cleared when it failed, so the tasks needing the version resolve it again.
+     */
+    private @Nullable CompletableFuture<File> prefetch;
+
+    private boolean prefetchStarted;
+
+    /**
+     * Resolves and returns the jextract tool executable of a version.
      * Downloads and caches the tool if not already present.
+     * Waits for a running prefetch of the same version and resolves the version again if the prefetch failed.
+     *
+     * <p>The service is shared by all projects of the build, so every caller passes the version it needs instead of
+     * the service reading it from the project that happened to register it.
      *
+     * @param version The jextract version
      * @param logger The Gradle logger to use for logging.
      * @return The jextract executable file
      */
-    public File getExecutable(final org.gradle.api.logging.Logger logger) {
-        final String version = this.getParameters().getVersion().getOrElse(JextractToolService.DEFAULT_VERSION);
+    public File getExecutable(final String version, final org.gradle.api.logging.Logger logger) {
+        final @Nullable CompletableFuture<File> running = this.startPrefetch();
+        if (running != null && version.equals(this.getPrefetchVersion())) {
+            try {
+                return running.join();
+            } catch (final CompletionException exception) {
+                this.clearPrefetch(running);
+                logger.info("Prefetching jextract {} failed, resolving it again", version, exception.getCause());
+            }
+        }
+
+        return this.resolveExecutable(version, logger);
+    }
+
+    /**
+     * Starts resolving {@link Params#getPrefetchVersion()} on a background thread, at most once per build.
+     *
+     * @return The running prefetch, or {@code null} if prefetching is disabled
+     */
+    private synchronized @Nullable CompletableFuture<File> startPrefetch() {
+        if (!this.prefetchStarted && this.getParameters().getPrefetch().getOrElse(false)) {
+            this.prefetchStarted = true;
+            final org.gradle.api.logging.Logger logger = Logging.getLogger(JextractToolService.class);
+            final String version = this.getPrefetchVersion();
+            this.prefetch = CompletableFuture.supplyAsync(
+                    () -> this.resolveExecutable(version, logger),
+                    runnable -> Thread.ofVirtual().name("jextract-prefetch").start(runnable));
+        }
+        return this.prefetch;
+    }
+
+    private synchronized void clearPrefetch(final CompletableFuture<File> failed) {
+        if (this.prefetch == failed) {
+            this.prefetch = null;
+        }
+    }
+
+    private String getPrefetchVersion() {
+        return this.getParameters().getPrefetchVersion().getOrElse(JextractToolService.DEFAULT_VERSION);
+    }
+
+    private File resolveExecutable(final String version, final org.gradle.api.logging.Logger logger) {
         final String folderName = version.replaceAll("[^a-zA-Z0-9.-]", "_");
-        final Path toolDir = this.resolveToolDir(folderName, logger);
-
-        // Determine the correct binary name for the OS
-        final boolean isWindows = SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS;
-        final String binaryName = isWindows ? "jextract.bat" : "jextract";
-        final Path relativePathWithBin = Path.of("bin", binaryName);
-
-        // Check direct path: toolDir/bin/<binary>
-        final File bin = toolDir.resolve(relativePathWithBin).toFile();
-        if (bin.exists()) {
-            logger.debug("Found jextract binary at: {}", bin);
-            return bin;
-        }
-
-        // Deep search (handle nested extraction like 'jextract-25/bin/...')
-        final @Nullable File[] subDirs = toolDir.toFile().listFiles(File::isDirectory);
-        if (subDirs != null) {
-            for (final File sub : subDirs) {
-                if (sub == null) {
-                    continue;
-                }
 
-                final File nestedBin = sub.toPath().resolve(relativePathWithBin).toFile();
-                if (nestedBin.exists()) {
-                    logger.debug("Found jextract binary (nested) at: {}", nestedBin);
-                    return nestedBin;
-                }
-            }
+        final @Nullable File cached = this.executables.get(folderName);
+        if (cached != null) {
+            this.refreshUseMarker(folderName, logger);
+            return cached;
         }
 
-        throw new GradleException("Jextract binary '" + binaryName + "' not found in " + toolDir);
+        final Path toolDir = this.resolveToolDir(version, folderName, logger);
+        final File executable = JextractToolService.locateExecutable(toolDir, logger);
+        final @Nullable File previous = this.executables.putIfAbsent(folderName, executable);
+        return previous != null ? previous : executable;
     }
 
-    private Path resolveToolDir(final String folderName, final org.gradle.api.logging.Logger logger) {
-        synchronized (this) {
-            final Directory cacheBase = this.getParameters().getCacheDir().get();
-            final Directory versionDir = cacheBase.dir(folderName);
-            final RegularFile marker = versionDir.file(JextractToolService.FILE_INTEGRITY_NAME);
+    /**
+     * Keeps long builds from losing a version to the cleanup of a concurrent build, which only spares versions used
+     * within the last {@link ToolCacheCleanup#USE_MARKER_RESOLUTION}.
+     */
+    private void refreshUseMarker(final String folderName, final org.gradle.api.logging.Logger logger) {
+        final @Nullable Instant marked = this.markedUsed.get(folderName);
+        final Instant now = Instant.now();
+        if (marked != null
+                && marked.isBefore(now.minus(ToolCacheCleanup.USE_MARKER_RESOLUTION.dividedBy(2)))
+                && this.markedUsed.replace(folderName, marked, now)) {
+            final Path cacheBase = this.getParameters().getCacheDir().get().getAsFile().toPath();
+            JextractToolService.markUsed(cacheBase.resolve(folderName), logger);
+        }
+    }
 
-            if (versionDir.getAsFile().exists() && marker.getAsFile().exists()) {
-                logger.debug("Using cached jextract from: {}", versionDir);
-                return versionDir.getAsFile().toPath();
+    /**
+     * Reads the launcher from the manifest of the version directory. Directories without a manifest, e.g. from
+     * older plugin versions or prepared by hand in a read-only layer, are searched instead.
+     */
+    private static File locateExecutable(final Path toolDir, final org.gradle.api.logging.Logger logger) {
+        try {
+            final @Nullable ToolManifest manifest = ToolManifest.read(toolDir);
+            if (manifest != null
+                    && manifest.getPlatform()
+                            .equals(SupportedPlatform.getCurrentSupported().getId())) {
+                final File executable = manifest.resolveExecutable(toolDir).toFile();
+                logger.debug("Found jextract binary from manifest at: {}", executable);
+                return executable;
             }
+        } catch (final IOException exception) {
+            logger.debug("Failed to read jextract manifest in {}", toolDir, exception);
+        }
+
+        return JextractBinaryLocator.locate(toolDir, logger);
+    }
 
-            final SupportedPlatform platform = SupportedPlatform.getCurrentSupported();
-            final String version = this.getParameters().getVersion().getOrElse(JextractToolService.DEFAULT_VERSION);
-            final String url = JextractUrlGenerator.generateUrl(version, platform);
+    private Path resolveToolDir(
+            final String version, final String folderName, final org.gradle.api.logging.Logger logger) {
+        final @Nullable Path sharedDir = this.findReadOnlyToolDir(folderName);
+        if (sharedDir != null) {
+            logger.debug("Using jextract from read-only cache: {}", sharedDir);
+            return sharedDir;
+        }
+
+        final Path cacheBase = this.getParameters().getCacheDir().get().getAsFile().toPath();
+        final Path versionDir = cacheBase.resolve(folderName);
+        this.usedVersions.add(folderName);
+
+        // Fast path: published directories are never modified again
+        if (Files.exists(versionDir.resolve(JextractToolService.FILE_INTEGRITY_NAME))) {
+            logger.debug("Using cached jextract from: {}", versionDir);
+            this.markUsed(folderName, versionDir, logger);
+            return versionDir;
+        }
+
+        final SupportedPlatform platform = SupportedPlatform.getCurrentSupported();
+        final String url = JextractUrlGenerator.generateUrl(version, platform);
+
+        try (ToolCacheLock _ = ToolCacheLock.acquire(cacheBase.resolve(folderName + ".lock"), logger)) {
+            // Another thread or process may have published the version while we were waiting
+            if (Files.exists(versionDir.resolve(JextractToolService.FILE_INTEGRITY_NAME))) {
+                logger.debug("Using jextract published by another build: {}", versionDir);
+                this.markUsed(folderName, versionDir, logger);
+                return versionDir;
+            }
 
             logger.lifecycle("Downloading jextract ({}) from: {}", folderName, url);
+            this.deleteLeftovers(cacheBase, folderName);
 
+            final Path stagingDir = cacheBase.resolve(folderName + ".tmp-" + UUID.randomUUID());
             try {
-                // Clean partial downloads
-                if (versionDir.getAsFile().exists()) {
-                    this.getFs().delete(s -> s.delete(versionDir));
-                }
-                Files.createDirectories(versionDir.getAsFile().toPath());
+                final String digest = JextractArchiveDownloader.builder()
+                        .httpClient(this.httpClient)
+                        .uri(URI.create(url))
+                        .logger(logger)
+                        .build()
+                        .downloadAndExtract(stagingDir);
+                logger.info("Extracted jextract ({}) with SHA-256 {}", folderName, digest);
 
-                this.downloadAndExtract(url, versionDir.getAsFile());
+                final Path launcher = JextractBinaryLocator.locate(stagingDir, logger).toPath();
+                ToolManifest.builder()
+                        .executable(stagingDir.relativize(launcher).toString().replace(File.separatorChar, '/'))
+                        .platform(platform.getId())
+                        .sha256(digest)
+                        .version(version)
+                        .build()
+                        .write(stagingDir);
 
-                // Mark success
-                marker.getAsFile().createNewFile();
-            } catch (final Exception exception) {
-                throw new GradleException("Failed to download jextract from " + url, exception);
+                // Mark success before publishing, so the directory is complete once it becomes visible
+                Files.createFile(stagingDir.resolve(JextractToolService.FILE_INTEGRITY_NAME));
+                Files.createFile(stagingDir.resolve(ToolCacheCleanup.LAST_USED_NAME));
+                Files.move(stagingDir, versionDir, StandardCopyOption.ATOMIC_MOVE);
+                this.markedUsed.put(folderName, Instant.now());
+            } finally {
+                if (Files.exists(stagingDir)) {
+                    this.getFs().delete(spec -> spec.delete(stagingDir));
+                }
             }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while downloading jextract from " + url, exception);
+        } catch (final Exception exception) {
+            throw new GradleException("Failed to download jextract from " + url, exception);
+        }
+
+        return versionDir;
+    }
+
+    /**
+     * Starts the prefetch once the first task of the build finished, so the download overlaps with the tasks
+     * running before the first binding task.
+     */
+    @Override
+    public void onFinish(final FinishEvent event) {
+        this.startPrefetch();
+    }
+
+    /**
+     * Evicts versions of the writable cache that were not used recently, at most once per day.
+     * Failures are logged and never fail the build.
+     */
+    @Override
+    public void close() {
+        final @Nullable CompletableFuture<File> running;
+        synchronized (this) {
+            running = this.prefetch;
+        }
+        if (running != null) {
+            // Never interrupt an extraction; a failed prefetch was already reported to the tasks needing it
+            running.exceptionally(_ -> null).join();
+        }
 
-            return versionDir.getAsFile().toPath();
+        final Path cacheBase = this.getParameters().getCacheDir().get().getAsFile().toPath();
+        final long maxSizeMegabytes = this.getParameters().getMaxCacheSizeMegabytes().getOrElse(0L);
+        final org.gradle.api.logging.Logger logger = Logging.getLogger(JextractToolService.class);
+
+        try {
+            ToolCacheCleanup.builder()
+                    .cacheBase(cacheBase)
+                    .maxUnusedAge(Duration.ofDays(this.getParameters()
+                            .getMaxUnusedDays()
+                            .getOrElse(JextractToolService.DEFAULT_MAX_UNUSED_DAYS)))
+                    .maxSizeBytes(maxSizeMegabytes * 1024 * 1024)
+                    .protectedVersions(Set.copyOf(this.usedVersions))
+                    .logger(logger)
+                    .build()
+                    .cleanupIfDue();
+        } catch (final IOException exception) {
+            logger.warn("Failed to clean up the jextract tool cache {}", cacheBase, exception);
         }
     }
 
-    private void downloadAndExtract(final String url, final File targetDir) throws IOException, InterruptedException {
-        final File tempArchive = File.createTempFile("jextract", ".tar.gz");
+    private void markUsed(final String folderName, final Path versionDir, final org.gradle.api.logging.Logger logger) {
+        this.markedUsed.put(folderName, Instant.now());
+        JextractToolService.markUsed(versionDir, logger);
+    }
+
+    private static void markUsed(final Path versionDir, final org.gradle.api.logging.Logger logger) {
         try {
-            final HttpRequest request =
-                    HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-            final HttpResponse<Path> response =
-                    this.httpClient.send(request, HttpResponse.BodyHandlers.ofFile(tempArchive.toPath()));
+            ToolCacheCleanup.markUsed(versionDir);
+        } catch (final IOException exception) {
+            logger.debug("Failed to record use of {}", versionDir, exception);
+        }
+    }
 
-            if (response.statusCode() != JextractToolService.HTTP_OK) {
-                throw new IOException("Download request failed with status code: " + response.statusCode());
+    /**
+     * Looks up a complete version in the read-only cache layers, in their configured order.
+     * Read-only layers share the layout of the writable cache and are never modified.
+     */
+    private @Nullable Path findReadOnlyToolDir(final String folderName) {
+        for (final File root : this.getParameters().getReadOnlyCacheDirs()) {
+            final Path candidate = root.toPath().resolve(folderName);
+            if (Files.exists(candidate.resolve(JextractToolService.FILE_INTEGRITY_NAME))) {
+                return candidate;
             }
+        }
+        return null;
+    }
 
-            this.getFs().sync(spec -> {
-                spec.from(this.getArchives().tarTree(this.getArchives().gzip(tempArchive)));
-                spec.into(targetDir);
-            });
-        } finally {
-            tempArchive.delete();
+    /**
+     * Removes partially extracted directories of crashed builds. Must be called while holding the version lock.
+     */
+    private void deleteLeftovers(final Path cacheBase, final String folderName) throws IOException {
+        final Path versionDir = cacheBase.resolve(folderName);
+        if (Files.exists(versionDir)) {
+            this.getFs().delete(spec -> spec.delete(versionDir));
+        }
+
+        try (Stream<Path> entries = Files.list(cacheBase)) {
+            final List<Path> staleStagingDirs = entries.filter(entry ->
+                            entry.getFileName().toString().startsWith(folderName + ".tmp-"))
+                    .toList();
+            if (!staleStagingDirs.isEmpty()) {
+                this.getFs().delete(spec -> spec.delete(staleStagingDirs));
+            }
         }
     }
 
     public interface Params extends BuildServiceParameters {
-        Property<String> getVersion();
+        /**
+         * Version resolved in the background when {@link #getPrefetch()} is enabled. Tasks needing other versions
+         * resolve them on demand.
+         * Default: {@link JextractToolService#DEFAULT_VERSION}
+         *
+         * @return The prefetched version
+         */
+        Property<String> getPrefetchVersion();
 
         DirectoryProperty getCacheDir();
+
+        /**
+         * Read-only cache roots checked before the writable cache, e.g. baked into a CI container image.
+         *
+         * @return The read-only cache roots
+         */
+        ConfigurableFileCollection getReadOnlyCacheDirs();
+
+        /**
+         * Versions of the writable cache not used for this many days are evicted.
+         * Default: 30
+         *
+         * @return The maximum number of days a version may stay unused
+         */
+        Property<Integer> getMaxUnusedDays();
+
+        /**
+         * Size budget of the writable cache. Least recently used versions are evicted until the cache fits.
+         * Unlimited if not set.
+         *
+         * @return The maximum cache size in megabytes
+         */
+        Property<Long> getMaxCacheSizeMegabytes();
+
+        /**
+         * Start resolving {@link #getPrefetchVersion()} on a background thread as soon as the first task of the build
+         * finished, instead of when the first binding task needs it.
+         * Default: false
+         *
+         * @return Whether the tool is prefetched
+         */
+        Property<Boolean> getPrefetch();
     }
 }
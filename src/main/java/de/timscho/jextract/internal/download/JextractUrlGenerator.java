@@ -8,22 +8,59 @@ import lombok.NoArgsConstructor;
 import org.jetbrains.annotations.Contract;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
-final class JextractUrlGenerator {
+public final class JextractUrlGenerator {
+    public static final String DEFAULT_REPOSITORY_URL = "https://download.java.net/java/early_access/jextract";
+
+    /**
+     * Ivy artifact pattern matching the download.java.net layout.
+     * The organisation encodes {@code <major>.<build>} and is expanded to {@code <major>/<build>} by the
+     * m2compatible layout.
+     */
+    public static final String IVY_ARTIFACT_PATTERN = "[organisation]/[module]-[revision]_[classifier]_bin.[ext]";
+
+    /**
+     * Matches the organisation of dependency notations produced by {@link #generateDependencyNotation}.
+     */
+    public static final String IVY_GROUP_REGEX = "\\d+\\.\\d+";
+
     private static final Pattern VERSION_PATTERN = Pattern.compile("^(\\d+)-jextract\\+(\\d+)(?:-.*)?$");
-    private static final String URL_TEMPLATE =
-            "https://download.java.net/java/early_access/jextract/%s/%s/openjdk-%s_%s_bin.tar.gz";
+    private static final String URL_TEMPLATE = "%s/%s/%s/openjdk-%s_%s_bin.tar.gz";
+    private static final String NOTATION_TEMPLATE = "%s.%s:openjdk:%s:%s@tar.gz";
 
     @Contract(pure = true)
     static String generateUrl(final String version, final SupportedPlatform platform) {
+        final Matcher matcher = JextractUrlGenerator.matchVersion(version);
+        return String.format(
+                JextractUrlGenerator.URL_TEMPLATE,
+                JextractUrlGenerator.DEFAULT_REPOSITORY_URL,
+                matcher.group(1),
+                matcher.group(2),
+                version,
+                platform.getId());
+    }
+
+    /**
+     * Generates the dependency notation of a jextract distribution archive.
+     * Resolved against an ivy repository using {@link #IVY_ARTIFACT_PATTERN}, it points to the same archive as
+     * {@link #generateUrl}.
+     *
+     * @param version The jextract version, e.g. {@code 25-jextract+2-4}
+     * @param platform The platform of the distribution
+     * @return The dependency notation, e.g. {@code 25.2:openjdk:25-jextract+2-4:linux-x64@tar.gz}
+     */
+    @Contract(pure = true)
+    public static String generateDependencyNotation(final String version, final SupportedPlatform platform) {
+        final Matcher matcher = JextractUrlGenerator.matchVersion(version);
+        return String.format(
+                JextractUrlGenerator.NOTATION_TEMPLATE, matcher.group(1), matcher.group(2), version, platform.getId());
+    }
+
+    private static Matcher matchVersion(final String version) {
         final Matcher matcher = JextractUrlGenerator.VERSION_PATTERN.matcher(version);
         if (!matcher.matches()) {
             throw new IllegalArgumentException("Version string '" + version + "' does not match expected pattern: "
                     + JextractUrlGenerator.VERSION_PATTERN.pattern());
         }
-
-        final String major = matcher.group(1);
-        final String build = matcher.group(2);
-
-        return String.format(JextractUrlGenerator.URL_TEMPLATE, major, build, version, platform.getId());
+        return matcher;
     }
 }
@@ -0,0 +1,134 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Input stream that fetches a remote resource as concurrent HTTP range requests and exposes the segments in order.
+ *
+ * <p>At most {@code parallelism} segments are in flight or buffered at any time, so the consumer can decompress the
+ * first segments while the following ones are still downloading. The segment being consumed is not counted, its
+ * slot is refilled as soon as it is taken.
+ */
+final class RangedDownloadInputStream extends InputStream {
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final long contentLength;
+    private final long segmentSize;
+    private final int parallelism;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private long nextOffset;
+    private byte[] current = new byte[0];
+    private int position;
+
+    RangedDownloadInputStream(
+            final HttpClient httpClient,
+            final URI uri,
+            final long contentLength,
+            final long segmentSize,
+            final int parallelism) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.contentLength = contentLength;
+        this.segmentSize = segmentSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.schedule();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.ensureAvailable()) {
+            return -1;
+        }
+        return this.current[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.ensureAvailable()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, this.current.length - this.position);
+        System.arraycopy(this.current, this.position, buffer, offset, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        this.pending.forEach(future -> future.cancel(true));
+        this.pending.clear();
+        this.executor.shutdownNow();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while (this.position >= this.current.length) {
+            final Future<byte[]> next = this.pending.poll();
+            if (next == null) {
+                return false;
+            }
+
+            try {
+                this.current = next.get();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading " + this.uri, exception);
+            } catch (final ExecutionException exception) {
+                if (exception.getCause() instanceof final IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("Failed to download " + this.uri, exception.getCause());
+            }
+            this.position = 0;
+            this.schedule();
+        }
+        return true;
+    }
+
+    private void schedule() {
+        while (this.pending.size() < this.parallelism && this.nextOffset < this.contentLength) {
+            final long start = this.nextOffset;
+            final long end = Math.min(start + this.segmentSize, this.contentLength) - 1;
+            this.pending.add(this.executor.submit(() -> this.fetch(start, end)));
+            this.nextOffset = end + 1;
+        }
+    }
+
+    private byte[] fetch(final long start, final long end) throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(this.uri)
+                .header("Range", "bytes=" + start + "-" + end)
+                .GET()
+                .build();
+        final HttpResponse<byte[]> response =
+                this.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        if (response.statusCode() != RangedDownloadInputStream.HTTP_PARTIAL_CONTENT) {
+            throw new IOException("Range request " + start + "-" + end + " failed with status code: "
+                    + response.statusCode());
+        }
+        if (response.body().length != end - start + 1) {
+            throw new IOException("Range request " + start + "-" + end + " returned " + response.body().length
+                    + " bytes");
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,396 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Streaming extractor for {@code .tar.gz} archives.
+ *
+ * <p>The archive is decompressed and untarred in a single pass while the bytes are read. Small entries are
+ * buffered and written on a pool of writer threads, large entries are streamed directly to disk by the reading
+ * thread so the memory footprint stays bounded. Entries never leave the target directory: symbolic links are
+ * created after all other entries, and only if they resolve to a path inside of it.
+ */
+@RequiredArgsConstructor
+final class TarGzExtractor {
+    private static final int BLOCK_SIZE = 512;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFERED_ENTRY_LIMIT = 4 * 1024 * 1024;
+    private static final int BUFFERED_BYTES_BUDGET = 64 * 1024 * 1024;
+
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_FILE_LEGACY = 0;
+    private static final byte TYPE_CONTIGUOUS_FILE = '7';
+    private static final byte TYPE_HARD_LINK = '1';
+    private static final byte TYPE_SYMBOLIC_LINK = '2';
+    private static final byte TYPE_DIRECTORY = '5';
+    private static final byte TYPE_PAX_HEADER = 'x';
+    private static final byte TYPE_PAX_GLOBAL_HEADER = 'g';
+    private static final byte TYPE_GNU_LONG_NAME = 'L';
+    private static final byte TYPE_GNU_LONG_LINK = 'K';
+
+    private final Path targetDir;
+    private final int writerThreads;
+
+    /**
+     * Extracts the given gzip compressed tar stream into the target directory.
+     * The stream is read until its end, even if the tar end marker appears earlier.
+     *
+     * @param compressed The compressed archive stream
+     * @throws IOException If the archive is malformed or an entry can not be written
+     */
+    void extract(final InputStream compressed) throws IOException {
+        final Path root = this.targetDir.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        final ExecutorService writers = Executors.newFixedThreadPool(Math.max(1, this.writerThreads));
+        final Semaphore bufferBudget = new Semaphore(TarGzExtractor.BUFFERED_BYTES_BUDGET);
+        final List<Future<?>> pendingWrites = new ArrayList<>();
+        final Map<Path, Path> hardLinks = new HashMap<>();
+        final Map<Path, Path> symbolicLinks = new LinkedHashMap<>();
+
+        try {
+            final InputStream tar = new GZIPInputStream(compressed, TarGzExtractor.GZIP_BUFFER_SIZE);
+            final byte[] header = new byte[TarGzExtractor.BLOCK_SIZE];
+            @Nullable String longName = null;
+            @Nullable String longLink = null;
+
+            while (TarGzExtractor.readBlock(tar, header)) {
+                if (TarGzExtractor.isZeroBlock(header)) {
+                    break;
+                }
+
+                final byte type = header[156];
+                final long size = TarGzExtractor.parseSize(header);
+
+                if (type == TarGzExtractor.TYPE_GNU_LONG_NAME || type == TarGzExtractor.TYPE_GNU_LONG_LINK) {
+                    final String value = TarGzExtractor.trimNul(TarGzExtractor.readData(tar, size));
+                    if (type == TarGzExtractor.TYPE_GNU_LONG_NAME) {
+                        longName = value;
+                    } else {
+                        longLink = value;
+                    }
+                    continue;
+                }
+                if (type == TarGzExtractor.TYPE_PAX_HEADER) {
+                    final Map<String, String> pax = TarGzExtractor.parsePax(TarGzExtractor.readData(tar, size));
+                    longName = pax.getOrDefault("path", longName);
+                    longLink = pax.getOrDefault("linkpath", longLink);
+                    continue;
+                }
+                if (type == TarGzExtractor.TYPE_PAX_GLOBAL_HEADER) {
+                    TarGzExtractor.skipData(tar, size);
+                    continue;
+                }
+
+                final String name = longName != null ? longName : TarGzExtractor.entryName(header);
+                final String link = longLink != null ? longLink : TarGzExtractor.readString(header, 157, 100);
+                longName = null;
+                longLink = null;
+
+                final Path target = TarGzExtractor.resolveSafely(root, name);
+                final int mode = (int) TarGzExtractor.parseOctal(header, 100, 8);
+
+                switch (type) {
+                    case TarGzExtractor.TYPE_DIRECTORY -> {
+                        Files.createDirectories(target);
+                        TarGzExtractor.skipData(tar, size);
+                    }
+                    case TarGzExtractor.TYPE_SYMBOLIC_LINK -> {
+                        symbolicLinks.put(target, TarGzExtractor.linkTargetSafely(root, target, link));
+                        TarGzExtractor.skipData(tar, size);
+                    }
+                    case TarGzExtractor.TYPE_HARD_LINK -> {
+                        hardLinks.put(target, TarGzExtractor.resolveSafely(root, link));
+                        TarGzExtractor.skipData(tar, size);
+                    }
+                    case TarGzExtractor.TYPE_FILE,
+                            TarGzExtractor.TYPE_FILE_LEGACY,
+                            TarGzExtractor.TYPE_CONTIGUOUS_FILE -> {
+                        if (size <= TarGzExtractor.BUFFERED_ENTRY_LIMIT) {
+                            final byte[] content = TarGzExtractor.readData(tar, size);
+                            bufferBudget.acquire(content.length);
+                            pendingWrites.add(writers.submit(() -> {
+                                try {
+                                    TarGzExtractor.writeFile(target, content, mode);
+                                } finally {
+                                    bufferBudget.release(content.length);
+                                }
+                                return null;
+                            }));
+                        } else {
+                            TarGzExtractor.streamFile(tar, target, size, mode);
+                        }
+                    }
+                    default -> TarGzExtractor.skipData(tar, size);
+                }
+            }
+
+            // Read through the gzip trailer, so its checksum and size are verified
+            tar.transferTo(OutputStream.nullOutputStream());
+            // Drain the remaining bytes so digests computed over the raw stream cover the whole archive
+            compressed.transferTo(OutputStream.nullOutputStream());
+
+            TarGzExtractor.awaitAll(pendingWrites);
+            for (final Map.Entry<Path, Path> hardLink : hardLinks.entrySet()) {
+                Files.createDirectories(hardLink.getKey().getParent());
+                Files.copy(hardLink.getValue(), hardLink.getKey(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Created last, so no entry is ever written through a link
+            TarGzExtractor.createSymbolicLinks(root, symbolicLinks);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting archive", exception);
+        } finally {
+            // Writes still queued after a failure never start, running ones finish before the caller cleans up
+            pendingWrites.forEach(write -> write.cancel(true));
+            writers.close();
+        }
+    }
+
+    private static void awaitAll(final List<Future<?>> futures) throws IOException, InterruptedException {
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final ExecutionException exception) {
+                if (exception.getCause() instanceof final IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("Failed to write archive entry", exception.getCause());
+            }
+        }
+    }
+
+    private static void writeFile(final Path target, final byte[] content, final int mode) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.write(target, content);
+        TarGzExtractor.applyMode(target, mode);
+    }
+
+    private static void streamFile(final InputStream tar, final Path target, final long size, final int mode)
+            throws IOException {
+        Files.createDirectories(target.getParent());
+        try (OutputStream out = Files.newOutputStream(target)) {
+            final byte[] buffer = new byte[TarGzExtractor.GZIP_BUFFER_SIZE];
+            long remaining = size;
+            while (remaining > 0) {
+                final int read = tar.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of archive while reading " + target);
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        TarGzExtractor.skipPadding(tar, size);
+        TarGzExtractor.applyMode(target, mode);
+    }
+
+    private static void applyMode(final Path target, final int mode) throws IOException {
+        if (Files.getFileAttributeView(target, PosixFileAttributeView.class) == null) {
+            return;
+        }
+
+        final Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        final PosixFilePermission[] order = {
+            PosixFilePermission.OTHERS_EXECUTE,
+            PosixFilePermission.OTHERS_WRITE,
+            PosixFilePermission.OTHERS_READ,
+            PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.GROUP_WRITE,
+            PosixFilePermission.GROUP_READ,
+            PosixFilePermission.OWNER_EXECUTE,
+            PosixFilePermission.OWNER_WRITE,
+            PosixFilePermission.OWNER_READ
+        };
+        for (int bit = 0; bit < order.length; bit++) {
+            if ((mode & (1 << bit)) != 0) {
+                permissions.add(order[bit]);
+            }
+        }
+        // Never lock ourselves out of the extracted files
+        permissions.add(PosixFilePermission.OWNER_READ);
+        permissions.add(PosixFilePermission.OWNER_WRITE);
+        Files.setPosixFilePermissions(target, permissions);
+    }
+
+    private static void createSymbolicLinks(final Path root, final Map<Path, Path> symbolicLinks) throws IOException {
+        for (final Map.Entry<Path, Path> symbolicLink : symbolicLinks.entrySet()) {
+            Files.createDirectories(symbolicLink.getKey().getParent());
+            Files.deleteIfExists(symbolicLink.getKey());
+            Files.createSymbolicLink(symbolicLink.getKey(), symbolicLink.getValue());
+        }
+
+        // Every target was checked lexically, but a chain of links can still resolve to a parent of the root
+        final Path realRoot = root.toRealPath();
+        for (final Path symbolicLink : symbolicLinks.keySet()) {
+            if (Files.exists(symbolicLink) && !symbolicLink.toRealPath().startsWith(realRoot)) {
+                throw new IOException("Symbolic link points outside of the target directory: " + symbolicLink);
+            }
+        }
+    }
+
+    @Contract(pure = true)
+    private static Path linkTargetSafely(final Path root, final Path linkPath, final String link) throws IOException {
+        final Path target = Path.of(link);
+        if (!linkPath.getParent().resolve(target).normalize().startsWith(root)) {
+            throw new IOException("Symbolic link points outside of the target directory: " + linkPath + " -> " + link);
+        }
+        return target;
+    }
+
+    @Contract(pure = true)
+    static Path resolveSafely(final Path root, final String name) throws IOException {
+        final Path resolved = root.resolve(name).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IOException("Archive entry is outside of the target directory: " + name);
+        }
+        return resolved;
+    }
+
+    private static boolean readBlock(final InputStream in, final byte[] block) throws IOException {
+        final int read = in.readNBytes(block, 0, block.length);
+        if (read == 0) {
+            return false;
+        }
+        if (read < block.length) {
+            throw new EOFException("Truncated tar header");
+        }
+        return true;
+    }
+
+    private static byte[] readData(final InputStream in, final long size) throws IOException {
+        final byte[] data = in.readNBytes((int) size);
+        if (data.length != size) {
+            throw new EOFException("Unexpected end of archive");
+        }
+        TarGzExtractor.skipPadding(in, size);
+        return data;
+    }
+
+    private static void skipData(final InputStream in, final long size) throws IOException {
+        in.skipNBytes(size);
+        TarGzExtractor.skipPadding(in, size);
+    }
+
+    private static void skipPadding(final InputStream in, final long size) throws IOException {
+        final long remainder = size % TarGzExtractor.BLOCK_SIZE;
+        if (remainder != 0) {
+            in.skipNBytes(TarGzExtractor.BLOCK_SIZE - remainder);
+        }
+    }
+
+    @Contract(pure = true)
+    private static boolean isZeroBlock(final byte[] block) {
+        for (final byte value : block) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Contract(pure = true)
+    private static String entryName(final byte[] header) {
+        final String name = TarGzExtractor.readString(header, 0, 100);
+        final boolean isUstar = "ustar".equals(TarGzExtractor.readString(header, 257, 5));
+        final String prefix = isUstar ? TarGzExtractor.readString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    @Contract(pure = true)
+    private static long parseSize(final byte[] header) {
+        // GNU base-256 encoding for entries larger than 8 GiB
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xFF);
+            }
+            return size;
+        }
+        return TarGzExtractor.parseOctal(header, 124, 12);
+    }
+
+    @Contract(pure = true)
+    private static long parseOctal(final byte[] header, final int offset, final int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final byte current = header[i];
+            if (current == 0) {
+                break;
+            }
+            if (current >= '0' && current <= '7') {
+                value = (value << 3) + (current - '0');
+            }
+        }
+        return value;
+    }
+
+    @Contract(pure = true)
+    private static String readString(final byte[] header, final int offset, final int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    @Contract(pure = true)
+    private static String trimNul(final byte[] data) {
+        return TarGzExtractor.readString(data, 0, data.length);
+    }
+
+    @Contract(pure = true)
+    private static Map<String, String> parsePax(final byte[] data) {
+        // Record lengths are byte counts: "<length> <key>=<value>\n"
+        final Map<String, String> values = new HashMap<>();
+        int position = 0;
+        while (position < data.length) {
+            int space = position;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            if (space >= data.length) {
+                break;
+            }
+
+            final int length =
+                    Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            if (length <= 0 || position + length > data.length) {
+                break;
+            }
+
+            final String record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            final int separator = record.indexOf('=');
+            if (separator > 0) {
+                values.put(record.substring(0, separator), record.substring(separator + 1));
+            }
+            position += length;
+        }
+        return values;
+    }
+}
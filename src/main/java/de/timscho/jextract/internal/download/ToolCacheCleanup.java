@@ -0,0 +1,254 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.Builder;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Least-recently-used eviction for the writable jextract tool cache.
+ *
+ * <p>Like Gradle's own caches, cleanup runs at most once per day, tracked through the modification time of a
+ * {@code gc.properties} file in the cache root. Versions are evicted when they were not used for longer than the
+ * configured age, and then oldest first until the cache fits into the optional size budget. Versions used within the
+ * last {@link #USE_MARKER_RESOLUTION} are kept on both paths, even with a maximum age of zero.
+ *
+ * <p>A version is only evicted while holding its cache lock, which keeps builds currently downloading or extracting
+ * it safe. Builds merely running a cached version do not hold that lock, so for them the recent use is the only
+ * protection: every resolution refreshes the marker if it is older than half of {@link #USE_MARKER_RESOLUTION}, so a
+ * version is only at risk when a single jextract run outlasts the other half.
+ */
+@Builder
+final class ToolCacheCleanup {
+    static final String LAST_USED_NAME = ".gradleJextractLastUsed";
+    static final String GC_MARKER_NAME = "gc.properties";
+    static final Duration USE_MARKER_RESOLUTION = Duration.ofHours(1);
+    static final Duration CLEANUP_INTERVAL = Duration.ofDays(1);
+
+    private final Path cacheBase;
+    private final Duration maxUnusedAge;
+    private final long maxSizeBytes;
+    private final Set<String> protectedVersions;
+    private final Logger logger;
+
+    /**
+     * Records that a cached version was used. The timestamp is only updated once per half
+     * {@link #USE_MARKER_RESOLUTION} to keep the cost on the hot path negligible.
+     *
+     * @param versionDir The used version directory
+     * @throws IOException If the marker can not be written
+     */
+    static void markUsed(final Path versionDir) throws IOException {
+        final Path marker = versionDir.resolve(ToolCacheCleanup.LAST_USED_NAME);
+        final FileTime now = FileTime.from(Instant.now());
+        if (!Files.exists(marker)) {
+            Files.createFile(marker);
+            return;
+        }
+
+        final Instant threshold = now.toInstant().minus(ToolCacheCleanup.USE_MARKER_RESOLUTION.dividedBy(2));
+        if (Files.getLastModifiedTime(marker).toInstant().isBefore(threshold)) {
+            Files.setLastModifiedTime(marker, now);
+        }
+    }
+
+    /**
+     * Runs the cleanup if the last one is older than {@link #CLEANUP_INTERVAL} and no other build is cleaning.
+     *
+     * @return Whether a cleanup was performed
+     * @throws IOException If the cache root can not be read
+     */
+    boolean cleanupIfDue() throws IOException {
+        if (!Files.isDirectory(this.cacheBase)) {
+            return false;
+        }
+
+        final Path gcMarker = this.cacheBase.resolve(ToolCacheCleanup.GC_MARKER_NAME);
+        final Instant now = Instant.now();
+        if (Files.exists(gcMarker)
+                && Files.getLastModifiedTime(gcMarker)
+                        .toInstant()
+                        .isAfter(now.minus(ToolCacheCleanup.CLEANUP_INTERVAL))) {
+            return false;
+        }
+
+        try (ToolCacheLock gcLock = ToolCacheLock.tryAcquire(this.cacheBase.resolve("gc.lock"))) {
+            if (gcLock == null) {
+                return false;
+            }
+
+            if (!Files.exists(gcMarker)) {
+                Files.createFile(gcMarker);
+            }
+            Files.setLastModifiedTime(gcMarker, FileTime.from(now));
+            this.cleanup(now);
+            return true;
+        }
+    }
+
+    private void cleanup(final Instant now) throws IOException {
+        final List<CachedVersion> versions = this.listVersions();
+        final Instant unusedThreshold = now.minus(this.maxUnusedAge);
+        final Instant recentThreshold = now.minus(ToolCacheCleanup.USE_MARKER_RESOLUTION);
+
+        this.evictSharedArchives(unusedThreshold, recentThreshold);
+
+        final List<CachedVersion> remaining = new ArrayList<>();
+        for (final CachedVersion version : versions) {
+            final boolean expired = version.lastUsed().isBefore(unusedThreshold)
+                    && version.lastUsed().isBefore(recentThreshold);
+            if (!expired || !this.evict(version, "unused since " + version.lastUsed())) {
+                remaining.add(version);
+            }
+        }
+
+        if (this.maxSizeBytes <= 0) {
+            return;
+        }
+
+        long totalSize = 0;
+        for (final CachedVersion version : remaining) {
+            totalSize += ToolCacheCleanup.sizeOf(version.directory());
+        }
+
+        // Oldest first; the list is already sorted by last use
+        for (final CachedVersion version : remaining) {
+            if (totalSize <= this.maxSizeBytes) {
+                break;
+            }
+            if (version.lastUsed().isAfter(recentThreshold)) {
+                continue;
+            }
+
+            final long size = ToolCacheCleanup.sizeOf(version.directory());
+            if (this.evict(version, "cache exceeds " + this.maxSizeBytes + " bytes")) {
+                totalSize -= size;
+            }
+        }
+    }
+
+    /**
+     * Deletes the {@link ToolSharedArchive shared archives} of distributions not launched for longer than the
+     * configured age. The directory and lock file stay, so a launch never holds the lock of a deleted file.
+     */
+    private void evictSharedArchives(final Instant unusedThreshold, final Instant recentThreshold)
+            throws IOException {
+        final Path archivesDir = this.cacheBase.resolve(ToolSharedArchive.DIRECTORY_NAME);
+        if (!Files.isDirectory(archivesDir)) {
+            return;
+        }
+
+        try (Stream<Path> entries = Files.list(archivesDir)) {
+            for (final Path entry : entries.filter(Files::isDirectory).toList()) {
+                final Path archive = entry.resolve(ToolSharedArchive.ARCHIVE_NAME);
+                final Path marker = entry.resolve(ToolCacheCleanup.LAST_USED_NAME);
+                final Instant lastUsed = Files.exists(marker)
+                        ? Files.getLastModifiedTime(marker).toInstant()
+                        : Instant.EPOCH;
+                if (!Files.exists(archive)
+                        || !lastUsed.isBefore(unusedThreshold)
+                        || !lastUsed.isBefore(recentThreshold)) {
+                    continue;
+                }
+
+                try (ToolCacheLock lock =
+                        ToolCacheLock.tryAcquire(entry.resolve(ToolSharedArchive.ARCHIVE_NAME + ".lock"))) {
+                    if (lock != null) {
+                        Files.delete(archive);
+                        Files.deleteIfExists(marker);
+                        this.logger.info("Evicted jextract shared archive {}, unused since {}", archive, lastUsed);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<CachedVersion> listVersions() throws IOException {
+        final List<CachedVersion> versions = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(this.cacheBase)) {
+            for (final Path entry : entries.toList()) {
+                final String name = entry.getFileName().toString();
+                final Path integrityMarker = entry.resolve(JextractToolService.FILE_INTEGRITY_NAME);
+                if (!Files.isDirectory(entry)
+                        || !Files.exists(integrityMarker)
+                        || this.protectedVersions.contains(name)) {
+                    continue;
+                }
+
+                final Path lastUsedMarker = entry.resolve(ToolCacheCleanup.LAST_USED_NAME);
+                final Path timestampSource = Files.exists(lastUsedMarker) ? lastUsedMarker : integrityMarker;
+                versions.add(new CachedVersion(
+                        name, entry, Files.getLastModifiedTime(timestampSource).toInstant()));
+            }
+        }
+        versions.sort(Comparator.comparing(CachedVersion::lastUsed));
+        return versions;
+    }
+
+    private boolean evict(final CachedVersion version, final String reason) throws IOException {
+        try (ToolCacheLock lock = ToolCacheLock.tryAcquire(this.cacheBase.resolve(version.name() + ".lock"))) {
+            if (lock == null) {
+                this.logger.info("Skipping eviction of jextract {}, it is in use", version.name());
+                return false;
+            }
+
+            // Move out of the way first, so no build ever observes a partially deleted version
+            final Path trash = this.cacheBase.resolve(version.name() + ".tmp-" + UUID.randomUUID());
+            Files.move(version.directory(), trash, StandardCopyOption.ATOMIC_MOVE);
+            this.logger.lifecycle("Evicted jextract {} from the tool cache ({})", version.name(), reason);
+            ToolCacheCleanup.deleteRecursively(trash);
+            return true;
+        }
+    }
+
+    private static long sizeOf(final Path directory) throws IOException {
+        final AtomicLong size = new AtomicLong();
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                size.addAndGet(attributes.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size.get();
+    }
+
+    private static void deleteRecursively(final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+                    throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final @Nullable IOException exception)
+                    throws IOException {
+                if (exception != null) {
+                    throw exception;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private record CachedVersion(String name, Path directory, Instant lastUsed) {}
+}
@@ -0,0 +1,141 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Exclusive lock on a single entry of the jextract tool cache.
+ *
+ * <p>Threads of the same JVM are serialized through an in-memory lock per lock file, other processes through a
+ * {@link FileLock} on the lock file itself. Both are held until {@link #close()} is called.
+ */
+public final class ToolCacheLock implements AutoCloseable {
+    private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+    private static final long OVERLAP_RETRY_MILLIS = 50;
+
+    private final ReentrantLock localLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private ToolCacheLock(final ReentrantLock localLock, final FileChannel channel, final FileLock fileLock) {
+        this.localLock = localLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Acquires the lock, waiting for other threads and processes to release it.
+     *
+     * @param lockFile The lock file, created if missing
+     * @param logger The logger used to report waiting for another holder
+     * @return The acquired lock
+     * @throws IOException If the lock file can not be opened or locked
+     */
+    public static ToolCacheLock acquire(final Path lockFile, final Logger logger) throws IOException {
+        final ReentrantLock localLock = ToolCacheLock.localLock(lockFile);
+        if (!localLock.tryLock()) {
+            logger.info("Waiting for another build in this process to release {}", lockFile);
+            localLock.lock();
+        }
+
+        try {
+            final FileChannel channel = ToolCacheLock.open(lockFile);
+            try {
+                @Nullable FileLock fileLock = ToolCacheLock.tryLockFile(channel);
+                if (fileLock == null) {
+                    logger.lifecycle("Waiting for another process to finish preparing {}", lockFile);
+                    fileLock = ToolCacheLock.lockFile(channel);
+                }
+                return new ToolCacheLock(localLock, channel, fileLock);
+            } catch (final IOException | RuntimeException exception) {
+                channel.close();
+                throw exception;
+            }
+        } catch (final IOException | RuntimeException exception) {
+            localLock.unlock();
+            throw exception;
+        }
+    }
+
+    /**
+     * Acquires the lock only if no other thread or process currently holds it.
+     *
+     * @param lockFile The lock file, created if missing
+     * @return The acquired lock or {@code null} if it is held elsewhere
+     * @throws IOException If the lock file can not be opened
+     */
+    public static @Nullable ToolCacheLock tryAcquire(final Path lockFile) throws IOException {
+        final ReentrantLock localLock = ToolCacheLock.localLock(lockFile);
+        if (!localLock.tryLock()) {
+            return null;
+        }
+
+        try {
+            final FileChannel channel = ToolCacheLock.open(lockFile);
+            final @Nullable FileLock fileLock = ToolCacheLock.tryLockFile(channel);
+            if (fileLock == null) {
+                channel.close();
+                localLock.unlock();
+                return null;
+            }
+            return new ToolCacheLock(localLock, channel, fileLock);
+        } catch (final IOException | RuntimeException exception) {
+            localLock.unlock();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.fileLock.release();
+            this.channel.close();
+        } finally {
+            this.localLock.unlock();
+        }
+    }
+
+    private static ReentrantLock localLock(final Path lockFile) {
+        return ToolCacheLock.LOCAL_LOCKS.computeIfAbsent(
+                lockFile.toAbsolutePath().normalize(), _ -> new ReentrantLock());
+    }
+
+    private static FileChannel open(final Path lockFile) throws IOException {
+        Files.createDirectories(lockFile.getParent());
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static @Nullable FileLock tryLockFile(final FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (final OverlappingFileLockException exception) {
+            // Held by another class loader of this JVM, e.g. a different plugin version in the same daemon
+            return null;
+        }
+    }
+
+    private static FileLock lockFile(final FileChannel channel) throws IOException {
+        while (true) {
+            try {
+                return channel.lock();
+            } catch (final OverlappingFileLockException exception) {
+                try {
+                    Thread.sleep(ToolCacheLock.OVERLAP_RETRY_MILLIS);
+                } catch (final InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for tool cache lock", interrupted);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Properties;
+import lombok.Builder;
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Layout of an extracted jextract distribution, written next to the integrity marker when extraction finishes.
+ * Reading it replaces probing the distribution directory for the launcher.
+ */
+@Builder
+@Value
+class ToolManifest {
+    static final String FILE_NAME = ".gradleJextractManifest";
+
+    private static final String EXECUTABLE_KEY = "executable";
+    private static final String PLATFORM_KEY = "platform";
+    private static final String SHA256_KEY = "sha256";
+    private static final String VERSION_KEY = "version";
+
+    /**
+     * Path of the launcher relative to the version directory, always using {@code /} as separator.
+     */
+    String executable;
+
+    String platform;
+    String sha256;
+    String version;
+
+    /**
+     * Reads the manifest of a version directory.
+     *
+     * @param versionDir The version directory
+     * @return The manifest or {@code null} if the directory has none or it is incomplete
+     * @throws IOException If the manifest exists but can not be read
+     */
+    static @Nullable ToolManifest read(final Path versionDir) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(versionDir.resolve(ToolManifest.FILE_NAME))) {
+            properties.load(in);
+        } catch (final NoSuchFileException exception) {
+            return null;
+        }
+
+        final @Nullable String executable = properties.getProperty(ToolManifest.EXECUTABLE_KEY);
+        if (executable == null || executable.isEmpty()) {
+            return null;
+        }
+        return ToolManifest.builder()
+                .executable(executable)
+                .platform(properties.getProperty(ToolManifest.PLATFORM_KEY, ""))
+                .sha256(properties.getProperty(ToolManifest.SHA256_KEY, ""))
+                .version(properties.getProperty(ToolManifest.VERSION_KEY, ""))
+                .build();
+    }
+
+    /**
+     * Writes the manifest into the given version directory.
+     *
+     * @param versionDir The version directory, usually the staging directory before it is published
+     * @throws IOException If the manifest can not be written
+     */
+    void write(final Path versionDir) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(ToolManifest.EXECUTABLE_KEY, this.executable);
+        properties.setProperty(ToolManifest.PLATFORM_KEY, this.platform);
+        properties.setProperty(ToolManifest.SHA256_KEY, this.sha256);
+        properties.setProperty(ToolManifest.VERSION_KEY, this.version);
+
+        try (OutputStream out = Files.newOutputStream(versionDir.resolve(ToolManifest.FILE_NAME))) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * Resolves the launcher against the directory the manifest was read from.
+     *
+     * @param versionDir The version directory
+     * @return The launcher path
+     */
+    Path resolveExecutable(final Path versionDir) {
+        return versionDir.resolve(this.executable);
+    }
+}
@@ -0,0 +1,130 @@
+package de.timscho.jextract.internal.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Class data sharing archive of the JVM bundled with a jextract distribution.
+ *
+ * <p>The archive is stored as {@code jextract.jsa} in the plugin's tool cache, in a directory of
+ * {@link #DIRECTORY_NAME} keyed by the location and runtime image of the distribution. Distributions themselves are
+ * never written to: neither installations of the user nor the immutable workspaces of artifact transforms. The
+ * archive is created by the first launch holding the archive lock, concurrent launches only map an existing archive,
+ * so at most one JVM ever writes it. Archives unused for as long as cached versions are evicted with them.
+ */
+public final class ToolSharedArchive implements AutoCloseable {
+    public static final String ARCHIVE_NAME = "jextract.jsa";
+    public static final String DIRECTORY_NAME = "shared-archives";
+
+    private static final ToolSharedArchive DISABLED = new ToolSharedArchive(List.of(), null);
+
+    private final List<String> jvmOptions;
+    private final @Nullable ToolCacheLock lock;
+
+    private ToolSharedArchive(final List<String> jvmOptions, final @Nullable ToolCacheLock lock) {
+        this.jvmOptions = jvmOptions;
+        this.lock = lock;
+    }
+
+    /**
+     * Returns an instance adding no JVM options.
+     *
+     * @return The disabled archive
+     */
+    public static ToolSharedArchive disabled() {
+        return ToolSharedArchive.DISABLED;
+    }
+
+    /**
+     * Prepares the shared archive for a launch of the given executable. Close the result after the launch.
+     *
+     * @param executable The jextract launcher, expected in {@code <distribution>/bin/}
+     * @param archivesDir The {@link #DIRECTORY_NAME} directory of the tool cache
+     * @param logger The Gradle logger to use for logging.
+     * @return The archive with the JVM options to use
+     */
+    public static ToolSharedArchive open(final File executable, final Path archivesDir, final Logger logger) {
+        final @Nullable File binDir = executable.getAbsoluteFile().getParentFile();
+        final @Nullable File distributionDir = binDir != null ? binDir.getParentFile() : null;
+        if (distributionDir == null) {
+            return ToolSharedArchive.DISABLED;
+        }
+
+        final Path archiveDir;
+        try {
+            archiveDir = archivesDir.resolve(ToolSharedArchive.key(distributionDir.toPath()));
+        } catch (final IOException exception) {
+            logger.debug("Failed to read the runtime image of {}", distributionDir, exception);
+            return ToolSharedArchive.DISABLED;
+        }
+
+        final Path archive = archiveDir.resolve(ToolSharedArchive.ARCHIVE_NAME);
+        final String archiveOption = "-XX:SharedArchiveFile=" + archive;
+        try {
+            Files.createDirectories(archiveDir);
+            ToolCacheCleanup.markUsed(archiveDir);
+            final @Nullable ToolCacheLock lock =
+                    ToolCacheLock.tryAcquire(archiveDir.resolve(ToolSharedArchive.ARCHIVE_NAME + ".lock"));
+            if (lock != null) {
+                logger.debug("Using or creating jextract shared archive {}", archive);
+                return new ToolSharedArchive(List.of(archiveOption, "-XX:+AutoCreateSharedArchive"), lock);
+            }
+        } catch (final IOException exception) {
+            logger.debug("Failed to lock jextract shared archive {}", archive, exception);
+        }
+
+        if (Files.exists(archive)) {
+            logger.debug("Using existing jextract shared archive {}", archive);
+            return new ToolSharedArchive(List.of(archiveOption), null);
+        }
+        return ToolSharedArchive.DISABLED;
+    }
+
+    /**
+     * Keys the archive of a distribution by its location and runtime image. The JVM rejects archives of a moved or
+     * replaced runtime, so a new key avoids recreating the archive back and forth.
+     */
+    private static String key(final Path distributionDir) throws IOException {
+        final Path modules = distributionDir.resolve(Path.of("runtime", "lib", "modules"));
+        final StringBuilder identity = new StringBuilder(distributionDir.toAbsolutePath().normalize().toString());
+        if (Files.isRegularFile(modules)) {
+            identity.append(':')
+                    .append(Files.size(modules))
+                    .append(':')
+                    .append(Files.getLastModifiedTime(modules).toMillis());
+        }
+
+        try {
+            final byte[] digest =
+                    MessageDigest.getInstance("SHA-256").digest(identity.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 not supported", exception);
+        }
+    }
+
+    /**
+     * Returns the JVM options mapping, and if allowed creating, the archive.
+     *
+     * @return The JVM options
+     */
+    public List<String> getJvmOptions() {
+        return this.jvmOptions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.lock != null) {
+            this.lock.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.internal.generation.GeneratedSourcePublisher;
+import de.timscho.jextract.internal.generation.HeaderClassMerger;
+import de.timscho.jextract.internal.generation.SymbolInventory;
+import de.timscho.jextract.internal.generation.SymbolManifest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Regenerates only the symbols whose declarations changed since the last successful run, from within a work action.
+ *
+ * <p>Every run records a {@link SymbolManifest} next to the symbol inventory. When only the headers changed, the
+ * previous bindings are copied into the staging directory, the bindings of changed and removed symbols are dropped,
+ * and a jextract run including just the changed symbols, plus all types they may depend on, is merged back in.
+ * Anything else, or changes to more than half of the symbols, generates the bindings from scratch.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class IncrementalGeneration {
+    private static final String MANIFEST_NAME = "manifest.txt";
+    private static final String UPDATE_NAME = "update";
+    private static final String UPDATE_ARGS_NAME = "update.args";
+
+    /**
+     * Generates the bindings into the staging directory, updating the previous bindings when possible.
+     *
+     * @param parameters The loader and symbol parameters
+     * @param arguments The jextract arguments, without the launcher
+     * @param jextract Runs jextract with the given arguments
+     * @param fs Used to clean up the output of the previous update
+     * @param logger The Gradle logger to use for logging.
+     * @param <P> The parameters of the work action
+     * @throws IOException If the manifest or the bindings can not be read or written
+     */
+    static <P extends LoaderParameters & SymbolParameters> void generate(
+            final P parameters,
+            final List<String> arguments,
+            final Consumer<List<String>> jextract,
+            final FileSystemOperations fs,
+            final Logger logger)
+            throws IOException {
+        final Path directory = parameters.getInventoryDirectory().get().getAsFile().toPath();
+        final Path manifestFile = directory.resolve(IncrementalGeneration.MANIFEST_NAME);
+        final SymbolInventory selection = SymbolSelection.selection(parameters, arguments, jextract, logger);
+        final SymbolManifest manifest = SymbolManifest.compute(selection);
+        final @Nullable SymbolManifest previous = parameters.getOnlyHeadersChanged().getOrElse(false)
+                ? SymbolManifest.readIfExists(manifestFile)
+                : null;
+
+        // Written last, so a failed run never leaves a manifest not matching the bindings
+        Files.deleteIfExists(manifestFile);
+        if (previous == null
+                || arguments.stream().anyMatch(argument -> argument.startsWith("--include-"))
+                || !IncrementalGeneration.update(
+                        parameters, arguments, jextract, fs, selection, manifest.changesSince(previous), logger)) {
+            jextract.accept(SymbolSelection.selectIfConfigured(parameters, arguments, jextract, logger));
+        }
+        manifest.write(manifestFile);
+    }
+
+    /**
+     * Updates the previous bindings with the changed symbols.
+     *
+     * @return Whether the bindings were updated, {@code false} if they must be generated from scratch
+     */
+    private static <P extends LoaderParameters & SymbolParameters> boolean update(
+            final P parameters,
+            final List<String> arguments,
+            final Consumer<List<String>> jextract,
+            final FileSystemOperations fs,
+            final SymbolInventory selection,
+            final SymbolManifest.Changes changes,
+            final Logger logger)
+            throws IOException {
+        final String headerClassName = parameters.getHeaderClassName().get();
+        final Path output = parameters.getOutputDirectory().get().getAsFile().toPath();
+        final Path staging = parameters.getStagingDirectory().get().getAsFile().toPath();
+        final Path headerClass = output.resolve(parameters.getTargetPackage().get().replace('.', '/'))
+                .resolve(headerClassName + ".java");
+
+        final Set<String> names = new HashSet<>();
+        changes.changed().forEach(key -> names.add(key.substring(key.indexOf(' ') + 1)));
+        changes.removed().forEach(key -> names.add(key.substring(key.indexOf(' ') + 1)));
+        if (!Files.exists(headerClass) || names.size() * 2 > selection.symbols().size()) {
+            logger.info(
+                    "{} of {} symbols changed, regenerating {}",
+                    names.size(),
+                    selection.symbols().size(),
+                    headerClassName);
+            return false;
+        }
+
+        GeneratedSourcePublisher.publish(output, staging);
+        if (changes.isEmpty()) {
+            logger.lifecycle("No symbol of {} changed, kept the previous bindings", headerClassName);
+            return true;
+        }
+
+        final HeaderClassMerger merger = HeaderClassMerger.builder()
+                .outputDirectory(staging)
+                .targetPackage(parameters.getTargetPackage().get())
+                .headerClassName(headerClassName)
+                .logger(logger)
+                .build();
+        merger.remove(names);
+
+        // Symbols of different kinds may share a name, like struct stat and stat(), so all of them are regenerated
+        final List<SymbolInventory.Symbol> regenerated = selection.symbols().stream()
+                .filter(symbol -> !symbol.kind().isShardable() || names.contains(symbol.name()))
+                .toList();
+        if (regenerated.stream().anyMatch(symbol -> names.contains(symbol.name()))) {
+            final Path directory = parameters.getInventoryDirectory().get().getAsFile().toPath();
+            final Path updateDir = directory.resolve(IncrementalGeneration.UPDATE_NAME);
+            final Path argFile = directory.resolve(IncrementalGeneration.UPDATE_ARGS_NAME);
+            fs.delete(spec -> spec.delete(updateDir));
+            Files.createDirectories(updateDir);
+            new SymbolInventory(regenerated).write(argFile);
+
+            jextract.accept(SymbolSelection.withArgFile(SymbolSelection.withOutput(arguments, updateDir), argFile));
+            merger.merge(updateDir);
+        }
+
+        logger.lifecycle(
+                "Updated {} changed and removed {} symbols of {}",
+                changes.changed().size(),
+                changes.removed().size(),
+                headerClassName);
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package de.timscho.jextract.internal.execution;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Caps how many jextract generations run at the same time, by count and by the heap they may claim.
+ *
+ * <p>A generation claims the {@code -Xmx} of its JVM options, or {@link #DEFAULT_MEMORY_MEGABYTES}. Claims larger
+ * than the whole budget are clamped, so a single huge header still runs, just alone.
+ *
+ * <p>Generations in worker daemons run outside the build process. They only count against the number of concurrent
+ * generations, which Gradle enforces per binding task through the maximum parallel usages of this service.
+ */
+public abstract class JextractBudgetService implements BuildService<JextractBudgetService.Params> {
+    public static final int DEFAULT_MEMORY_MEGABYTES = 512;
+
+    private final Semaphore concurrency;
+    private final Semaphore memory;
+    private final int memoryBudget;
+
+    @SuppressWarnings("this-escape")
+    public JextractBudgetService() {
+        this.concurrency = new Semaphore(Math.max(
+                1, this.getParameters().getMaxConcurrent().getOrElse(Runtime.getRuntime().availableProcessors())));
+        this.memoryBudget = Math.max(
+                1, this.getParameters().getMaxMemoryMegabytes().getOrElse(JextractBudgetService.defaultMemoryBudget()));
+        this.memory = new Semaphore(this.memoryBudget, true);
+    }
+
+    /**
+     * Waits until the generation fits into the budget.
+     *
+     * @param memoryMegabytes The heap the generation may claim
+     * @return The lease, to be closed when the generation finished
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Lease acquire(final int memoryMegabytes) throws InterruptedException {
+        final int claim = Math.clamp(memoryMegabytes, 1, this.memoryBudget);
+        this.concurrency.acquire();
+        try {
+            this.memory.acquire(claim);
+        } catch (final InterruptedException exception) {
+            this.concurrency.release();
+            throw exception;
+        }
+        return () -> {
+            this.memory.release(claim);
+            this.concurrency.release();
+        };
+    }
+
+    /**
+     * Reads the maximum heap from JVM options like {@code -Xmx2g}.
+     *
+     * @param jvmArgs The JVM options
+     * @return The heap in megabytes, {@link #DEFAULT_MEMORY_MEGABYTES} if not specified
+     */
+    public static int memoryMegabytes(final List<String> jvmArgs) {
+        int megabytes = JextractBudgetService.DEFAULT_MEMORY_MEGABYTES;
+        for (final String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith("-Xmx") && jvmArg.length() > 4) {
+                megabytes = JextractBudgetService.parseMegabytes(jvmArg.substring(4));
+            }
+        }
+        return megabytes;
+    }
+
+    private static int parseMegabytes(final String size) {
+        final char unit = size.toLowerCase(Locale.ROOT).charAt(size.length() - 1);
+        final String digits = Character.isDigit(unit) ? size : size.substring(0, size.length() - 1);
+        final long value;
+        try {
+            value = Long.parseLong(digits);
+        } catch (final NumberFormatException exception) {
+            return JextractBudgetService.DEFAULT_MEMORY_MEGABYTES;
+        }
+
+        final long megabytes = switch (unit) {
+            case 't' -> value * 1024 * 1024;
+            case 'g' -> value * 1024;
+            case 'm' -> value;
+            case 'k' -> value / 1024;
+            default -> value / (1024 * 1024);
+        };
+        return Math.clamp(megabytes, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Half of the physical memory, leaving room for the Gradle daemon and the rest of the build.
+     */
+    private static int defaultMemoryBudget() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof final com.sun.management.OperatingSystemMXBean os) {
+            return Math.clamp(os.getTotalMemorySize() / (2 * 1024 * 1024), 1, Integer.MAX_VALUE);
+        }
+        return 4096;
+    }
+
+    /**
+     * A granted share of the budget.
+     */
+    @FunctionalInterface
+    public interface Lease extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public interface Params extends BuildServiceParameters {
+        /**
+         * Maximum number of concurrent generations.
+         * Default: number of processors
+         *
+         * @return The maximum number of concurrent generations
+         */
+        Property<Integer> getMaxConcurrent();
+
+        /**
+         * Heap shared by all concurrent generations.
+         * Default: half of the physical memory
+         *
+         * @return The memory budget in megabytes
+         */
+        Property<Integer> getMaxMemoryMegabytes();
+    }
+}
@@ -0,0 +1,294 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.extension.ExecutionMode;
+import de.timscho.jextract.internal.daemon.JextractDaemonClient;
+import de.timscho.jextract.internal.download.ToolSharedArchive;
+import de.timscho.jextract.internal.generation.HeaderClassMerger;
+import de.timscho.jextract.internal.generation.SymbolInventory;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.process.ExecOperations;
+import org.gradle.workers.WorkAction;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Generates the bindings of one library, by forking the jextract launcher or through the jextract daemon, and then
+ * generates the native library loader. Runs without isolation, within the concurrency and memory budget of
+ * {@link JextractBudgetService}.
+ *
+ * <p>Giant headers can be split into shards: the symbols are listed with {@code --dump-includes}, distributed over
+ * parallel runs through jextract's {@code --include-*} filters and merged back into a single header class. The same
+ * inventory selects the symbols of a configured {@link SymbolParameters#getSymbolFilter() symbol filter}, and with
+ * {@link SymbolParameters#getIncrementalGeneration() incremental generation} only changed symbols are regenerated.
+ */
+public abstract class JextractGenerateAction implements WorkAction<JextractGenerateAction.Params> {
+    private static final String JAVA_OPTIONS_VARIABLE = "JDK_JAVA_OPTIONS";
+    private static final Logger LOGGER = Logging.getLogger(JextractGenerateAction.class);
+
+    @Inject
+    protected abstract ExecOperations getExecOps();
+
+    @Inject
+    protected abstract ObjectFactory getObjects();
+
+    @Inject
+    protected abstract FileSystemOperations getFs();
+
+    @Override
+    public void execute() {
+        final Params parameters = this.getParameters();
+        final List<String> arguments = parameters.getArguments().get();
+        final int shards = parameters.getShards().getOrElse(1);
+        SourcePublication.prepareStaging(parameters, this.getFs());
+
+        if (shards > 1 && arguments.stream().anyMatch(argument -> argument.startsWith("--include-"))) {
+            JextractGenerateAction.LOGGER.warn(
+                    "Symbol filters are passed as compiler arguments, generating {} without shards",
+                    parameters.getHeaderClassName().get());
+            this.runWithinBudget(arguments);
+        } else if (shards > 1) {
+            this.generateSharded(arguments, shards);
+        } else if (parameters.getIncrementalGeneration().getOrElse(false)) {
+            try {
+                IncrementalGeneration.generate(
+                        parameters, arguments, this::runWithinBudget, this.getFs(), JextractGenerateAction.LOGGER);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Failed to update the changed symbols", exception);
+            }
+        } else {
+            try {
+                this.runWithinBudget(SymbolSelection.selectIfConfigured(
+                        parameters, arguments, this::runWithinBudget, JextractGenerateAction.LOGGER));
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Failed to select the symbols to generate", exception);
+            }
+        }
+
+        LoaderGeneration.generateIfConfigured(parameters, this.getObjects(), JextractGenerateAction.LOGGER);
+        SourcePublication.publish(parameters, JextractGenerateAction.LOGGER);
+        SnapshotRecording.recordIfConfigured(parameters, this.getFs(), JextractGenerateAction.LOGGER);
+    }
+
+    /**
+     * Lists the symbols of the header, or reuses the cached inventory, generates disjoint subsets of them in
+     * parallel runs and merges the outputs into the staging directory. Every run claims its own share of the budget.
+     */
+    private void generateSharded(final List<String> arguments, final int shards) {
+        final Params parameters = this.getParameters();
+        final Path shardsDir = parameters.getTemporaryDirectory().get().getAsFile().toPath();
+        final Path stagingDir = parameters.getStagingDirectory().get().getAsFile().toPath();
+
+        try {
+            this.getFs().delete(spec -> spec.delete(shardsDir));
+            Files.createDirectories(shardsDir);
+
+            SymbolInventory inventory = SymbolSelection.inventory(
+                    parameters, arguments, this::runWithinBudget, JextractGenerateAction.LOGGER);
+            if (parameters.getSymbolFilter().isPresent()) {
+                inventory = inventory.filter(parameters.getSymbolFilter().get());
+            }
+
+            final List<List<String>> includes = inventory.shard(shards);
+            JextractGenerateAction.LOGGER.info(
+                    "Generating {} in {} shards", parameters.getHeaderClassName().get(), includes.size());
+
+            final List<Path> shardOutputs = new ArrayList<>();
+            final List<Callable<Void>> runs = new ArrayList<>();
+            for (int index = 0; index < includes.size(); index++) {
+                // The first shard writes directly to the staging directory, the others are merged into it
+                final Path shardOutput = index == 0 ? stagingDir : shardsDir.resolve("shard-" + index);
+                final Path argFile = shardsDir.resolve("shard-" + index + ".args");
+                Files.write(argFile, includes.get(index), StandardCharsets.UTF_8);
+                if (index > 0) {
+                    shardOutputs.add(shardOutput);
+                }
+
+                final List<String> shardArguments = SymbolSelection.withArgFile(
+                        SymbolSelection.withOutput(arguments, shardOutput), argFile);
+                runs.add(() -> {
+                    this.runWithinBudget(shardArguments);
+                    return null;
+                });
+            }
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (final Future<Void> run : executor.invokeAll(runs)) {
+                    JextractGenerateAction.await(run);
+                }
+            }
+
+            final HeaderClassMerger merger = HeaderClassMerger.builder()
+                    .outputDirectory(stagingDir)
+                    .targetPackage(parameters.getTargetPackage().get())
+                    .headerClassName(parameters.getHeaderClassName().get())
+                    .logger(JextractGenerateAction.LOGGER)
+                    .build();
+            for (final Path shardOutput : shardOutputs) {
+                merger.merge(shardOutput);
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to merge the jextract shards", exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while generating jextract shards", exception);
+        }
+    }
+
+    private void runWithinBudget(final List<String> arguments) {
+        final List<String> jvmArgs = this.getParameters().getJvmArgs().get();
+        try (JextractBudgetService.Lease _ =
+                this.getParameters().getBudget().get().acquire(JextractBudgetService.memoryMegabytes(jvmArgs))) {
+            if (this.getParameters().getMode().get() == ExecutionMode.DAEMON) {
+                this.executeInDaemon(arguments);
+            } else {
+                this.execute(jvmArgs, arguments);
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while waiting for the jextract budget", exception);
+        }
+    }
+
+    private void execute(final List<String> jvmArgs, final List<String> arguments) {
+        final File executable = this.getParameters().getExecutable().get().getAsFile();
+        final List<String> commandLine = new ArrayList<>();
+        commandLine.add(executable.getAbsolutePath());
+        commandLine.addAll(arguments);
+
+        try (ToolSharedArchive sharedArchive = this.getParameters().getClassDataSharing().getOrElse(true)
+                        && this.getParameters().getSharedArchiveDirectory().isPresent()
+                ? ToolSharedArchive.open(
+                        executable,
+                        this.getParameters().getSharedArchiveDirectory().get().getAsFile().toPath(),
+                        JextractGenerateAction.LOGGER)
+                : ToolSharedArchive.disabled()) {
+            final List<String> jvmOptions = new ArrayList<>(sharedArchive.getJvmOptions());
+            jvmOptions.addAll(jvmArgs);
+
+            this.getExecOps().exec(spec -> {
+                spec.commandLine(commandLine);
+                spec.setWorkingDir(this.getParameters().getWorkingDirectory().get().getAsFile());
+                if (!jvmOptions.isEmpty()) {
+                    spec.environment(
+                            JextractGenerateAction.JAVA_OPTIONS_VARIABLE,
+                            JextractGenerateAction.javaOptions(
+                                    spec.getEnvironment().get(JextractGenerateAction.JAVA_OPTIONS_VARIABLE),
+                                    jvmOptions));
+                }
+            });
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to release the jextract shared archive", exception);
+        }
+    }
+
+    private void executeInDaemon(final List<String> arguments) {
+        final Params parameters = this.getParameters();
+        JextractDaemonClient.builder()
+                .daemonsDir(parameters.getDaemonDirectory().get().getAsFile().toPath())
+                .runtimeJava(parameters.getRuntimeJava().get().getAsFile())
+                .jvmArgs(parameters.getJvmArgs().get())
+                .idleTimeout(parameters.getDaemonIdleTimeout().get())
+                .logger(JextractGenerateAction.LOGGER)
+                .build()
+                .run(parameters.getWorkingDirectory().get().getAsFile(), arguments);
+    }
+
+    private static void await(final Future<Void> run) throws InterruptedException {
+        try {
+            run.get();
+        } catch (final ExecutionException exception) {
+            if (exception.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            throw new GradleException("jextract shard failed", exception.getCause());
+        }
+    }
+
+    /**
+     * Appends options to an inherited {@code JDK_JAVA_OPTIONS} value, quoting options containing whitespace.
+     */
+    @Contract(pure = true)
+    private static String javaOptions(final @Nullable Object inherited, final List<String> options) {
+        final String appended = options.stream()
+                .map(option -> option.chars().anyMatch(Character::isWhitespace) ? '"' + option + '"' : option)
+                .collect(Collectors.joining(" "));
+        return inherited == null || inherited.toString().isBlank() ? appended : inherited + " " + appended;
+    }
+
+    public interface Params extends LoaderParameters, SnapshotParameters, SymbolParameters {
+        /**
+         * Either {@link ExecutionMode#EXEC} or {@link ExecutionMode#DAEMON}.
+         *
+         * @return The execution mode
+         */
+        Property<ExecutionMode> getMode();
+
+        RegularFileProperty getExecutable();
+
+        /**
+         * Arguments passed to jextract, without the launcher itself.
+         *
+         * @return The jextract arguments
+         */
+        ListProperty<String> getArguments();
+
+        DirectoryProperty getWorkingDirectory();
+
+        ListProperty<String> getJvmArgs();
+
+        Property<Boolean> getClassDataSharing();
+
+        /**
+         * Directory of the tool cache holding the class data sharing archives. No archive is used when absent.
+         *
+         * @return The shared archive directory
+         */
+        DirectoryProperty getSharedArchiveDirectory();
+
+        RegularFileProperty getRuntimeJava();
+
+        DirectoryProperty getDaemonDirectory();
+
+        Property<Duration> getDaemonIdleTimeout();
+
+        Property<JextractBudgetService> getBudget();
+
+        /**
+         * Number of parallel jextract runs the symbols of the header are split into. Not sharded if unset or 1.
+         *
+         * @return The number of shards
+         */
+        Property<Integer> getShards();
+
+        /**
+         * Scratch directory for the symbol list, argument files and outputs of the shards.
+         *
+         * @return The temporary directory
+         */
+        DirectoryProperty getTemporaryDirectory();
+    }
+}
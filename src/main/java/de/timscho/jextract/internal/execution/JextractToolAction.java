@@ -0,0 +1,86 @@
+package de.timscho.jextract.internal.execution;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.spi.ToolProvider;
+import javax.inject.Inject;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.workers.WorkAction;
+
+/**
+ * Runs jextract in-process through its {@link ToolProvider} and then generates the native library loader.
+ * Executed in a worker daemon started on the runtime bundled with the jextract distribution.
+ */
+public abstract class JextractToolAction implements WorkAction<JextractToolAction.Params> {
+    public static final String TOOL_NAME = "jextract";
+    public static final String MODULE_NAME = "org.openjdk.jextract";
+
+    @Inject
+    protected abstract ObjectFactory getObjects();
+
+    @Inject
+    protected abstract FileSystemOperations getFs();
+
+    @Override
+    public void execute() {
+        final ToolProvider jextract = ToolProvider.findFirst(JextractToolAction.TOOL_NAME)
+                .orElseThrow(() -> new GradleException("No jextract tool provider found in the worker runtime "
+                        + System.getProperty("java.home")));
+        final Logger logger = Logging.getLogger(JextractToolAction.class);
+        SourcePublication.prepareStaging(this.getParameters(), this.getFs());
+
+        final Consumer<List<String>> tool = arguments -> JextractToolAction.run(jextract, arguments);
+        if (this.getParameters().getIncrementalGeneration().getOrElse(false)) {
+            try {
+                IncrementalGeneration.generate(
+                        this.getParameters(), this.getParameters().getArguments().get(), tool, this.getFs(), logger);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Failed to update the changed symbols", exception);
+            }
+        } else {
+            try {
+                tool.accept(SymbolSelection.selectIfConfigured(
+                        this.getParameters(), this.getParameters().getArguments().get(), tool, logger));
+            } catch (final IOException exception) {
+                throw new UncheckedIOException("Failed to select the symbols to generate", exception);
+            }
+        }
+
+        LoaderGeneration.generateIfConfigured(this.getParameters(), this.getObjects(), logger);
+        SourcePublication.publish(this.getParameters(), logger);
+        SnapshotRecording.recordIfConfigured(this.getParameters(), this.getFs(), logger);
+    }
+
+    private static void run(final ToolProvider jextract, final List<String> arguments) {
+        final StringWriter errors = new StringWriter();
+        // Never close the writer wrapping System.out, the worker daemon outlives this action
+        final PrintWriter out = new PrintWriter(System.out, true);
+        final int exitCode = jextract.run(out, new PrintWriter(errors, true), arguments.toArray(String[]::new));
+        out.flush();
+
+        if (!errors.toString().isBlank()) {
+            System.err.print(errors);
+        }
+        if (exitCode != 0) {
+            throw new GradleException("jextract failed with exit code " + exitCode + ": " + errors.toString().strip());
+        }
+    }
+
+    public interface Params extends LoaderParameters, SnapshotParameters, SymbolParameters {
+        /**
+         * Arguments passed to jextract, without the launcher itself.
+         *
+         * @return The jextract arguments
+         */
+        ListProperty<String> getArguments();
+    }
+}
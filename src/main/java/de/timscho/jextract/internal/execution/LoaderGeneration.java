@@ -0,0 +1,52 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.extension.NativeLibraryLoadingConfig;
+import de.timscho.jextract.internal.generation.NativeLibraryLoaderGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.model.ObjectFactory;
+
+/**
+ * Generates and injects the native library loader from within a work action.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class LoaderGeneration {
+
+    /**
+     * Generates the loader if a resource path is configured.
+     *
+     * @param parameters The loader parameters
+     * @param objects Used to rebuild the loading configuration
+     * @param logger The Gradle logger to use for logging.
+     */
+    static void generateIfConfigured(
+            final LoaderParameters parameters, final ObjectFactory objects, final Logger logger) {
+        if (!parameters.getResourcePath().isPresent()) {
+            return;
+        }
+
+        final NativeLibraryLoadingConfig config = objects.newInstance(NativeLibraryLoadingConfig.class);
+        config.getResourcePath().set(parameters.getResourcePath());
+        config.getExtractionDir().set(parameters.getExtractionDir());
+        config.getExtractionPath().set(parameters.getExtractionPath());
+        config.getExtractionBase().set(parameters.getExtractionBase());
+        config.getEnableCaching().set(parameters.getEnableCaching());
+
+        final NativeLibraryLoaderGenerator generator = NativeLibraryLoaderGenerator.builder()
+                .targetPackage(parameters.getTargetPackage().get())
+                .headerClassName(parameters.getHeaderClassName().get())
+                .config(config)
+                .outputDirectory(parameters.getStagingDirectory().get().getAsFile().toPath())
+                .logger(logger)
+                .build();
+        try {
+            generator.generate();
+            generator.injectLoader();
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to generate the native library loader", exception);
+        }
+    }
+}
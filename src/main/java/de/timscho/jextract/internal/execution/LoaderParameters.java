@@ -0,0 +1,63 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.extension.CommentPolicy;
+import de.timscho.jextract.extension.ExtractionBase;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Parameters for generating the native library loader once jextract finished, and for publishing the bindings.
+ */
+public interface LoaderParameters extends WorkParameters {
+    Property<String> getTargetPackage();
+
+    Property<String> getHeaderClassName();
+
+    /**
+     * Resource path of the native library. No loader is generated when absent.
+     *
+     * @return The resource path template
+     */
+    Property<String> getResourcePath();
+
+    DirectoryProperty getExtractionDir();
+
+    Property<String> getExtractionPath();
+
+    Property<ExtractionBase> getExtractionBase();
+
+    Property<Boolean> getEnableCaching();
+
+    /**
+     * Directory jextract generates into. The loader is added here before the bindings are published.
+     *
+     * @return The staging directory
+     */
+    DirectoryProperty getStagingDirectory();
+
+    DirectoryProperty getOutputDirectory();
+
+    /**
+     * Directory absolute paths in comments of the generated sources are made relative to, so the bindings are the
+     * same on every machine.
+     *
+     * @return The project directory
+     */
+    DirectoryProperty getProjectDirectory();
+
+    /**
+     * Archive the published bindings are packed into. Not packed when absent.
+     *
+     * @return The sources archive
+     */
+    RegularFileProperty getSourcesArchive();
+
+    /**
+     * Which comments of the generated sources are kept. All of them when absent.
+     *
+     * @return The comment policy
+     */
+    Property<CommentPolicy> getCommentPolicy();
+}
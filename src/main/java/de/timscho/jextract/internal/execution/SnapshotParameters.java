@@ -0,0 +1,19 @@
+package de.timscho.jextract.internal.execution;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Parameters for keeping a snapshot of the generated bindings once the generation finished.
+ */
+public interface SnapshotParameters extends WorkParameters {
+    /**
+     * Fingerprint of the normalized headers and the generation settings. No snapshot is kept when absent.
+     *
+     * @return The fingerprint
+     */
+    Property<String> getFingerprint();
+
+    DirectoryProperty getSnapshotDirectory();
+}
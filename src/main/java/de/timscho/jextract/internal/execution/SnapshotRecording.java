@@ -0,0 +1,42 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.internal.generation.OutputSnapshot;
+import java.io.IOException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Records the snapshot of the generated bindings from within a work action.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class SnapshotRecording {
+
+    /**
+     * Saves the output directory as snapshot if a fingerprint is configured. Failures only cost the next restore,
+     * so they are logged and never fail the generation.
+     *
+     * @param parameters The parameters of the work action
+     * @param fs Used to copy the bindings
+     * @param logger The Gradle logger to use for logging.
+     * @param <P> The parameter type of the work action
+     */
+    static <P extends LoaderParameters & SnapshotParameters> void recordIfConfigured(
+            final P parameters, final FileSystemOperations fs, final Logger logger) {
+        if (!parameters.getFingerprint().isPresent()) {
+            return;
+        }
+
+        try {
+            OutputSnapshot.builder()
+                    .snapshotDirectory(parameters.getSnapshotDirectory().get().getAsFile().toPath())
+                    .outputDirectory(parameters.getOutputDirectory().get().getAsFile().toPath())
+                    .fs(fs)
+                    .build()
+                    .save(parameters.getFingerprint().get());
+        } catch (final IOException exception) {
+            logger.warn("Failed to snapshot the generated bindings", exception);
+        }
+    }
+}
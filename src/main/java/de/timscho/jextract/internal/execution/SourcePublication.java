@@ -0,0 +1,86 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.extension.CommentPolicy;
+import de.timscho.jextract.internal.generation.CommentRewriter;
+import de.timscho.jextract.internal.generation.GeneratedSourcePublisher;
+import de.timscho.jextract.internal.generation.SourceArchive;
+import de.timscho.jextract.internal.generation.SourceNormalizer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Stages and publishes the generated bindings from within a work action.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class SourcePublication {
+
+    /**
+     * Empties the staging directory, jextract never removes files of earlier runs.
+     *
+     * @param parameters The loader parameters
+     * @param fs Used to delete the previous content
+     */
+    static void prepareStaging(final LoaderParameters parameters, final FileSystemOperations fs) {
+        final Path staging = parameters.getStagingDirectory().get().getAsFile().toPath();
+        fs.delete(spec -> spec.delete(staging));
+        try {
+            Files.createDirectories(staging);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to create the staging directory " + staging, exception);
+        }
+    }
+
+    /**
+     * Applies the comment policy to the staged bindings, normalizes them and publishes them into the output directory,
+     * rewriting only files whose content changed, and packs them into the sources archive if configured.
+     *
+     * @param parameters The loader parameters
+     * @param logger The Gradle logger to use for logging.
+     */
+    static void publish(final LoaderParameters parameters, final Logger logger) {
+        final Path staging = parameters.getStagingDirectory().get().getAsFile().toPath();
+        final Path output = parameters.getOutputDirectory().get().getAsFile().toPath();
+        try {
+            final int rewritten = CommentRewriter.builder()
+                    .policy(parameters.getCommentPolicy().getOrElse(CommentPolicy.KEEP))
+                    .build()
+                    .rewrite(staging);
+            if (rewritten > 0) {
+                logger.info("Rewrote the comments of {} generated files", rewritten);
+            }
+
+            final Path projectDir = parameters.getProjectDirectory().get().getAsFile().toPath();
+            final SourceNormalizer.Result normalized =
+                    SourceNormalizer.builder().root(projectDir).build().normalize(staging);
+            logger.info("Normalized {} generated files", normalized.rewritten());
+            if (!normalized.machineSpecific().isEmpty()) {
+                logger.warn(
+                        "Generated files still contain absolute paths below {}, they differ between checkouts: {}",
+                        projectDir,
+                        normalized.machineSpecific());
+            }
+
+            final GeneratedSourcePublisher.Result result = GeneratedSourcePublisher.publish(staging, output);
+            logger.info(
+                    "Published bindings to {}: {} written, {} unchanged, {} deleted",
+                    output,
+                    result.written(),
+                    result.unchanged(),
+                    result.deleted());
+
+            if (parameters.getSourcesArchive().isPresent()) {
+                final Path archive = parameters.getSourcesArchive().get().getAsFile().toPath();
+                SourceArchive.write(output, archive);
+                logger.info("Packed bindings into {}", archive);
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to publish the generated bindings to " + output, exception);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.internal.generation.SymbolFilter;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Parameters for listing the symbols of the headers and selecting the ones to generate.
+ */
+public interface SymbolParameters extends WorkParameters {
+    /**
+     * Symbols to generate. All symbols are generated when absent.
+     *
+     * @return The symbol filter
+     */
+    Property<SymbolFilter> getSymbolFilter();
+
+    /**
+     * Fingerprint of the header closure and compiler arguments the inventory was listed for. The inventory is listed
+     * again on every run when absent.
+     *
+     * @return The inventory key
+     */
+    Property<String> getInventoryKey();
+
+    /**
+     * Directory caching the symbol inventory between runs.
+     *
+     * @return The inventory directory
+     */
+    DirectoryProperty getInventoryDirectory();
+
+    /**
+     * Record the declaration hashes of the generated symbols, so later runs can regenerate only changed symbols.
+     *
+     * @return Whether generation is incremental
+     */
+    Property<Boolean> getIncrementalGeneration();
+
+    /**
+     * Whether nothing but the headers changed since the last successful run. Only then the bindings in the output
+     * directory are updated symbol by symbol, otherwise they are generated from scratch.
+     *
+     * @return Whether only the headers changed
+     */
+    Property<Boolean> getOnlyHeadersChanged();
+}
@@ -0,0 +1,162 @@
+package de.timscho.jextract.internal.execution;
+
+import de.timscho.jextract.internal.generation.SymbolFilter;
+import de.timscho.jextract.internal.generation.SymbolInventory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Lists the symbols of the headers with {@code jextract --dump-includes} and selects the ones to generate, from
+ * within a work action. The inventory is cached and only listed again when its key changes.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class SymbolSelection {
+    private static final String DUMP_NAME = "includes.txt";
+    private static final String KEY_NAME = "key.txt";
+    private static final String SELECTION_NAME = "selected.args";
+
+    /**
+     * Returns the symbol inventory, from the cache or by running jextract.
+     *
+     * @param parameters The symbol parameters
+     * @param arguments The jextract arguments, without the launcher
+     * @param jextract Runs jextract with the given arguments
+     * @param logger The Gradle logger to use for logging.
+     * @return The symbol inventory
+     * @throws IOException If the inventory can not be read or cached
+     */
+    static SymbolInventory inventory(
+            final SymbolParameters parameters,
+            final List<String> arguments,
+            final Consumer<List<String>> jextract,
+            final Logger logger)
+            throws IOException {
+        final Path directory = parameters.getInventoryDirectory().get().getAsFile().toPath();
+        final Path dump = directory.resolve(SymbolSelection.DUMP_NAME);
+        final Path keyFile = directory.resolve(SymbolSelection.KEY_NAME);
+        final @Nullable String key = parameters.getInventoryKey().getOrNull();
+
+        if (key != null
+                && Files.exists(dump)
+                && Files.exists(keyFile)
+                && key.equals(Files.readString(keyFile, StandardCharsets.UTF_8).strip())) {
+            logger.info("Reusing symbol inventory {}", dump);
+            return SymbolInventory.parse(dump);
+        }
+
+        // The key is written last, so an interrupted listing is never reused
+        Files.createDirectories(directory);
+        Files.deleteIfExists(keyFile);
+        Files.deleteIfExists(dump);
+        final List<String> dumpArguments = new ArrayList<>(List.of("--dump-includes", dump.toString()));
+        dumpArguments.addAll(arguments);
+        jextract.accept(dumpArguments);
+
+        final SymbolInventory inventory = SymbolInventory.parse(dump);
+        if (key != null) {
+            Files.writeString(keyFile, key, StandardCharsets.UTF_8);
+        }
+        logger.info("Listed {} symbols into {}", inventory.symbols().size(), dump);
+        return inventory;
+    }
+
+    /**
+     * Returns the symbols selected by the configured filter, or all symbols of the inventory without a filter.
+     *
+     * @param parameters The symbol parameters
+     * @param arguments The jextract arguments, without the launcher
+     * @param jextract Runs jextract with the given arguments
+     * @param logger The Gradle logger to use for logging.
+     * @return The selected symbols
+     * @throws IOException If the inventory can not be read or cached
+     */
+    static SymbolInventory selection(
+            final SymbolParameters parameters,
+            final List<String> arguments,
+            final Consumer<List<String>> jextract,
+            final Logger logger)
+            throws IOException {
+        final SymbolInventory inventory = SymbolSelection.inventory(parameters, arguments, jextract, logger);
+        final @Nullable SymbolFilter filter = parameters.getSymbolFilter().getOrNull();
+        if (filter == null || filter.isEmpty()) {
+            return inventory;
+        }
+
+        final SymbolInventory selection = inventory.filter(filter);
+        if (selection.symbols().isEmpty()) {
+            throw new GradleException("The symbol filter matches no symbol of the headers");
+        }
+        return selection;
+    }
+
+    /**
+     * Writes the include arguments of the symbols selected by the configured filter into an argument file.
+     *
+     * @param parameters The symbol parameters
+     * @param arguments The jextract arguments, without the launcher
+     * @param jextract Runs jextract with the given arguments
+     * @param logger The Gradle logger to use for logging.
+     * @return The arguments to generate the selected symbols
+     * @throws IOException If the inventory or the argument file can not be read or written
+     */
+    static List<String> selectIfConfigured(
+            final SymbolParameters parameters,
+            final List<String> arguments,
+            final Consumer<List<String>> jextract,
+            final Logger logger)
+            throws IOException {
+        final @Nullable SymbolFilter filter = parameters.getSymbolFilter().getOrNull();
+        if (filter == null || filter.isEmpty()) {
+            return arguments;
+        }
+
+        final SymbolInventory selection = SymbolSelection.selection(parameters, arguments, jextract, logger);
+        final Path argFile =
+                parameters.getInventoryDirectory().get().getAsFile().toPath().resolve(SymbolSelection.SELECTION_NAME);
+        selection.write(argFile);
+        logger.info("Generating {} selected symbols", selection.symbols().size());
+        return SymbolSelection.withArgFile(arguments, argFile);
+    }
+
+    /**
+     * Inserts an argument file right before the header, which is always the last argument.
+     *
+     * @param arguments The jextract arguments
+     * @param argFile The argument file
+     * @return The extended arguments
+     */
+    @Contract(pure = true)
+    static List<String> withArgFile(final List<String> arguments, final Path argFile) {
+        final List<String> result = new ArrayList<>(arguments);
+        result.add(result.size() - 1, "@" + argFile);
+        return result;
+    }
+
+    /**
+     * Redirects the {@code --output} of the arguments.
+     *
+     * @param arguments The jextract arguments
+     * @param output The output directory to use instead
+     * @return The redirected arguments
+     */
+    @Contract(pure = true)
+    static List<String> withOutput(final List<String> arguments, final Path output) {
+        final List<String> result = new ArrayList<>(arguments);
+        final int outputIndex = result.indexOf("--output");
+        if (outputIndex >= 0) {
+            result.set(outputIndex + 1, output.toString());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+package de.timscho.jextract.internal.generation;
+
+import de.timscho.jextract.extension.CommentPolicy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.Builder;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Applies a {@link CommentPolicy} to generated sources.
+ *
+ * <p>Every file is streamed line by line through a small lexer, which only tells code, string and character literals,
+ * text blocks and comments apart, into a sibling file replacing the original. Unlike parsing and re-printing the
+ * sources, memory stays flat for header classes of any size and the code keeps jextract's formatting.
+ *
+ * <p>Lines only holding a removed comment are dropped. Shortened block comments start where the original comment
+ * started, the code following them stays on their last line.
+ */
+@Builder
+public final class CommentRewriter {
+    private final CommentPolicy policy;
+
+    /**
+     * Rewrites the comments of all Java sources of a directory.
+     *
+     * @param directory The directory holding the generated sources
+     * @return The number of rewritten files
+     * @throws IOException If a file can not be read or written
+     */
+    public int rewrite(final Path directory) throws IOException {
+        if (this.policy == CommentPolicy.KEEP) {
+            return 0;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(file -> Files.isRegularFile(file)
+                            && file.getFileName().toString().endsWith(".java"))
+                    .toList();
+        }
+
+        int rewritten = 0;
+        for (final Path file : files) {
+            if (this.rewriteFile(file)) {
+                rewritten++;
+            }
+        }
+        return rewritten;
+    }
+
+    private boolean rewriteFile(final Path file) throws IOException {
+        final Path partial = file.resolveSibling(file.getFileName() + ".part");
+        final boolean changed;
+        // ISO-8859-1 maps every byte to one character, so sources in any ASCII compatible encoding keep their bytes
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1);
+                BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.ISO_8859_1)) {
+            final Lexer lexer = new Lexer(this.policy, writer);
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lexer.line(line);
+            }
+            lexer.finish();
+            changed = lexer.changed;
+        }
+
+        if (changed) {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(partial);
+        }
+        return changed;
+    }
+
+    /**
+     * Shortens the text of a block comment, without its delimiters, to its first line of content. A snippet
+     * contributes its first line instead of its opening tag.
+     *
+     * @param text The text between the comment delimiters
+     * @return The summary escaped for Javadoc, or {@code null} if the comment has no content
+     */
+    @Contract(pure = true)
+    static @Nullable String summary(final String text) {
+        for (final String line : text.split("\n", -1)) {
+            String content = line.strip();
+            while (content.startsWith("*")) {
+                content = content.substring(1).strip();
+            }
+            if (content.isEmpty() || "}".equals(content) || content.startsWith("{@snippet")) {
+                continue;
+            }
+            return CommentRewriter.escape(content);
+        }
+        return null;
+    }
+
+    /**
+     * Escapes what Javadoc would read as markup, tags or inline tags.
+     */
+    private static String escape(final String content) {
+        final StringBuilder escaped = new StringBuilder(content.length());
+        for (int index = 0; index < content.length(); index++) {
+            final char current = content.charAt(index);
+            switch (current) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '{' -> escaped.append("&#123;");
+                case '}' -> escaped.append("&#125;");
+                case '@' -> escaped.append("&#64;");
+                default -> escaped.append(current);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Lexer state carried from line to line. Only block comments and text blocks span lines.
+     */
+    private static final class Lexer {
+        private final CommentPolicy policy;
+        private final Writer writer;
+
+        /**
+         * The output line, not written until the block comment it contains is closed.
+         */
+        private final StringBuilder pending = new StringBuilder();
+
+        private final StringBuilder comment = new StringBuilder();
+        private boolean inComment;
+        private boolean javadoc;
+        private boolean inTextBlock;
+        private boolean pendingHasComment;
+        private boolean changed;
+
+        Lexer(final CommentPolicy policy, final Writer writer) {
+            this.policy = policy;
+            this.writer = writer;
+        }
+
+        void line(final String line) throws IOException {
+            int index = 0;
+            if (this.inComment) {
+                this.comment.append('\n');
+            }
+
+            while (index < line.length()) {
+                if (this.inComment) {
+                    final int end = line.indexOf("*/", index);
+                    if (end < 0) {
+                        this.comment.append(line, index, line.length());
+                        index = line.length();
+                    } else {
+                        this.comment.append(line, index, end);
+                        this.closeComment();
+                        index = end + 2;
+                    }
+                } else if (this.inTextBlock) {
+                    index = this.copyTextBlock(line, index);
+                } else {
+                    index = this.code(line, index);
+                }
+            }
+
+            if (!this.inComment) {
+                this.flush(line);
+            }
+        }
+
+        void finish() throws IOException {
+            if (this.inComment) {
+                // Unterminated comment, keep it as it was
+                this.pending.append(this.javadoc ? "/**" : "/*").append(this.comment);
+                this.flush(null);
+            }
+        }
+
+        /**
+         * Copies code up to the next comment, literal or the end of the line.
+         *
+         * @return The index to continue at
+         */
+        private int code(final String line, final int start) {
+            int index = start;
+            while (index < line.length()) {
+                final char current = line.charAt(index);
+                if (line.startsWith("\"\"\"", index)) {
+                    this.pending.append("\"\"\"");
+                    this.inTextBlock = true;
+                    return index + 3;
+                }
+                if (current == '"' || current == '\'') {
+                    final int end = Lexer.literalEnd(line, index, current);
+                    this.pending.append(line, index, end);
+                    index = end;
+                } else if (line.startsWith("//", index)) {
+                    this.pendingHasComment = true;
+                    if (this.policy == CommentPolicy.SUMMARY) {
+                        this.pending.append(line, index, line.length());
+                    }
+                    return line.length();
+                } else if (line.startsWith("/*", index)) {
+                    this.inComment = true;
+                    this.pendingHasComment = true;
+                    this.javadoc = line.startsWith("/**", index) && !line.startsWith("/**/", index);
+                    this.comment.setLength(0);
+                    return index + (this.javadoc ? 3 : 2);
+                } else {
+                    this.pending.append(current);
+                    index++;
+                }
+            }
+            return index;
+        }
+
+        private int copyTextBlock(final String line, final int start) {
+            int index = start;
+            while (index < line.length()) {
+                if (line.charAt(index) == '\\') {
+                    index = Math.min(index + 2, line.length());
+                } else if (line.startsWith("\"\"\"", index)) {
+                    this.inTextBlock = false;
+                    index += 3;
+                    break;
+                } else {
+                    index++;
+                }
+            }
+            this.pending.append(line, start, index);
+            return index;
+        }
+
+        private void closeComment() {
+            this.inComment = false;
+            if (this.policy == CommentPolicy.SUMMARY && this.comment.indexOf("\n") < 0) {
+                // Already a single line, kept as it is so rewriting the previous bindings again changes nothing
+                this.pending.append(this.javadoc ? "/**" : "/*").append(this.comment).append("*/");
+            } else if (this.policy == CommentPolicy.SUMMARY) {
+                final @Nullable String summary = CommentRewriter.summary(this.comment.toString());
+                if (summary != null) {
+                    this.pending.append(this.javadoc ? "/** " : "/* ").append(summary).append(" */");
+                }
+            }
+        }
+
+        /**
+         * Writes the output line, dropping it if nothing but a removed comment was on it.
+         *
+         * @param original The input line, to find out whether it changed, or {@code null} if it spanned several lines
+         */
+        private void flush(final @Nullable String original) throws IOException {
+            final String output =
+                    this.pendingHasComment ? this.pending.toString().stripTrailing() : this.pending.toString();
+            if (!this.pendingHasComment || !output.isBlank()) {
+                this.writer.write(output);
+                this.writer.write('\n');
+            }
+            this.changed |= original == null || !output.equals(original) || this.pendingHasComment && output.isBlank();
+            this.pending.setLength(0);
+            this.pendingHasComment = false;
+        }
+
+        /**
+         * Finds the end of a string or character literal, or the end of the line for unterminated ones.
+         */
+        private static int literalEnd(final String line, final int start, final char quote) {
+            int index = start + 1;
+            while (index < line.length()) {
+                final char current = line.charAt(index);
+                if (current == '\\') {
+                    index += 2;
+                } else if (current == quote) {
+                    return index + 1;
+                } else {
+                    index++;
+                }
+            }
+            return line.length();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Publishes generated sources from a staging directory into the output directory by content.
+ *
+ * <p>Files with identical content are left untouched, keeping their timestamps, and files without counterpart in the
+ * staging directory are deleted. A small header change therefore only touches the bindings that actually changed,
+ * and incremental Java compilation only recompiles their dependents.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class GeneratedSourcePublisher {
+
+    /**
+     * Makes the output directory an exact copy of the staging directory.
+     *
+     * @param staging The directory holding the complete generated sources
+     * @param output The published output directory
+     * @return What changed in the output directory
+     * @throws IOException If a file can not be compared, copied or deleted
+     */
+    public static Result publish(final Path staging, final Path output) throws IOException {
+        final Set<Path> published = new HashSet<>();
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger unchanged = new AtomicInteger();
+        final AtomicInteger deleted = new AtomicInteger();
+
+        Files.createDirectories(output);
+        Files.walkFileTree(staging, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+                    throws IOException {
+                final Path relative = staging.relativize(file);
+                final Path target = output.resolve(relative);
+                published.add(relative);
+
+                if (Files.isRegularFile(target) && Files.mismatch(file, target) == -1L) {
+                    unchanged.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                written.incrementAndGet();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Files.walkFileTree(output, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+                    throws IOException {
+                if (!published.contains(output.relativize(file))) {
+                    Files.delete(file);
+                    deleted.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final @Nullable IOException exception)
+                    throws IOException {
+                if (exception != null) {
+                    throw exception;
+                }
+                if (!dir.equals(output)) {
+                    try (Stream<Path> entries = Files.list(dir)) {
+                        if (entries.findAny().isEmpty()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return new Result(written.get(), unchanged.get(), deleted.get());
+    }
+
+    /**
+     * Changes made while publishing.
+     *
+     * @param written Files created or overwritten
+     * @param unchanged Files left untouched
+     * @param deleted Files deleted
+     */
+    public record Result(int written, int unchanged, int deleted) {}
+}
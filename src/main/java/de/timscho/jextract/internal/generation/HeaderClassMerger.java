@@ -0,0 +1,253 @@
+package de.timscho.jextract.internal.generation;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.Builder;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Merges the outputs of sharded jextract runs into one package with a single header class.
+ *
+ * <p>jextract splits big header classes into a chain like {@code foo_h extends foo_h_1}, so no class exceeds the
+ * limits of the class file format. The members of the chain of another shard that are missing in the target chain are
+ * re-chained rather than added to one class: every class of the shard chain becomes a further link
+ * {@code foo_h_n} holding just its missing members, inserted right below {@code foo_h}. Everything shared, like
+ * layouts and helpers, is kept once at the root of the chain. All other generated files, e.g. struct classes, are
+ * identical in every shard and copied if missing.
+ *
+ * <p>The same merge updates existing bindings symbol by symbol: the stale bindings of changed symbols are removed
+ * first, then the output of a run generating just these symbols is merged.
+ */
+@Builder
+public final class HeaderClassMerger {
+    private final Path outputDirectory;
+    private final String targetPackage;
+    private final String headerClassName;
+    private final Logger logger;
+
+    /**
+     * Merges a shard output directory into the output directory.
+     *
+     * @param shardDirectory The output directory of the shard
+     * @throws IOException If a file can not be read or written
+     */
+    public void merge(final Path shardDirectory) throws IOException {
+        final Path packagePath = Path.of(this.targetPackage.replace('.', '/'));
+        final Path targetPackageDir = this.outputDirectory.resolve(packagePath);
+        final Path shardPackageDir = shardDirectory.resolve(packagePath);
+        final Pattern chainFile = Pattern.compile(Pattern.quote(this.headerClassName) + "(_\\d+)?\\.java");
+
+        final List<Path> shardChain = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(shardDirectory)) {
+            for (final Path file : files.filter(Files::isRegularFile).toList()) {
+                final boolean inPackage = shardPackageDir.equals(file.getParent());
+                if (inPackage && chainFile.matcher(file.getFileName().toString()).matches()) {
+                    shardChain.add(file);
+                    continue;
+                }
+
+                final Path target = this.outputDirectory.resolve(shardDirectory.relativize(file));
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+
+        // The walk order depends on the file system, the members must be merged in chain order on every machine
+        shardChain.sort(Comparator.comparingInt(file -> HeaderClassMerger.chainIndex(file, chainFile)));
+        this.mergeChain(targetPackageDir, shardChain, chainFile);
+    }
+
+    /**
+     * Removes the bindings of symbols from the output directory: their own files, like struct classes, and their
+     * members of the header class chain, like {@code foo}, {@code foo$descriptor} or the holder class {@code foo}.
+     *
+     * @param names The names of the symbols
+     * @throws IOException If a file can not be read, written or deleted
+     */
+    public void remove(final Set<String> names) throws IOException {
+        final Path targetPackageDir = this.outputDirectory.resolve(this.targetPackage.replace('.', '/'));
+        final Pattern chainFile = Pattern.compile(Pattern.quote(this.headerClassName) + "(_\\d+)?\\.java");
+
+        int removed = 0;
+        try (Stream<Path> files = Files.list(targetPackageDir)) {
+            for (final Path file : files.filter(Files::isRegularFile).toList()) {
+                final String fileName = file.getFileName().toString();
+                if (!chainFile.matcher(fileName).matches()) {
+                    if (names.contains(fileName.replaceFirst("\\.java$", ""))) {
+                        Files.delete(file);
+                        removed++;
+                    }
+                    continue;
+                }
+
+                final CompilationUnit unit = StaticJavaParser.parse(file);
+                final List<BodyDeclaration<?>> stale = HeaderClassMerger.primaryType(unit).getMembers().stream()
+                        .filter(member -> HeaderClassMerger.belongsTo(member, names))
+                        .toList();
+                if (!stale.isEmpty()) {
+                    stale.forEach(BodyDeclaration::remove);
+                    Files.writeString(file, unit.toString());
+                    removed += stale.size();
+                }
+            }
+        }
+        this.logger.info("Removed {} stale bindings from {}", removed, targetPackageDir);
+    }
+
+    private void mergeChain(final Path targetPackageDir, final List<Path> shardChain, final Pattern chainFile)
+            throws IOException {
+        final Set<String> existing = new HashSet<>();
+        int lastIndex = 0;
+        try (Stream<Path> files = Files.list(targetPackageDir)) {
+            for (final Path file : files.filter(file -> chainFile.matcher(file.getFileName().toString()).matches())
+                    .toList()) {
+                lastIndex = Math.max(lastIndex, HeaderClassMerger.chainIndex(file, chainFile));
+                HeaderClassMerger.primaryType(StaticJavaParser.parse(file))
+                        .getMembers()
+                        .forEach(member -> existing.add(HeaderClassMerger.key(member)));
+            }
+        }
+
+        // Links of the shard members, top down, each at most as big as the shard class it was taken from
+        final List<CompilationUnit> links = new ArrayList<>();
+        int added = 0;
+        for (final Path file : shardChain) {
+            final CompilationUnit link = StaticJavaParser.parse(file);
+            final TypeDeclaration<?> type = HeaderClassMerger.primaryType(link);
+            // Replaced as a whole, removing members one by one is quadratic in the size of the class
+            type.setMembers(new NodeList<>(type.getMembers().stream()
+                    .filter(member -> !(member instanceof ConstructorDeclaration)
+                            && existing.add(HeaderClassMerger.key(member)))
+                    .toList()));
+            if (type.getMembers().isNonEmpty()) {
+                links.add(link);
+                added += type.getMembers().size();
+            }
+        }
+
+        final Path headerFile = targetPackageDir.resolve(this.headerClassName + ".java");
+        if (links.isEmpty()) {
+            this.logger.info("No members missing in {}", headerFile);
+            return;
+        }
+
+        final CompilationUnit header = StaticJavaParser.parse(headerFile);
+        final ClassOrInterfaceDeclaration headerClass = HeaderClassMerger.chainClass(header);
+        if (headerClass.getExtendedTypes().stream()
+                .noneMatch(type -> chainFile.matcher(type.getNameAsString() + ".java").matches())) {
+            // A header class without chain holds the helpers all members use, they move below the new links
+            final CompilationUnit root = header.clone();
+            final ClassOrInterfaceDeclaration rootClass = HeaderClassMerger.chainClass(root);
+            rootClass.setMembers(new NodeList<>(rootClass.getMembers().stream()
+                    .filter(member -> !(member instanceof ConstructorDeclaration))
+                    .toList()));
+            headerClass.setMembers(new NodeList<>(headerClass.getMembers().stream()
+                    .filter(member -> member instanceof ConstructorDeclaration)
+                    .toList()));
+            links.add(root);
+        }
+
+        // Bottom up, every link extends the one below it, the lowest one what the header class extended
+        NodeList<ClassOrInterfaceType> below = new NodeList<>(headerClass.getExtendedTypes().stream()
+                .map(ClassOrInterfaceType::clone)
+                .toList());
+        for (int index = links.size() - 1; index >= 0; index--) {
+            final String name = this.headerClassName + "_" + (lastIndex + index + 1);
+            final ClassOrInterfaceDeclaration link = HeaderClassMerger.chainClass(links.get(index));
+            link.setName(name);
+            link.setExtendedTypes(below);
+            link.getMembers().addFirst(new ConstructorDeclaration(new NodeList<>(), name));
+            Files.writeString(targetPackageDir.resolve(name + ".java"), links.get(index).toString());
+            below = new NodeList<>(new ClassOrInterfaceType(null, name));
+        }
+        headerClass.setExtendedTypes(below);
+
+        Files.writeString(headerFile, header.toString());
+        this.logger.info("Merged {} members into {} new links below {}", added, links.size(), headerFile);
+    }
+
+    private static ClassOrInterfaceDeclaration chainClass(final CompilationUnit unit) {
+        if (HeaderClassMerger.primaryType(unit) instanceof final ClassOrInterfaceDeclaration type) {
+            return type;
+        }
+        throw new IllegalStateException("Header class chain contains no class");
+    }
+
+    /**
+     * Position of a file in the chain: 0 for the header class {@code foo_h}, n for {@code foo_h_n}.
+     */
+    private static int chainIndex(final Path file, final Pattern chainFile) {
+        final Matcher matcher = chainFile.matcher(file.getFileName().toString());
+        return matcher.matches() && matcher.group(1) != null ? Integer.parseInt(matcher.group(1).substring(1)) : 0;
+    }
+
+    private static TypeDeclaration<?> primaryType(final CompilationUnit unit) {
+        return unit.getPrimaryType()
+                .or(() -> unit.getTypes().getFirst())
+                .orElseThrow(() -> new IllegalStateException("No type declared in generated file"));
+    }
+
+    /**
+     * Whether a member of the header class chain is generated for one of the symbols.
+     */
+    private static boolean belongsTo(final BodyDeclaration<?> member, final Set<String> names) {
+        final List<String> memberNames = new ArrayList<>();
+        if (member instanceof final CallableDeclaration<?> callable) {
+            memberNames.add(callable.getNameAsString());
+        } else if (member instanceof final FieldDeclaration field) {
+            field.getVariables().forEach(variable -> memberNames.add(variable.getNameAsString()));
+        } else if (member instanceof final TypeDeclaration<?> type) {
+            memberNames.add(type.getNameAsString());
+        }
+
+        for (final String memberName : memberNames) {
+            final int separator = memberName.indexOf('$');
+            if (names.contains(separator < 0 ? memberName : memberName.substring(0, separator))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Identifies a member independent of the class of the chain it was generated into.
+     */
+    private static String key(final BodyDeclaration<?> member) {
+        if (member instanceof final CallableDeclaration<?> callable) {
+            return "callable:" + callable.getSignature().asString();
+        }
+        if (member instanceof final FieldDeclaration field) {
+            return "field:"
+                    + field.getVariables().stream()
+                            .map(variable -> variable.getNameAsString())
+                            .collect(Collectors.joining(","));
+        }
+        if (member instanceof final TypeDeclaration<?> type) {
+            return "type:" + type.getNameAsString();
+        }
+        return "other:" + member;
+    }
+}
@@ -0,0 +1,301 @@
+package de.timscho.jextract.internal.generation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Splits a header into its top-level declarations and finds the names each of them declares.
+ *
+ * <p>This is no C parser: it works on the token stream of {@link HeaderFingerprint#normalize(String)} and knows just
+ * enough of the declarator syntax to attribute prototypes, variables, typedefs, tags, enumerators and object-like
+ * macros to their names. Declarations it can not attribute simply declare nothing.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class HeaderDeclarations {
+    private static final Set<String> KEYWORDS = Set.of(
+            "auto", "char", "const", "double", "enum", "extern", "float", "inline", "int", "long", "register",
+            "restrict", "short", "signed", "static", "struct", "typedef", "union", "unsigned", "void", "volatile",
+            "_Bool", "_Complex", "_Noreturn", "_Thread_local", "__inline", "__inline__", "__restrict",
+            "__restrict__", "__extension__", "__cdecl", "__stdcall");
+    private static final Set<String> ATTRIBUTES =
+            Set.of("__attribute__", "__declspec", "__asm__", "__asm", "asm", "_Alignas", "alignas");
+    private static final Set<String> DECLARATOR_ENDS = Set.of("(", "[", ";", "=", ",", ":");
+    private static final String MACRO_SPACE = " ";
+
+    /**
+     * Splits C source into its top-level declarations.
+     *
+     * @param source The C source
+     * @return The declarations in source order
+     */
+    @Contract(pure = true)
+    static List<Declaration> parse(final String source) {
+        final List<Declaration> declarations = new ArrayList<>();
+        final List<String> current = new ArrayList<>();
+        final List<String> directive = new ArrayList<>();
+        // true for the transparent braces of extern "C" blocks
+        final Deque<Boolean> braces = new ArrayDeque<>();
+        boolean inDirective = false;
+        boolean functionBody = false;
+        int depth = 0;
+
+        for (final String token : HeaderDeclarations.tokenize(HeaderFingerprint.normalize(source))) {
+            if (HeaderDeclarations.MACRO_SPACE.equals(token)) {
+                if (inDirective) {
+                    directive.add(token);
+                }
+            } else if (inDirective) {
+                if (!"\n".equals(token)) {
+                    directive.add(token);
+                    continue;
+                }
+                inDirective = false;
+                if (depth == 0) {
+                    declarations.add(HeaderDeclarations.directive(directive));
+                } else {
+                    current.addAll(directive);
+                    current.add(token);
+                }
+                directive.clear();
+            } else if ("#".equals(token)) {
+                inDirective = true;
+                directive.add(token);
+            } else if ("{".equals(token)) {
+                if (depth == 0 && current.equals(List.of("extern", "\"C\""))) {
+                    braces.push(true);
+                    current.clear();
+                    continue;
+                }
+                if (depth == 0) {
+                    functionBody = !current.isEmpty() && ")".equals(current.getLast());
+                }
+                braces.push(false);
+                depth++;
+                current.add(token);
+            } else if ("}".equals(token)) {
+                if (braces.isEmpty() || braces.pop()) {
+                    continue;
+                }
+                depth--;
+                current.add(token);
+                if (depth == 0 && functionBody) {
+                    declarations.add(HeaderDeclarations.declaration(current));
+                    current.clear();
+                }
+            } else {
+                current.add(token);
+                if (depth == 0 && ";".equals(token)) {
+                    declarations.add(HeaderDeclarations.declaration(current));
+                    current.clear();
+                }
+            }
+        }
+        if (!directive.isEmpty()) {
+            declarations.add(HeaderDeclarations.directive(directive));
+        }
+        if (!current.isEmpty()) {
+            declarations.add(HeaderDeclarations.declaration(current));
+        }
+        return declarations;
+    }
+
+    private static Declaration directive(final List<String> directive) {
+        final Set<String> declared = new LinkedHashSet<>();
+        // Only object-like macros become constants, function-like ones are directly followed by a parenthesis
+        if (directive.size() > 2
+                && "define".equals(directive.get(1))
+                && (directive.size() == 3 || !"(".equals(directive.get(3)))) {
+            declared.add(directive.get(2));
+        }
+
+        final List<String> tokens = directive.stream()
+                .filter(token -> !HeaderDeclarations.MACRO_SPACE.equals(token))
+                .toList();
+        return new Declaration(String.join(" ", tokens), Set.copyOf(declared), HeaderDeclarations.identifiers(tokens));
+    }
+
+    private static Declaration declaration(final List<String> tokens) {
+        final Set<String> declared = new LinkedHashSet<>();
+        final List<String> outer = new ArrayList<>();
+        int depth = 0;
+        for (int index = 0; index < tokens.size(); index++) {
+            final String token = tokens.get(index);
+            if ("{".equals(token)) {
+                if (depth == 0) {
+                    HeaderDeclarations.declareTagAndEnumerators(tokens, index, declared);
+                }
+                depth++;
+            } else if ("}".equals(token)) {
+                depth--;
+            } else if (depth == 0) {
+                outer.add(token);
+            }
+        }
+
+        // Every top-level comma starts another declarator of the same declaration
+        int start = 0;
+        int parentheses = 0;
+        for (int index = 0; index < outer.size(); index++) {
+            final String token = outer.get(index);
+            if ("(".equals(token)) {
+                parentheses++;
+            } else if (")".equals(token)) {
+                parentheses--;
+            } else if (parentheses == 0 && (",".equals(token) || ";".equals(token))) {
+                HeaderDeclarations.declareDeclarator(outer.subList(start, index), declared);
+                start = index + 1;
+            }
+        }
+        if (start < outer.size()) {
+            HeaderDeclarations.declareDeclarator(outer.subList(start, outer.size()), declared);
+        }
+        return new Declaration(String.join(" ", tokens), Set.copyOf(declared), HeaderDeclarations.identifiers(tokens));
+    }
+
+    /**
+     * Declares the tag of {@code struct tag {}} and, for enums, the enumerators of the body starting at
+     * {@code open}.
+     */
+    private static void declareTagAndEnumerators(
+            final List<String> tokens, final int open, final Set<String> declared) {
+        String kind = open > 0 ? tokens.get(open - 1) : "";
+        if (open > 1 && HeaderDeclarations.isIdentifier(kind)) {
+            declared.add(kind);
+            kind = tokens.get(open - 2);
+        }
+        if (!"enum".equals(kind)) {
+            return;
+        }
+
+        int depth = 0;
+        for (int index = open; index < tokens.size(); index++) {
+            final String token = tokens.get(index);
+            if ("{".equals(token) || "(".equals(token)) {
+                depth++;
+            } else if ("}".equals(token) || ")".equals(token)) {
+                depth--;
+                if (depth == 0) {
+                    return;
+                }
+            } else if (depth == 1 && HeaderDeclarations.isIdentifier(token)) {
+                final String previous = tokens.get(index - 1);
+                if ("{".equals(previous) || ",".equals(previous)) {
+                    declared.add(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Declares the name of a single declarator, like {@code int *name[4]} or {@code void (*name)(int)}.
+     */
+    private static void declareDeclarator(final List<String> tokens, final Set<String> declared) {
+        @Nullable String name = null;
+        int index = 0;
+        while (index < tokens.size()) {
+            final String token = tokens.get(index);
+            if (HeaderDeclarations.ATTRIBUTES.contains(token)) {
+                index = HeaderDeclarations.skipGroup(tokens, index + 1);
+                continue;
+            }
+            if ("(".equals(token) && index + 1 < tokens.size() && "*".equals(tokens.get(index + 1))) {
+                // Pointer to function or array, the name follows the stars
+                int nameIndex = index + 1;
+                while (nameIndex < tokens.size() && !HeaderDeclarations.isIdentifier(tokens.get(nameIndex))) {
+                    nameIndex++;
+                }
+                name = nameIndex < tokens.size() ? tokens.get(nameIndex) : null;
+                break;
+            }
+            if (HeaderDeclarations.DECLARATOR_ENDS.contains(token)) {
+                break;
+            }
+            if (HeaderDeclarations.isIdentifier(token)) {
+                name = token;
+            }
+            index++;
+        }
+        if (name != null) {
+            declared.add(name);
+        }
+    }
+
+    private static int skipGroup(final List<String> tokens, final int open) {
+        if (open >= tokens.size() || !"(".equals(tokens.get(open))) {
+            return open;
+        }
+        int depth = 0;
+        for (int index = open; index < tokens.size(); index++) {
+            if ("(".equals(tokens.get(index))) {
+                depth++;
+            } else if (")".equals(tokens.get(index)) && --depth == 0) {
+                return index + 1;
+            }
+        }
+        return tokens.size();
+    }
+
+    private static Set<String> identifiers(final List<String> tokens) {
+        final Set<String> identifiers = new LinkedHashSet<>();
+        for (final String token : tokens) {
+            if (HeaderDeclarations.isIdentifier(token)) {
+                identifiers.add(token);
+            }
+        }
+        return Set.copyOf(identifiers);
+    }
+
+    private static boolean isIdentifier(final String token) {
+        final char first = token.charAt(0);
+        return (Character.isLetter(first) || first == '_') && !HeaderDeclarations.KEYWORDS.contains(token);
+    }
+
+    private static List<String> tokenize(final String normalized) {
+        final List<String> tokens = new ArrayList<>();
+        final int length = normalized.length();
+        int index = 0;
+        while (index < length) {
+            final char current = normalized.charAt(index);
+            int end = index + 1;
+            if (current == ' ') {
+                // Only significant between a macro name and a parenthesis, see HeaderFingerprint
+                if (index + 1 < length && normalized.charAt(index + 1) == '(') {
+                    tokens.add(HeaderDeclarations.MACRO_SPACE);
+                }
+                index++;
+                continue;
+            }
+            if (current == '"' || current == '\'') {
+                while (end < length && normalized.charAt(end) != current && normalized.charAt(end) != '\n') {
+                    end += normalized.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+            } else if (Character.isLetterOrDigit(current) || current == '_') {
+                while (end < length
+                        && (Character.isLetterOrDigit(normalized.charAt(end)) || normalized.charAt(end) == '_')) {
+                    end++;
+                }
+            }
+            tokens.add(normalized.substring(index, end));
+            index = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * A single top-level declaration or preprocessor directive.
+     *
+     * @param text The normalized tokens of the declaration
+     * @param declared The names declared by it
+     * @param identifiers All identifiers it mentions, excluding keywords
+     */
+    record Declaration(String text, Set<String> declared, Set<String> identifiers) {}
+}
@@ -0,0 +1,154 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Fingerprints headers by their token stream, so edits to comments, whitespace or line layout keep the fingerprint.
+ *
+ * <p>Comments are dropped and line continuations are joined. Whitespace is kept only where it separates tokens that
+ * would otherwise merge, like two identifiers or {@code + +}, and between a macro name and a parenthesis, which makes
+ * the difference between function-like and object-like macros. Line breaks only end preprocessor directives, so they
+ * are kept there.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class HeaderFingerprint {
+    private static final char SEPARATOR = '\u0000';
+    private static final String OPERATOR_STARTS = "+-*/%<>=!&|^.#:";
+    private static final String OPERATOR_CONTINUATIONS = "+-=<>&|.#:";
+
+    /**
+     * Computes the fingerprint of headers together with everything else influencing the generated bindings.
+     *
+     * @param headers The headers, including every header they include
+     * @param context Other inputs of the generation, e.g. the jextract arguments and defines
+     * @return The SHA-256 fingerprint in hex
+     * @throws IOException If a header can not be read
+     */
+    public static String compute(final List<File> headers, final List<String> context) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 not supported", exception);
+        }
+
+        for (final String value : context) {
+            digest.update((value + HeaderFingerprint.SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        }
+        for (final File header : headers) {
+            // The path decides how includes resolve, the tokens what jextract sees
+            digest.update((header.getAbsolutePath() + HeaderFingerprint.SEPARATOR).getBytes(StandardCharsets.UTF_8));
+            final String source = Files.readString(header.toPath(), StandardCharsets.ISO_8859_1);
+            digest.update(HeaderFingerprint.normalize(source).getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Reduces C source to its tokens, separated by a single space where the separation is significant.
+     *
+     * @param source The C source
+     * @return The normalized token stream
+     */
+    @Contract(pure = true)
+    static String normalize(final String source) {
+        final String text = source.replace("\\\r\n", "").replace("\\\n", "");
+        final StringBuilder tokens = new StringBuilder(text.length() / 2);
+        final int length = text.length();
+        boolean directive = false;
+        boolean lineStart = true;
+        boolean spaced = true;
+        char previous = ' ';
+
+        int index = 0;
+        while (index < length) {
+            final char current = text.charAt(index);
+            final char next = index + 1 < length ? text.charAt(index + 1) : '\0';
+
+            if (current == '\n') {
+                if (directive) {
+                    tokens.append('\n');
+                }
+                directive = false;
+                lineStart = true;
+                spaced = true;
+                index++;
+            } else if (Character.isWhitespace(current)) {
+                spaced = true;
+                index++;
+            } else if (current == '/' && next == '/') {
+                index = HeaderFingerprint.indexOrEnd(text, "\n", index);
+            } else if (current == '/' && next == '*') {
+                final int end = text.indexOf("*/", index + 2);
+                index = end < 0 ? length : end + 2;
+                spaced = true;
+            } else {
+                final int end = HeaderFingerprint.tokenEnd(text, index);
+                if (lineStart && current == '#') {
+                    directive = true;
+                }
+                final boolean macroParameters = directive && current == '(' && HeaderFingerprint.isWord(previous);
+                final boolean significant = HeaderFingerprint.wouldMerge(previous, current) || macroParameters;
+                if (spaced && significant && !tokens.isEmpty() && tokens.charAt(tokens.length() - 1) != '\n') {
+                    tokens.append(' ');
+                }
+                tokens.append(text, index, end);
+                lineStart = false;
+                spaced = false;
+                previous = text.charAt(end - 1);
+                index = end;
+            }
+        }
+        return tokens.toString();
+    }
+
+    private static int tokenEnd(final String text, final int start) {
+        final char first = text.charAt(start);
+        if (first == '"' || first == '\'') {
+            int index = start + 1;
+            while (index < text.length() && text.charAt(index) != first && text.charAt(index) != '\n') {
+                index += text.charAt(index) == '\\' ? 2 : 1;
+            }
+            return Math.min(index + 1, text.length());
+        }
+        if (HeaderFingerprint.isWord(first)) {
+            int index = start + 1;
+            while (index < text.length() && HeaderFingerprint.isWord(text.charAt(index))) {
+                index++;
+            }
+            return index;
+        }
+        return start + 1;
+    }
+
+    /**
+     * Whether two tokens written without whitespace would lex differently, e.g. two identifiers or {@code + +}.
+     */
+    private static boolean wouldMerge(final char previous, final char current) {
+        if (HeaderFingerprint.isWord(previous) || HeaderFingerprint.isWord(current)) {
+            return HeaderFingerprint.isWord(previous)
+                    && (HeaderFingerprint.isWord(current) || current == '"' || current == '\'');
+        }
+        return HeaderFingerprint.OPERATOR_STARTS.indexOf(previous) >= 0
+                && HeaderFingerprint.OPERATOR_CONTINUATIONS.indexOf(current) >= 0;
+    }
+
+    private static boolean isWord(final char character) {
+        return Character.isLetterOrDigit(character) || character == '_';
+    }
+
+    private static int indexOrEnd(final String text, final String needle, final int from) {
+        final int index = text.indexOf(needle, from);
+        return index < 0 ? text.length() : index;
+    }
+}
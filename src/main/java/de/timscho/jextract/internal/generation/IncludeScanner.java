@@ -0,0 +1,143 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Computes the transitive {@code #include} closure of headers, without running the preprocessor.
+ *
+ * <p>Every include directive is followed, regardless of surrounding conditionals, so the closure may contain
+ * headers the compiler would skip but never misses one it reads. Includes that do not resolve, like system headers
+ * outside the include directories or includes through macros, are ignored.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IncludeScanner {
+    private static final Pattern INCLUDE_DIRECTIVE = Pattern.compile("^\\s*#\\s*include\\s*([\"<])([^\">]+)[\">]");
+
+    /**
+     * Scans the headers and everything they include.
+     *
+     * @param headers The top-level headers
+     * @param includeDirs The include directories, in search order
+     * @return The included headers, without the top-level headers
+     */
+    public static Set<File> scan(final List<File> headers, final List<File> includeDirs) {
+        final Set<Path> visited = new LinkedHashSet<>();
+        final Deque<Path> pending = new ArrayDeque<>();
+        for (final File header : headers) {
+            final Path path = header.toPath().toAbsolutePath().normalize();
+            if (visited.add(path)) {
+                pending.add(path);
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            final Path header = pending.poll();
+            for (final Path included : IncludeScanner.includesOf(header, includeDirs)) {
+                if (visited.add(included)) {
+                    pending.add(included);
+                }
+            }
+        }
+
+        final Set<File> closure = new LinkedHashSet<>();
+        for (final Path path : visited) {
+            closure.add(path.toFile());
+        }
+        headers.forEach(header -> closure.remove(header.toPath().toAbsolutePath().normalize().toFile()));
+        return closure;
+    }
+
+    /**
+     * Extracts the include directories from compiler arguments, i.e. {@code -I dir}, {@code -Idir} and
+     * {@code --include-dir dir}. Relative directories are resolved against the base directory.
+     *
+     * @param compilerArgs The compiler arguments passed to jextract
+     * @param baseDir The directory jextract runs in
+     * @return The include directories, in search order
+     */
+    @Contract(pure = true)
+    public static List<File> includeDirs(final List<String> compilerArgs, final File baseDir) {
+        final List<File> includeDirs = new ArrayList<>();
+        for (int index = 0; index < compilerArgs.size(); index++) {
+            final String argument = compilerArgs.get(index);
+            final @Nullable String dir;
+            if (("-I".equals(argument) || "--include-dir".equals(argument)) && index + 1 < compilerArgs.size()) {
+                dir = compilerArgs.get(++index);
+            } else if (argument.startsWith("-I") && argument.length() > 2) {
+                dir = argument.substring(2);
+            } else {
+                dir = null;
+            }
+
+            if (dir != null) {
+                final File file = new File(dir);
+                includeDirs.add(file.isAbsolute() ? file : new File(baseDir, dir));
+            }
+        }
+        return includeDirs;
+    }
+
+    private static List<Path> includesOf(final Path header, final List<File> includeDirs) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(header, StandardCharsets.ISO_8859_1);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Failed to scan includes of " + header, exception);
+        }
+
+        final List<Path> includes = new ArrayList<>();
+        for (final String line : lines) {
+            final Matcher matcher = IncludeScanner.INCLUDE_DIRECTIVE.matcher(line);
+            if (!matcher.find()) {
+                continue;
+            }
+
+            final boolean quoted = "\"".equals(matcher.group(1));
+            final @Nullable Path resolved = IncludeScanner.resolve(header, matcher.group(2), quoted, includeDirs);
+            if (resolved != null) {
+                includes.add(resolved);
+            }
+        }
+        return includes;
+    }
+
+    /**
+     * Resolves like clang: quoted includes are looked up next to the including header first, then both forms in
+     * the include directories.
+     */
+    private static @Nullable Path resolve(
+            final Path header, final String name, final boolean quoted, final List<File> includeDirs) {
+        if (quoted) {
+            final @Nullable Path parent = header.getParent();
+            final Path sibling = parent != null ? parent.resolve(name) : Path.of(name);
+            if (Files.isRegularFile(sibling)) {
+                return sibling.toAbsolutePath().normalize();
+            }
+        }
+
+        for (final File includeDir : includeDirs) {
+            final Path candidate = includeDir.toPath().resolve(name);
+            if (Files.isRegularFile(candidate)) {
+                return candidate.toAbsolutePath().normalize();
+            }
+        }
+        return null;
+    }
+}
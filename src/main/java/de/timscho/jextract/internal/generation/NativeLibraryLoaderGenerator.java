@@ -26,6 +26,7 @@ import com.github.javaparser.ast.stmt.ThrowStmt;
 import com.github.javaparser.ast.stmt.TryStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.PrimitiveType;
+import de.timscho.jextract.extension.ExtractionBase;
 import de.timscho.jextract.extension.NativeLibraryLoadingConfig;
 import java.io.IOException;
 import java.io.InputStream;
@@ -37,6 +38,7 @@ import org.jetbrains.annotations.Contract;
 @Builder
 public final class NativeLibraryLoaderGenerator {
     private static final String LOADER_METHOD_NAME = "load";
+    private static final String EXTRACTION_PATH = "jextract-natives";
 
     private final String targetPackage;
     private final String headerClassName;
@@ -123,7 +125,7 @@ public final class NativeLibraryLoaderGenerator {
                 "resourcePath",
                 new MethodCallExpr(
                         "expandResourcePath",
-                        new StringLiteralExpr(this.config.getResourcePath().get())));
+                        new StringLiteralExpr().setString(this.config.getResourcePath().get())));
         final VariableDeclarationExpr resourcePathDecl = new VariableDeclarationExpr(
                 new NodeList<>(new com.github.javaparser.ast.Modifier(Modifier.Keyword.FINAL)),
                 new NodeList<>(resourcePathVar));
@@ -320,22 +322,21 @@ public final class NativeLibraryLoaderGenerator {
         final BlockStmt extractBody = getExtractionDir.getBody().get();
 
         if (this.config.getExtractionDir().isPresent()) {
-            extractBody.addStatement(
-                    StaticJavaParser.parseStatement("final java.nio.file.Path configuredDir = java.nio.file.Path.of(\""
-                            + this.config
-                                    .getExtractionDir()
-                                    .get()
-                                    .getAsFile()
-                                    .getAbsolutePath()
-                                    .replace("\\", "\\\\") + "\");"));
+            final String directory = this.config.getExtractionDir().get().getAsFile().getAbsolutePath();
+            extractBody.addStatement(StaticJavaParser.parseStatement(
+                    "final java.nio.file.Path configuredDir = java.nio.file.Path.of("
+                            + NativeLibraryLoaderGenerator.literal(directory) + ");"));
             extractBody.addStatement(
                     StaticJavaParser.parseStatement("java.nio.file.Files.createDirectories(configuredDir);"));
             extractBody.addStatement(StaticJavaParser.parseStatement("return configuredDir;"));
         } else {
-            extractBody.addStatement(
-                    StaticJavaParser.parseStatement("final String tmpDir = System.getProperty(\"java.io.tmpdir\");"));
+            final ExtractionBase base = this.config.getExtractionBase().getOrElse(ExtractionBase.TEMP);
+            final String path = this.config.getExtractionPath().getOrElse(NativeLibraryLoaderGenerator.EXTRACTION_PATH);
             extractBody.addStatement(StaticJavaParser.parseStatement(
-                    "final java.nio.file.Path extractDir = java.nio.file.Path.of(tmpDir, \"jextract-natives\");"));
+                    "final String baseDir = System.getProperty(\"" + base.getSystemProperty() + "\");"));
+            extractBody.addStatement(StaticJavaParser.parseStatement(
+                    "final java.nio.file.Path extractDir = java.nio.file.Path.of(baseDir, "
+                            + NativeLibraryLoaderGenerator.literal(path) + ");"));
             extractBody.addStatement(
                     StaticJavaParser.parseStatement("java.nio.file.Files.createDirectories(extractDir);"));
             extractBody.addStatement(StaticJavaParser.parseStatement("return extractDir;"));
@@ -445,6 +446,15 @@ public final class NativeLibraryLoaderGenerator {
         hashBody.addStatement(tryHash);
     }
 
+    /**
+     * Java source of a string literal holding the given value, with quotes, backslashes and control characters
+     * escaped.
+     */
+    @Contract(pure = true)
+    private static String literal(final String value) {
+        return new StringLiteralExpr().setString(value).toString();
+    }
+
     private Path createPackageDirectory() throws IOException {
         final String[] packageParts = this.targetPackage.split("\\.");
         Path current = this.outputDirectory;
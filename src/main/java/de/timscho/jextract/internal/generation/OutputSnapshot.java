@@ -0,0 +1,60 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.Builder;
+import org.gradle.api.file.FileSystemOperations;
+
+/**
+ * Copy of the bindings of the last successful generation, together with the fingerprint of its inputs.
+ *
+ * <p>The fingerprint is written after the copy and deleted before it is replaced, so a snapshot without fingerprint
+ * is incomplete and never restored.
+ */
+@Builder
+public final class OutputSnapshot {
+    private static final String FINGERPRINT_NAME = "fingerprint.txt";
+    private static final String OUTPUT_NAME = "output";
+
+    private final Path snapshotDirectory;
+    private final Path outputDirectory;
+    private final FileSystemOperations fs;
+
+    /**
+     * Restores the bindings into the output directory if they were generated from inputs with the same fingerprint.
+     *
+     * @param fingerprint The fingerprint of the current inputs
+     * @return Whether the bindings were restored
+     * @throws IOException If the fingerprint can not be read
+     */
+    public boolean restoreIfUnchanged(final String fingerprint) throws IOException {
+        final Path fingerprintFile = this.snapshotDirectory.resolve(OutputSnapshot.FINGERPRINT_NAME);
+        if (!Files.exists(fingerprintFile)
+                || !fingerprint.equals(Files.readString(fingerprintFile, StandardCharsets.UTF_8).strip())) {
+            return false;
+        }
+
+        GeneratedSourcePublisher.publish(
+                this.snapshotDirectory.resolve(OutputSnapshot.OUTPUT_NAME), this.outputDirectory);
+        return true;
+    }
+
+    /**
+     * Replaces the snapshot with the current content of the output directory.
+     *
+     * @param fingerprint The fingerprint of the inputs the output was generated from
+     * @throws IOException If the snapshot can not be written
+     */
+    public void save(final String fingerprint) throws IOException {
+        final Path fingerprintFile = this.snapshotDirectory.resolve(OutputSnapshot.FINGERPRINT_NAME);
+        Files.deleteIfExists(fingerprintFile);
+
+        this.fs.sync(spec -> {
+            spec.from(this.outputDirectory);
+            spec.into(this.snapshotDirectory.resolve(OutputSnapshot.OUTPUT_NAME));
+        });
+        Files.writeString(fingerprintFile, fingerprint, StandardCharsets.UTF_8);
+    }
+}
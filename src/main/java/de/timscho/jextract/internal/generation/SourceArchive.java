@@ -0,0 +1,69 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Packs generated sources into a single zip archive, so the build cache stores and transfers one file instead of a
+ * tree of thousands of small ones.
+ *
+ * <p>The archive is reproducible: entries are sorted by path and carry a constant timestamp, so identical sources
+ * always produce an identical archive.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SourceArchive {
+    /**
+     * Timestamp of all entries, the same constant Gradle uses for reproducible archives. Zip entries store local
+     * time, so the constant is local as well and the stored fields are identical in every time zone.
+     */
+    private static final long ENTRY_TIME =
+            new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+
+    /**
+     * Packs all files of a directory into an archive, replacing it atomically.
+     *
+     * @param directory The directory to pack
+     * @param archive The archive to write
+     * @throws IOException If a file can not be read or the archive can not be written
+     */
+    public static void write(final Path directory, final Path archive) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile)
+                    .sorted((first, second) -> SourceArchive.entryName(directory, first)
+                            .compareTo(SourceArchive.entryName(directory, second)))
+                    .toList();
+        }
+
+        Files.createDirectories(archive.toAbsolutePath().getParent());
+        final Path partial = archive.resolveSibling(archive.getFileName() + ".part");
+        try (OutputStream out = Files.newOutputStream(partial);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(Deflater.BEST_SPEED);
+            for (final Path file : files) {
+                final ZipEntry entry = new ZipEntry(SourceArchive.entryName(directory, file));
+                entry.setTime(SourceArchive.ENTRY_TIME);
+                zip.putNextEntry(entry);
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+        }
+        Files.move(partial, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String entryName(final Path directory, final Path file) {
+        return directory.relativize(file).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,132 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import lombok.Builder;
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Rewrites generated sources so the same inputs produce the same bytes on every machine.
+ *
+ * <p>Line endings become {@code \n}, whatever platform jextract or the Java printers ran on, and absolute paths below
+ * the root directory in comments, e.g. of headers quoted in C snippets, become relative to it. String literals are
+ * left alone, paths there, like library paths, are meant to be absolute. Files still mentioning the root afterwards
+ * are reported instead.
+ *
+ * <p>Files are processed as ISO-8859-1, which maps every byte to one character, so sources in any ASCII compatible
+ * encoding keep their bytes.
+ */
+@Builder
+public final class SourceNormalizer {
+    private final Path root;
+
+    /**
+     * Normalizes all Java sources of a directory, rewriting only the files that changed.
+     *
+     * @param directory The directory holding the generated sources
+     * @return What was rewritten and what is still machine specific
+     * @throws IOException If a file can not be read or written
+     */
+    public Result normalize(final Path directory) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(file -> Files.isRegularFile(file)
+                            && file.getFileName().toString().endsWith(".java"))
+                    .sorted()
+                    .toList();
+        }
+
+        final Set<String> prefixes = this.rootPrefixes();
+        int rewritten = 0;
+        final List<Path> machineSpecific = new ArrayList<>();
+        for (final Path file : files) {
+            final String source = Files.readString(file, StandardCharsets.ISO_8859_1);
+            final String normalized = SourceNormalizer.normalize(source, prefixes);
+            if (!normalized.equals(source)) {
+                Files.writeString(file, normalized, StandardCharsets.ISO_8859_1);
+                rewritten++;
+            }
+            if (prefixes.stream().anyMatch(normalized::contains)) {
+                machineSpecific.add(directory.relativize(file));
+            }
+        }
+        return new Result(rewritten, List.copyOf(machineSpecific));
+    }
+
+    /**
+     * Normalizes the line endings and the paths in comments of a single source.
+     *
+     * @param source The source, decoded as ISO-8859-1
+     * @param prefixes The root directory followed by a separator, as written on this platform
+     * @return The normalized source
+     */
+    @Contract(pure = true)
+    static String normalize(final String source, final Set<String> prefixes) {
+        final StringBuilder normalized = new StringBuilder(source.length());
+        final int length = source.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && source.charAt(end) != '\n' && source.charAt(end) != '\r') {
+                end++;
+            }
+
+            final String line = source.substring(start, end);
+            normalized.append(SourceNormalizer.isComment(line) ? SourceNormalizer.relativize(line, prefixes) : line);
+            if (end < length) {
+                normalized.append('\n');
+                end += source.startsWith("\r\n", end) ? 2 : 1;
+            }
+            start = end;
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isComment(final String line) {
+        final String trimmed = line.stripLeading();
+        return trimmed.startsWith("*") || trimmed.startsWith("//") || trimmed.startsWith("/*");
+    }
+
+    private static String relativize(final String line, final Set<String> prefixes) {
+        String relative = line;
+        for (final String prefix : prefixes) {
+            relative = relative.replace(prefix, "");
+        }
+        return relative;
+    }
+
+    /**
+     * The root with a trailing separator, as native path and, on Windows, also with forward slashes. Empty for a file
+     * system root, which would match every absolute path.
+     */
+    private Set<String> rootPrefixes() {
+        final Path absolute = this.root.toAbsolutePath().normalize();
+        if (absolute.getNameCount() == 0) {
+            return Set.of();
+        }
+
+        // Encoded like the sources, so non-ASCII characters of the path match byte by byte
+        final String path =
+                new String(absolute.toString().getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+        final Set<String> prefixes = new LinkedHashSet<>();
+        prefixes.add(path + File.separator);
+        prefixes.add(path.replace('\\', '/') + "/");
+        return prefixes;
+    }
+
+    /**
+     * Outcome of a normalization.
+     *
+     * @param rewritten Number of rewritten files
+     * @param machineSpecific Files still containing absolute paths below the root, relative to the directory
+     */
+    public record Result(int rewritten, List<Path> machineSpecific) {}
+}
@@ -0,0 +1,74 @@
+package de.timscho.jextract.internal.generation;
+
+import de.timscho.jextract.extension.SymbolKind;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Immutable form of a symbol filter, passed to work actions.
+ *
+ * @param includeNames Patterns a name must match one of, or empty for all names
+ * @param excludeNames Patterns a name must match none of
+ * @param headers Patterns the declaring header must match one of, or empty for all headers
+ * @param kinds Kinds to keep, or empty for all kinds
+ */
+public record SymbolFilter(
+        List<String> includeNames, List<String> excludeNames, List<String> headers, Set<SymbolKind> kinds)
+        implements Serializable {
+
+    /**
+     * Whether the filter keeps every symbol.
+     *
+     * @return Whether no criterion is configured
+     */
+    @Contract(pure = true)
+    public boolean isEmpty() {
+        return this.includeNames.isEmpty()
+                && this.excludeNames.isEmpty()
+                && this.headers.isEmpty()
+                && this.kinds.isEmpty();
+    }
+
+    /**
+     * Compiles the filter into a predicate.
+     *
+     * @return The matcher
+     */
+    @Contract(pure = true)
+    Matcher compile() {
+        return new Matcher(
+                SymbolFilter.compileAll(this.includeNames),
+                SymbolFilter.compileAll(this.excludeNames),
+                SymbolFilter.compileAll(this.headers),
+                this.kinds);
+    }
+
+    private static List<Pattern> compileAll(final List<String> patterns) {
+        return patterns.stream().map(Pattern::compile).toList();
+    }
+
+    record Matcher(
+            List<Pattern> includeNames, List<Pattern> excludeNames, List<Pattern> headers, Set<SymbolKind> kinds) {
+        boolean matches(final SymbolInventory.Symbol symbol) {
+            if (!this.kinds.isEmpty() && !this.kinds.contains(symbol.kind())) {
+                return false;
+            }
+            if (!this.includeNames.isEmpty()
+                    && this.includeNames.stream().noneMatch(pattern -> pattern.matcher(symbol.name()).matches())) {
+                return false;
+            }
+            if (this.excludeNames.stream().anyMatch(pattern -> pattern.matcher(symbol.name()).matches())) {
+                return false;
+            }
+
+            final @Nullable String declaringHeader = symbol.header();
+            final String header = declaringHeader == null ? "" : declaringHeader.replace('\\', '/');
+            return this.headers.isEmpty()
+                    || this.headers.stream().anyMatch(pattern -> pattern.matcher(header).matches());
+        }
+    }
+}
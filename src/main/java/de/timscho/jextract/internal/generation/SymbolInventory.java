@@ -0,0 +1,113 @@
+package de.timscho.jextract.internal.generation;
+
+import de.timscho.jextract.extension.SymbolKind;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Symbols of a header as listed by {@code jextract --dump-includes}, in their original order.
+ *
+ * @param symbols The symbols
+ */
+public record SymbolInventory(List<Symbol> symbols) {
+    private static final Pattern INCLUDE_LINE =
+            Pattern.compile("^\\s*(--include-[a-z]+)\\s+(\\S+)(?:.*#\\s*header:\\s*(.+?)\\s*$)?");
+
+    /**
+     * Parses a file written by {@code jextract --dump-includes}. Comments and unknown lines are ignored.
+     *
+     * @param dump The dump file
+     * @return The inventory
+     * @throws IOException If the file can not be read
+     */
+    public static SymbolInventory parse(final Path dump) throws IOException {
+        final Set<Symbol> symbols = new LinkedHashSet<>();
+        for (final String line : Files.readAllLines(dump, StandardCharsets.UTF_8)) {
+            final Matcher matcher = SymbolInventory.INCLUDE_LINE.matcher(line);
+            if (!matcher.find()) {
+                continue;
+            }
+
+            final @Nullable SymbolKind kind = SymbolKind.fromIncludeOption(matcher.group(1));
+            if (kind != null) {
+                symbols.add(new Symbol(kind, matcher.group(2), matcher.group(3)));
+            }
+        }
+        return new SymbolInventory(List.copyOf(symbols));
+    }
+
+    /**
+     * Keeps the symbols matching the filter.
+     *
+     * @param filter The filter
+     * @return The filtered inventory
+     */
+    public SymbolInventory filter(final SymbolFilter filter) {
+        final SymbolFilter.Matcher matcher = filter.compile();
+        return new SymbolInventory(this.symbols.stream().filter(matcher::matches).toList());
+    }
+
+    /**
+     * Writes the include arguments of all symbols in the {@code --dump-includes} format, usable as argument file.
+     *
+     * @param file The file to write
+     * @throws IOException If the file can not be written
+     */
+    public void write(final Path file) throws IOException {
+        final List<String> lines = new ArrayList<>(this.symbols.size());
+        for (final Symbol symbol : this.symbols) {
+            lines.add(symbol.kind().getIncludeOption() + " " + symbol.name());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits the inventory into shards. Shardable symbols are distributed round-robin, all other symbols are part
+     * of every shard, since the shardable ones depend on them.
+     *
+     * @param count The number of shards
+     * @return The include arguments of every shard, fewer than {@code count} if there are not enough symbols
+     */
+    public List<List<String>> shard(final int count) {
+        final List<Symbol> shared = new ArrayList<>();
+        final List<Symbol> shardable = new ArrayList<>();
+        for (final Symbol symbol : this.symbols) {
+            (symbol.kind().isShardable() ? shardable : shared).add(symbol);
+        }
+
+        final int shardCount = Math.clamp(shardable.size(), 1, Math.max(1, count));
+        final List<List<String>> shards = new ArrayList<>(shardCount);
+        for (int index = 0; index < shardCount; index++) {
+            final List<String> arguments = new ArrayList<>();
+            shared.forEach(symbol -> symbol.appendTo(arguments));
+            shards.add(arguments);
+        }
+        for (int index = 0; index < shardable.size(); index++) {
+            shardable.get(index).appendTo(shards.get(index % shardCount));
+        }
+        return shards;
+    }
+
+    /**
+     * A single symbol.
+     *
+     * @param kind The symbol kind
+     * @param name The symbol name
+     * @param header The declaring header, if listed
+     */
+    public record Symbol(SymbolKind kind, String name, @Nullable String header) {
+        void appendTo(final List<String> arguments) {
+            arguments.add(this.kind.getIncludeOption());
+            arguments.add(this.name);
+        }
+    }
+}
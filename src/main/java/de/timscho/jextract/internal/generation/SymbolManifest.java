@@ -0,0 +1,205 @@
+package de.timscho.jextract.internal.generation;
+
+import de.timscho.jextract.extension.SymbolKind;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Hashes of the declarations of every symbol of an inventory, to find the symbols changed between two runs.
+ *
+ * <p>The hash of a symbol covers its own declarations, e.g. its prototype, and transitively the declarations of all
+ * types and constants they mention, so a changed struct or typedef also changes every function using it. Like
+ * {@link HeaderFingerprint}, only the tokens count, comments and layout do not.
+ *
+ * @param hashes The hash of every symbol, keyed by its include option and name, in inventory order
+ */
+public record SymbolManifest(Map<String, String> hashes) {
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Hashes the declarations of all symbols, read from the headers listed in the inventory.
+     *
+     * @param inventory The symbols to hash
+     * @return The manifest
+     * @throws IOException If a header can not be read
+     */
+    public static SymbolManifest compute(final SymbolInventory inventory) throws IOException {
+        final Set<String> headers = new LinkedHashSet<>();
+        for (final SymbolInventory.Symbol symbol : inventory.symbols()) {
+            if (symbol.header() != null && Files.isRegularFile(Path.of(symbol.header()))) {
+                headers.add(symbol.header());
+            }
+        }
+
+        final Map<String, List<HeaderDeclarations.Declaration>> declarations = new HashMap<>();
+        for (final String header : headers) {
+            final String source = Files.readString(Path.of(header), StandardCharsets.ISO_8859_1);
+            for (final HeaderDeclarations.Declaration declaration : HeaderDeclarations.parse(source)) {
+                for (final String name : declaration.declared()) {
+                    declarations.computeIfAbsent(name, _ -> new ArrayList<>()).add(declaration);
+                }
+            }
+        }
+
+        // Functions are never part of another declaration, everything else can be
+        final Set<String> dependencies = new HashSet<>();
+        for (final SymbolInventory.Symbol symbol : inventory.symbols()) {
+            if (symbol.kind() != SymbolKind.FUNCTION) {
+                dependencies.add(symbol.name());
+            }
+        }
+
+        final Map<String, String> hashes = new LinkedHashMap<>();
+        for (final SymbolInventory.Symbol symbol : inventory.symbols()) {
+            hashes.put(
+                    SymbolManifest.key(symbol),
+                    SymbolManifest.hash(symbol, declarations, dependencies));
+        }
+        return new SymbolManifest(hashes);
+    }
+
+    /**
+     * Reads a manifest written by {@link #write(Path)}.
+     *
+     * @param file The manifest file
+     * @return The manifest or {@code null} if the file does not exist
+     * @throws IOException If the file can not be read
+     */
+    public static @Nullable SymbolManifest readIfExists(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        final Map<String, String> hashes = new LinkedHashMap<>();
+        for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            final int hashStart = line.lastIndexOf(' ');
+            if (hashStart > 0) {
+                hashes.put(line.substring(0, hashStart), line.substring(hashStart + 1));
+            }
+        }
+        return new SymbolManifest(hashes);
+    }
+
+    /**
+     * Writes the manifest, one {@code --include-<kind> <name> <hash>} line per symbol.
+     *
+     * @param file The file to write
+     * @throws IOException If the file can not be written
+     */
+    public void write(final Path file) throws IOException {
+        final List<String> lines = new ArrayList<>(this.hashes.size());
+        this.hashes.forEach((key, hash) -> lines.add(key + " " + hash));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares this manifest with the one of an earlier run.
+     *
+     * @param previous The manifest of the earlier run
+     * @return The changed symbols
+     */
+    @Contract(pure = true)
+    public Changes changesSince(final SymbolManifest previous) {
+        final Set<String> changed = new LinkedHashSet<>();
+        this.hashes.forEach((key, hash) -> {
+            if (!hash.equals(previous.hashes().get(key))) {
+                changed.add(key);
+            }
+        });
+
+        final Set<String> removed = new LinkedHashSet<>(previous.hashes().keySet());
+        removed.removeAll(this.hashes.keySet());
+        return new Changes(Set.copyOf(changed), Set.copyOf(removed));
+    }
+
+    /**
+     * Identifies a symbol in the manifest.
+     *
+     * @param symbol The symbol
+     * @return The include option and name of the symbol
+     */
+    @Contract(pure = true)
+    public static String key(final SymbolInventory.Symbol symbol) {
+        return symbol.kind().getIncludeOption() + " " + symbol.name();
+    }
+
+    private static String hash(
+            final SymbolInventory.Symbol symbol,
+            final Map<String, List<HeaderDeclarations.Declaration>> declarations,
+            final Set<String> dependencies) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 not supported", exception);
+        }
+
+        digest.update((SymbolManifest.key(symbol) + SymbolManifest.SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        // Sorted, so the hash does not depend on the order the declarations were discovered in
+        final Set<String> closure = new TreeSet<>();
+        final Deque<String> pending = new ArrayDeque<>(List.of(symbol.name()));
+        while (!pending.isEmpty()) {
+            final String name = pending.pop();
+            for (final HeaderDeclarations.Declaration declaration : declarations.getOrDefault(name, List.of())) {
+                for (final String identifier : declaration.identifiers()) {
+                    if (dependencies.contains(identifier) && closure.add(identifier)) {
+                        pending.push(identifier);
+                    }
+                }
+            }
+        }
+        closure.remove(symbol.name());
+
+        SymbolManifest.update(digest, symbol.name(), declarations);
+        for (final String dependency : closure) {
+            SymbolManifest.update(digest, dependency, declarations);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(
+            final MessageDigest digest,
+            final String name,
+            final Map<String, List<HeaderDeclarations.Declaration>> declarations) {
+        digest.update((name + SymbolManifest.SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        for (final HeaderDeclarations.Declaration declaration : declarations.getOrDefault(name, List.of())) {
+            digest.update((declaration.text() + SymbolManifest.SEPARATOR).getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Symbols changed between two runs, identified by {@link #key(SymbolInventory.Symbol)}.
+     *
+     * @param changed Symbols added or with changed declarations
+     * @param removed Symbols no longer declared
+     */
+    public record Changes(Set<String> changed, Set<String> removed) {
+        /**
+         * Whether no symbol changed.
+         *
+         * @return Whether both sets are empty
+         */
+        @Contract(pure = true)
+        public boolean isEmpty() {
+            return this.changed.isEmpty() && this.removed.isEmpty();
+        }
+    }
+}
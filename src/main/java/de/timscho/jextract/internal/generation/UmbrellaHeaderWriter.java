@@ -0,0 +1,38 @@
+package de.timscho.jextract.internal.generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Writes a synthetic header including a set of headers, so jextract parses them as one translation unit.
+ * Shared base headers are then parsed once and their types generated once.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class UmbrellaHeaderWriter {
+
+    /**
+     * Writes the umbrella header. Headers are included by absolute path, in the given order, so quoted includes
+     * inside them still resolve relative to their own directory.
+     *
+     * @param umbrella The umbrella header to write
+     * @param headers The headers to include
+     * @throws IOException If the umbrella header can not be written
+     */
+    public static void write(final Path umbrella, final List<File> headers) throws IOException {
+        final StringBuilder content = new StringBuilder(64 * (headers.size() + 1));
+        content.append("// Generated by the jextract Gradle plugin, do not edit\n");
+        for (final File header : headers) {
+            final String path = header.getAbsolutePath().replace(File.separatorChar, '/');
+            content.append("#include \"").append(path).append("\"\n");
+        }
+
+        Files.createDirectories(umbrella.getParent());
+        Files.writeString(umbrella, content, StandardCharsets.UTF_8);
+    }
+}
@@ -1,28 +1,67 @@
 package de.timscho.jextract.task;
 
+import de.timscho.jextract.extension.CommentPolicy;
+import de.timscho.jextract.extension.ExecutionMode;
 import de.timscho.jextract.extension.NativeLibraryLoadingConfig;
+import de.timscho.jextract.extension.SymbolFilterConfig;
+import de.timscho.jextract.internal.download.JextractBinaryLocator;
 import de.timscho.jextract.internal.download.JextractToolService;
-import de.timscho.jextract.internal.generation.NativeLibraryLoaderGenerator;
+import de.timscho.jextract.internal.execution.JextractBudgetService;
+import de.timscho.jextract.internal.execution.JextractGenerateAction;
+import de.timscho.jextract.internal.execution.JextractToolAction;
+import de.timscho.jextract.internal.execution.LoaderParameters;
+import de.timscho.jextract.internal.execution.SnapshotParameters;
+import de.timscho.jextract.internal.execution.SymbolParameters;
+import de.timscho.jextract.internal.generation.HeaderFingerprint;
+import de.timscho.jextract.internal.generation.IncludeScanner;
+import de.timscho.jextract.internal.generation.OutputSnapshot;
+import de.timscho.jextract.internal.generation.SourceArchive;
+import de.timscho.jextract.internal.generation.SymbolFilter;
+import de.timscho.jextract.internal.generation.UmbrellaHeaderWriter;
+import de.timscho.jextract.internal.util.GeneratedConstant;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import javax.inject.Inject;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.ProjectLayout;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.process.ExecOperations;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
 import org.jetbrains.annotations.Contract;
+import org.jspecify.annotations.Nullable;
 
 @CacheableTask
 public abstract class JextractTask extends DefaultTask {
@@ -33,9 +72,46 @@ public abstract class JextractTask extends DefaultTask {
      * @return The path to the header file
      */
     @InputFile
+    @Incremental
     @PathSensitive(PathSensitivity.NONE)
+    @org.gradle.api.tasks.Optional
     public abstract RegularFileProperty getHeaderFile();
 
+    /**
+     * Additional headers generated in the same jextract run as {@link #getHeaderFile()}.
+     * When present, all headers are included by a synthetic umbrella header which is passed to jextract instead.
+     *
+     * @return The additional header files, in include order
+     */
+    @InputFiles
+    @Incremental
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getHeaderFiles();
+
+    /**
+     * Headers transitively included by the configured headers, found in their directories and the include
+     * directories of {@link #getCompilerArgs()}. Scanned when the task's inputs are fingerprinted, so edits to any
+     * included header make the task out of date.
+     *
+     * @return The included headers
+     */
+    @InputFiles
+    @Incremental
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getIncludedHeaders() {
+        return this.getObjects().fileCollection().from((Callable<Set<File>>) () -> IncludeScanner.scan(
+                this.getHeaders(),
+                IncludeScanner.includeDirs(this.getCompilerArguments(), this.getJextractWorkingDirectory())));
+    }
+
+    /**
+     * File name of the umbrella header. Names the header class when no {@link #getHeaderFile()} is set.
+     *
+     * @return The umbrella header file name
+     */
+    @Input
+    public abstract Property<String> getUmbrellaHeaderName();
+
     /**
      * Target package for generated Java classes.
      * Passed to jextract as: -t targetPackage
@@ -54,6 +130,81 @@ public abstract class JextractTask extends DefaultTask {
     @Input
     public abstract ListProperty<String> getCompilerArgs();
 
+    /**
+     * Include directories searched for headers, fingerprinted by their content relative to each directory, so
+     * different checkout locations share build cache entries.
+     * Passed to jextract as: -I includeDir, before {@link #getCompilerArgs()}
+     *
+     * @return The include directories, in search order
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @IgnoreEmptyDirectories
+    public abstract ConfigurableFileCollection getIncludeDirs();
+
+    /**
+     * Preprocessor macros, each defined with its value or without one when the value is empty.
+     * Passed to jextract as: -D name=value, before {@link #getCompilerArgs()}
+     *
+     * @return The macro definitions
+     */
+    @Input
+    public abstract MapProperty<String, String> getDefines();
+
+    /**
+     * JVM options for the jextract launcher. They only affect how fast the bindings are generated, not their content.
+     * Passed to jextract as: JDK_JAVA_OPTIONS environment variable
+     *
+     * @return The JVM options
+     */
+    @Internal
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Whether the launcher creates and maps a class data sharing archive of the jextract distribution.
+     *
+     * @return Whether class data sharing is used
+     */
+    @Internal
+    public abstract Property<Boolean> getClassDataSharing();
+
+    /**
+     * Directory of the tool cache holding the class data sharing archives, keyed by distribution.
+     *
+     * @return The shared archive directory
+     */
+    @Internal
+    public abstract DirectoryProperty getSharedArchiveDirectory();
+
+    /**
+     * Number of parallel jextract runs the symbols of the header are split into.
+     * The outputs are merged into one package with a single header class.
+     *
+     * @return The number of shards
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    public abstract Property<Integer> getShards();
+
+    /**
+     * Whether a header change only regenerates the symbols whose declarations changed, merged into the previous
+     * bindings. Not combined with {@link #getShards()}.
+     *
+     * @return Whether generation is incremental
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    public abstract Property<Boolean> getIncrementalGeneration();
+
+    /**
+     * Which comments of the generated bindings are kept, applied before they are published.
+     *
+     * @return The comment policy
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    public abstract Property<CommentPolicy> getCommentPolicy();
+
     /**
      * Custom name for the main header class.
      *
@@ -83,15 +234,83 @@ public abstract class JextractTask extends DefaultTask {
     @org.gradle.api.tasks.Optional
     public abstract NativeLibraryLoadingConfig getNativeLibraryLoading();
 
+    /**
+     * Restricts the generated bindings to the matching symbols of the headers.
+     *
+     * @return The symbol filter
+     */
+    @Nested
+    public abstract SymbolFilterConfig getSymbols();
+
     /**
      * Output directory for generated Java classes.
-     * Passed to jextract as: -d outputDirectory
+     * jextract generates into a staging directory, files are only rewritten here when their content changed.
+     * Exactly one of this and {@link #getSourcesArchive()} must be set.
      *
      * @return The output directory for generated Java classes
      */
     @OutputDirectory
+    @org.gradle.api.tasks.Optional
     public abstract DirectoryProperty getOutputDirectory();
 
+    /**
+     * Zip archive of the generated Java classes, written instead of {@link #getOutputDirectory()}. The build cache
+     * then stores and transfers a single file instead of one file per generated class.
+     *
+     * @return The sources archive
+     */
+    @OutputFile
+    @org.gradle.api.tasks.Optional
+    public abstract RegularFileProperty getSourcesArchive();
+
+    /**
+     * Directory the bindings are published to and packed from when only {@link #getSourcesArchive()} is an output.
+     * Keeps the previous bindings for content based publishing and incremental generation.
+     *
+     * @return The directory of the packed bindings
+     */
+    @LocalState
+    public abstract DirectoryProperty getPackedDirectory();
+
+    /**
+     * Snapshot of the bindings of the last successful generation and the fingerprint of its normalized headers.
+     * When an edit only touches comments or whitespace, the bindings are restored from here instead of running
+     * jextract.
+     *
+     * @return The snapshot directory
+     */
+    @LocalState
+    public abstract DirectoryProperty getSnapshotDirectory();
+
+    /**
+     * Cached symbol inventory of the headers, listed by {@code jextract --dump-includes} for symbol filters, shards
+     * and incremental generation, which also records the declaration hashes of the symbols here. Listed again only
+     * when the header closure or the compiler arguments change.
+     *
+     * @return The inventory directory
+     */
+    @LocalState
+    public abstract DirectoryProperty getInventoryDirectory();
+
+    /**
+     * Directory jextract runs in. Relative include directories of {@link #getCompilerArgs()} are resolved against it.
+     * Defaults to the project directory.
+     *
+     * @return The working directory
+     */
+    @Internal
+    public abstract DirectoryProperty getWorkingDirectory();
+
+    /**
+     * Version of the jextract distribution provided by the shared build service. Part of the inputs, as the
+     * bindings differ between versions.
+     *
+     * @return The jextract version
+     */
+    @Input
+    @org.gradle.api.tasks.Optional
+    public abstract Property<String> getToolVersion();
+
     /**
      * Connects this task to the shared build service.
      *
@@ -100,58 +319,433 @@ public abstract class JextractTask extends DefaultTask {
     @ServiceReference("jextractTool")
     public abstract Property<JextractToolService> getToolService();
 
+    /**
+     * Existing jextract installation. Takes precedence over the resolved distribution and the build service.
+     * Identified through {@link #getToolIdentityFiles()}.
+     *
+     * @return The jextract installation directory
+     */
+    @Internal
+    public abstract DirectoryProperty getToolHome();
+
+    /**
+     * Unpacked jextract distribution resolved through dependency management.
+     * When empty, the tool is provided by the shared build service and identified by {@link #getToolVersion()}.
+     *
+     * @return The resolved distribution directory
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getToolDistribution();
+
+    /**
+     * The launcher of {@link #getToolHome()} or {@link #getToolDistribution()}, with the release file and module
+     * image of its runtime. Their content is part of the inputs, their location is not, so different installations
+     * never share cache entries without fingerprinting every file of the bundled runtime.
+     *
+     * @return The files identifying the tool, empty for tools provided by the shared build service
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public FileCollection getToolIdentityFiles() {
+        final @Nullable File toolDir = this.getLocalToolDirectory();
+        if (toolDir == null) {
+            return this.getObjects().fileCollection();
+        }
+
+        final File executable = JextractBinaryLocator.locate(toolDir.toPath(), this.getLogger());
+        final File runtime = new File(executable.getAbsoluteFile().getParentFile().getParentFile(), "runtime");
+        return this.getObjects()
+                .fileCollection()
+                .from(executable, new File(runtime, "release"), new File(runtime, "lib/modules"));
+    }
+
+    /**
+     * How jextract is run, forked per task or in a reused worker daemon.
+     *
+     * @return The execution mode
+     */
+    @Internal
+    public abstract Property<ExecutionMode> getExecutionMode();
+
+    /**
+     * How long a daemon started by this task stays alive without requests.
+     *
+     * @return The idle timeout
+     */
+    @Internal
+    public abstract Property<Duration> getDaemonIdleTimeout();
+
+    /**
+     * Directory holding the state files and logs of the jextract daemons.
+     *
+     * @return The daemon directory
+     */
+    @Internal
+    public abstract DirectoryProperty getDaemonDirectory();
+
+    /**
+     * Shared budget capping concurrent generations across all projects.
+     *
+     * @return The budget service
+     */
+    @ServiceReference("jextractBudget")
+    public abstract Property<JextractBudgetService> getBudgetService();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract ObjectFactory getObjects();
+
+    @Inject
+    protected abstract ProjectLayout getLayout();
+
     @Inject
-    protected abstract ExecOperations getExecOps();
+    protected abstract FileSystemOperations getFs();
 
     /**
-     * Executes the jextract tool and generates the bindings.
+     * Submits the generation of the bindings. The work runs asynchronously, so all binding tasks of a project
+     * generate at the same time, bounded by the shared concurrency and memory budget.
      *
-     * @throws Exception If the execution fails.
+     * <p>Gradle runs the task incrementally when nothing but the headers changed. Only then incremental generation
+     * may update the previous bindings, any other change generates them from scratch.
      */
     @TaskAction
-    public void run() throws Exception {
-        // Get the tool executable from the service
-        // This blocks if the service is currently downloading in another thread
-        final String executablePath =
-                this.getToolService().get().getExecutable(this.getLogger()).getAbsolutePath();
+    public void run(final InputChanges inputChanges) throws IOException {
+        final File executable = this.resolveExecutable();
+
+        final List<String> args = this.buildArgs(executable.getAbsolutePath(), this.resolveHeader());
+        final SymbolFilter symbolFilter = this.getSymbolFilter();
+        final String fingerprint = this.fingerprint(executable, args, symbolFilter);
+        final int shards = this.getShards().getOrElse(1);
+        final boolean incremental = this.getIncrementalGeneration().getOrElse(false) && shards <= 1;
+        if (this.getIncrementalGeneration().getOrElse(false) && !incremental) {
+            this.getLogger().info("Incremental generation is not combined with shards, generating all symbols");
+        }
+        final boolean onlyHeadersChanged = inputChanges.isIncremental();
+        final @Nullable String inventoryKey = this.inventoryKey(symbolFilter, executable, incremental);
+        final OutputSnapshot snapshot = OutputSnapshot.builder()
+                .snapshotDirectory(this.getSnapshotDirectory().get().getAsFile().toPath())
+                .outputDirectory(this.getPublishDirectory().toPath())
+                .fs(this.getFs())
+                .build();
+        if (snapshot.restoreIfUnchanged(fingerprint)) {
+            if (this.getSourcesArchive().isPresent()) {
+                SourceArchive.write(
+                        this.getPublishDirectory().toPath(),
+                        this.getSourcesArchive().get().getAsFile().toPath());
+            }
+            this.getLogger()
+                    .lifecycle(
+                            "Headers of {} only changed in comments or whitespace, restored the previous bindings",
+                            this.getFinalHeaderClassName());
+            return;
+        }
 
-        final List<String> args = this.buildArgs(executablePath);
         this.getLogger().info("Running jextract with args: {}", args);
 
-        this.getExecOps().exec(spec -> {
-            spec.commandLine(args);
-            spec.setWorkingDir(this.getProject().getProjectDir()); // Good practice
+        final ExecutionMode mode = this.getExecutionMode().getOrElse(ExecutionMode.EXEC);
+        final @Nullable File runtimeJava =
+                mode == ExecutionMode.EXEC ? null : JextractBinaryLocator.locateRuntimeJava(executable);
+        if (mode != ExecutionMode.EXEC && runtimeJava == null) {
+            this.getLogger().info("No runtime bundled with {}, falling back to exec mode", executable);
+        }
+
+        // Shards are coordinated from the build process, so sharded generations fork the launcher instead
+        final SymbolSettings symbols = new SymbolSettings(symbolFilter, inventoryKey, incremental, onlyHeadersChanged);
+        if (mode == ExecutionMode.WORKER && runtimeJava != null && shards <= 1) {
+            this.submitToWorker(runtimeJava, args.subList(1, args.size()), fingerprint, symbols);
+            return;
+        }
+
+        final File projectDir = this.getJextractWorkingDirectory();
+        this.getWorkerExecutor()
+                .noIsolation()
+                .submit(JextractGenerateAction.class, parameters -> {
+                    parameters
+                            .getMode()
+                            .set(mode == ExecutionMode.DAEMON && runtimeJava != null
+                                    ? ExecutionMode.DAEMON
+                                    : ExecutionMode.EXEC);
+                    parameters.getExecutable().set(executable);
+                    parameters.getArguments().set(args.subList(1, args.size()));
+                    parameters.getWorkingDirectory().set(projectDir);
+                    parameters.getJvmArgs().set(this.getJvmArgs());
+                    parameters.getClassDataSharing().set(this.getClassDataSharing());
+                    parameters.getSharedArchiveDirectory().set(this.getSharedArchiveDirectory());
+                    parameters.getRuntimeJava().set(runtimeJava);
+                    parameters.getDaemonDirectory().set(this.getDaemonDirectory());
+                    parameters.getDaemonIdleTimeout().set(this.getDaemonIdleTimeout());
+                    parameters.getBudget().set(this.getBudgetService());
+                    parameters.getShards().set(shards);
+                    parameters.getTemporaryDirectory().set(new File(this.getTemporaryDir(), "shards"));
+                    this.configureLoader(parameters);
+                    this.configureSnapshot(parameters, fingerprint);
+                    this.configureSymbols(parameters, symbols);
+                });
+    }
+
+    /**
+     * Runs jextract in a worker daemon on the bundled runtime. Gradle reuses the daemon for every task with the
+     * same fork options, so all binding tasks of a build share one warmed-up JVM.
+     */
+    private void submitToWorker(
+            final File runtimeJava,
+            final List<String> args,
+            final String fingerprint,
+            final SymbolSettings symbols) {
+        final File projectDir = this.getJextractWorkingDirectory();
+        final WorkQueue queue = this.getWorkerExecutor().processIsolation(spec -> spec.forkOptions(fork -> {
+            fork.setExecutable(runtimeJava);
+            fork.setWorkingDir(projectDir);
+            fork.jvmArgs(
+                    "--add-modules=" + JextractToolAction.MODULE_NAME,
+                    "--enable-native-access=" + JextractToolAction.MODULE_NAME);
+            fork.jvmArgs(this.getJvmArgs().getOrElse(List.of()));
+        }));
+        queue.submit(JextractToolAction.class, parameters -> {
+            parameters.getArguments().set(args);
+            this.configureLoader(parameters);
+            this.configureSnapshot(parameters, fingerprint);
+            this.configureSymbols(parameters, symbols);
         });
+    }
 
-        // Generate native library loader if configured
-        if (this.getNativeLibraryLoading().getResourcePath().isPresent()) {
-            this.generateNativeLibraryLoader();
+    private void configureLoader(final LoaderParameters parameters) {
+        parameters.getTargetPackage().set(this.getTargetPackage());
+        parameters.getHeaderClassName().set(this.getFinalHeaderClassName());
+        parameters.getResourcePath().set(this.getNativeLibraryLoading().getResourcePath());
+        parameters.getExtractionDir().set(this.getNativeLibraryLoading().getExtractionDir());
+        parameters.getExtractionPath().set(this.getNativeLibraryLoading().getExtractionPath());
+        parameters.getExtractionBase().set(this.getNativeLibraryLoading().getExtractionBase());
+        parameters.getEnableCaching().set(this.getNativeLibraryLoading().getEnableCaching());
+        parameters.getStagingDirectory().set(this.getStagingDirectory());
+        parameters.getOutputDirectory().set(this.getPublishDirectory());
+        parameters.getProjectDirectory().set(this.getJextractWorkingDirectory());
+        parameters.getSourcesArchive().set(this.getSourcesArchive());
+        parameters.getCommentPolicy().set(this.getCommentPolicy());
+    }
+
+    private void configureSnapshot(final SnapshotParameters parameters, final String fingerprint) {
+        parameters.getFingerprint().set(fingerprint);
+        parameters.getSnapshotDirectory().set(this.getSnapshotDirectory());
+    }
+
+    private void configureSymbols(final SymbolParameters parameters, final SymbolSettings symbols) {
+        if (!symbols.filter().isEmpty()) {
+            parameters.getSymbolFilter().set(symbols.filter());
+        }
+        if (symbols.inventoryKey() != null) {
+            parameters.getInventoryKey().set(symbols.inventoryKey());
+            parameters.getInventoryDirectory().set(this.getInventoryDirectory());
+        }
+        parameters.getIncrementalGeneration().set(symbols.incremental());
+        parameters.getOnlyHeadersChanged().set(symbols.onlyHeadersChanged());
+    }
+
+    /**
+     * Fingerprints everything the symbol inventory depends on, or returns {@code null} when no inventory is needed.
+     */
+    private @Nullable String inventoryKey(
+            final SymbolFilter symbolFilter, final File executable, final boolean incremental) throws IOException {
+        if (symbolFilter.isEmpty() && this.getShards().getOrElse(1) <= 1 && !incremental) {
+            return null;
+        }
+
+        final List<String> context = new ArrayList<>(List.of(executable.getAbsolutePath()));
+        context.addAll(this.getCompilerArguments());
+        return HeaderFingerprint.compute(this.getHeaderClosure(), context);
+    }
+
+    @Contract(pure = true)
+    private SymbolFilter getSymbolFilter() {
+        final SymbolFilterConfig symbols = this.getSymbols();
+        return new SymbolFilter(
+                List.copyOf(symbols.getIncludeNames().get()),
+                List.copyOf(symbols.getExcludeNames().get()),
+                List.copyOf(symbols.getHeaders().get()),
+                // Sorted, so the filter is fingerprinted the same in every build
+                Collections.unmodifiableSortedSet(new TreeSet<>(symbols.getKinds().get())));
+    }
+
+    private List<File> getHeaderClosure() {
+        final List<File> headers = new ArrayList<>(this.getHeaders());
+        headers.addAll(this.getIncludedHeaders().getFiles());
+        return headers;
+    }
+
+    /**
+     * Fingerprints the normalized headers together with everything else shaping the bindings. The launcher path
+     * contains the tool version of downloaded tools, the tool identity covers installations updated in place, the
+     * plugin version covers changes to the generated loader.
+     */
+    private String fingerprint(final File executable, final List<String> args, final SymbolFilter symbolFilter)
+            throws IOException {
+        final List<String> context = new ArrayList<>(args);
+        context.add(JextractTask.toolIdentity(executable));
+        context.add(symbolFilter.toString());
+        context.add(GeneratedConstant.PLUGIN_VERSION);
+        context.add(String.valueOf(this.getShards().getOrNull()));
+        context.add(String.valueOf(this.getNativeLibraryLoading().getResourcePath().getOrNull()));
+        context.add(String.valueOf(this.getNativeLibraryLoading()
+                .getExtractionDir()
+                .map(dir -> dir.getAsFile().getAbsolutePath())
+                .getOrNull()));
+        context.add(String.valueOf(this.getNativeLibraryLoading().getExtractionPath().getOrNull()));
+        context.add(String.valueOf(this.getNativeLibraryLoading().getExtractionBase().getOrNull()));
+        context.add(String.valueOf(this.getNativeLibraryLoading().getEnableCaching().getOrNull()));
+        context.add(String.valueOf(this.getCommentPolicy().getOrNull()));
+        return HeaderFingerprint.compute(this.getHeaderClosure(), context);
+    }
+
+    private @Nullable File getLocalToolDirectory() {
+        if (this.getToolHome().isPresent()) {
+            return this.getToolHome().get().getAsFile();
+        }
+        if (!this.getToolDistribution().isEmpty()) {
+            return this.getToolDistribution().getSingleFile();
         }
+        return null;
+    }
+
+    private File resolveExecutable() {
+        if (this.getToolHome().isPresent()) {
+            final File toolHome = this.getToolHome().get().getAsFile();
+            this.getLogger().info("Using the jextract installation {}, toolVersion does not apply", toolHome);
+            return JextractBinaryLocator.locate(toolHome.toPath(), this.getLogger());
+        }
+
+        if (!this.getToolDistribution().isEmpty()) {
+            final File distribution = this.getToolDistribution().getSingleFile();
+            this.getLogger().info("Using the jextract distribution resolved to {}", distribution);
+            return JextractBinaryLocator.locate(distribution.toPath(), this.getLogger());
+        }
+
+        // Get the tool executable from the service
+        // This blocks if the service is currently downloading in another thread
+        final String version = this.getToolVersion().getOrElse(JextractToolService.DEFAULT_VERSION);
+        this.getLogger().info("Using jextract {}", version);
+        return this.getToolService().get().getExecutable(version, this.getLogger());
+    }
+
+    /**
+     * Identifies the jextract installation beyond the launcher path, which stays the same when an installation is
+     * updated in place: the size and modification time of the launcher and of the runtime image it runs.
+     */
+    private static String toolIdentity(final File executable) {
+        final @Nullable File toolDir = executable.getAbsoluteFile().getParentFile().getParentFile();
+        final List<String> identity = new ArrayList<>();
+        for (final File file : List.of(
+                executable,
+                new File(toolDir, "runtime/release"),
+                new File(toolDir, "runtime/lib/modules"))) {
+            identity.add(file.getName() + ":" + file.length() + ":" + file.lastModified());
+        }
+        return String.join(",", identity);
+    }
+
+    /**
+     * Returns the header passed to jextract, writing an umbrella header when several headers are configured.
+     */
+    private File resolveHeader() throws IOException {
+        final List<File> headers = this.getHeaders();
+        if (headers.isEmpty()) {
+            throw new GradleException("No header configured, set headerFile or headerFiles");
+        }
+        if (headers.size() == 1) {
+            return headers.getFirst();
+        }
+
+        final File umbrella = new File(this.getTemporaryDir(), this.getUmbrellaHeaderName().get());
+        UmbrellaHeaderWriter.write(umbrella.toPath(), headers);
+        this.getLogger().info("Generating {} headers through umbrella header {}", headers.size(), umbrella);
+        return umbrella;
+    }
+
+    /**
+     * jextract generates into this directory, the bindings are then published to the output directory by content.
+     */
+    private File getStagingDirectory() {
+        return new File(this.getTemporaryDir(), "staging");
+    }
+
+    private File getJextractWorkingDirectory() {
+        return this.getWorkingDirectory()
+                .getOrElse(this.getLayout().getProjectDirectory())
+                .getAsFile();
+    }
+
+    /**
+     * The bindings are published to the output directory, or packed from a local directory into the sources archive.
+     */
+    private File getPublishDirectory() {
+        if (this.getOutputDirectory().isPresent() == this.getSourcesArchive().isPresent()) {
+            throw new GradleException("Set exactly one of outputDirectory and sourcesArchive");
+        }
+        if (this.getOutputDirectory().isPresent()) {
+            return this.getOutputDirectory().get().getAsFile();
+        }
+        return this.getPackedDirectory().isPresent()
+                ? this.getPackedDirectory().get().getAsFile()
+                : new File(this.getTemporaryDir(), "packed");
+    }
+
+    private List<File> getHeaders() {
+        final List<File> headers = new ArrayList<>();
+        if (this.getHeaderFile().isPresent()) {
+            headers.add(this.getHeaderFile().get().getAsFile());
+        }
+        headers.addAll(this.getHeaderFiles().getFiles());
+        return headers;
     }
 
     @Contract(pure = true)
     private String getFinalHeaderClassName() {
-        return this.getHeaderClassName().isPresent()
-                ? this.getHeaderClassName().get()
-                : this.getHeaderFile().get().getAsFile().getName().replace(".h", "_h");
+        if (this.getHeaderClassName().isPresent()) {
+            return this.getHeaderClassName().get();
+        }
+
+        final String headerName = this.getHeaderFile().isPresent()
+                ? this.getHeaderFile().get().getAsFile().getName()
+                : this.getUmbrellaHeaderName().get();
+        return headerName.replace(".h", "_h");
     }
 
     @Contract(pure = true)
-    private List<String> buildArgs(final String executable) {
+    private List<String> buildArgs(final String executable, final File header) {
         final List<String> args = new ArrayList<>();
         args.add(executable);
         args.add("--output");
-        args.add(this.getOutputDirectory().get().getAsFile().getAbsolutePath());
+        args.add(this.getStagingDirectory().getAbsolutePath());
         args.add("--target-package");
         args.add(this.getTargetPackage().get());
         args.add("--header-class-name");
         args.add(this.getFinalHeaderClassName());
-        args.addAll(this.getCompilerArgs().get());
+        args.addAll(this.getCompilerArguments());
 
         // Add library loading arguments
         this.addLibraryArgs(args);
 
-        args.add(this.getHeaderFile().get().getAsFile().getAbsolutePath());
+        args.add(header.getAbsolutePath());
+        return args;
+    }
+
+    /**
+     * Returns the typed include directories and macro definitions followed by the raw compiler arguments.
+     */
+    @Contract(pure = true)
+    private List<String> getCompilerArguments() {
+        final List<String> args = new ArrayList<>();
+        for (final File includeDir : this.getIncludeDirs().getFiles()) {
+            args.add("-I");
+            args.add(includeDir.getAbsolutePath());
+        }
+        // Sorted, so the arguments are the same in every build
+        new TreeMap<>(this.getDefines().get()).forEach((name, value) -> {
+            args.add("-D");
+            args.add(value.isEmpty() ? name : name + "=" + value);
+        });
+        args.addAll(this.getCompilerArgs().get());
         return args;
     }
 
@@ -169,6 +763,11 @@ public abstract class JextractTask extends DefaultTask {
             throw new GradleException("Only one library loading option can be configured: "
                     + "libraryName, libraryPath, or nativeLibraryLoading.resourcePath");
         }
+        if (this.getNativeLibraryLoading().getExtractionDir().isPresent()
+                && this.getNativeLibraryLoading().getExtractionPath().isPresent()) {
+            throw new GradleException("Only one extraction directory can be configured: "
+                    + "nativeLibraryLoading.extractionDir or nativeLibraryLoading.extractionPath");
+        }
 
         // Add library name argument
         if (this.getLibraryName().isPresent()) {
@@ -177,18 +776,9 @@ public abstract class JextractTask extends DefaultTask {
         }
     }
 
-    private void generateNativeLibraryLoader() throws Exception {
-        final String headerClass = this.getFinalHeaderClassName();
-
-        final NativeLibraryLoaderGenerator generator = NativeLibraryLoaderGenerator.builder()
-                .targetPackage(this.getTargetPackage().get())
-                .headerClassName(headerClass)
-                .config(this.getNativeLibraryLoading())
-                .outputDirectory(this.getOutputDirectory().get().getAsFile().toPath())
-                .logger(this.getLogger())
-                .build();
-
-        generator.generate();
-        generator.injectLoader();
-    }
+    /**
+     * How the symbols of the headers are selected and whether they are updated incrementally.
+     */
+    private record SymbolSettings(
+            SymbolFilter filter, @Nullable String inventoryKey, boolean incremental, boolean onlyHeadersChanged) {}
 }
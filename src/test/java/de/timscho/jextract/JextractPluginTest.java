@@ -3,7 +3,15 @@ package de.timscho.jextract;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import de.timscho.jextract.extension.JextractExtension;
+import de.timscho.jextract.task.JextractTask;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.FileCollectionDependency;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.Sync;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
 
@@ -26,6 +34,20 @@ class JextractPluginTest {
                 .isEqualTo("25-jextract+2-4");
     }
 
+    @Test
+    void toolHomeIsNotTakenFromEnvironmentByDefault() {
+        // Arrange
+        final Project project = ProjectBuilder.builder().build();
+
+        // Act
+        project.getPluginManager().apply("de.timscho.jextract");
+
+        // Assert
+        final JextractExtension extension = project.getExtensions().getByType(JextractExtension.class);
+        assertThat(extension.getToolHomeFromEnvironment().get()).isFalse();
+        assertThat(extension.getToolHome().isPresent()).isFalse();
+    }
+
     @Test
     void pluginRegistersTasksForLibraries() {
         // Arrange
@@ -46,4 +68,63 @@ class JextractPluginTest {
                 .as("Task should be registered for 'opengl' library")
                 .isNotNull();
     }
+
+    @Test
+    void precompiledBindingsReplaceGeneratedSources() {
+        // Arrange
+        final Project project = ProjectBuilder.builder().build();
+        project.getPluginManager().apply("de.timscho.jextract");
+        project.getPluginManager().apply("java");
+
+        final JextractExtension extension = project.getExtensions().getByType(JextractExtension.class);
+
+        // Act
+        extension.libraries(libs -> libs.register("opengl", lib -> {
+            lib.getHeaderFile().set(project.file("gl.h"));
+            lib.getTargetPackage().set("com.gl");
+            lib.getPrecompile().set(true);
+        }));
+
+        // Assert
+        assertThat(project.getTasks().findByName("compileOpenglBindings")).isInstanceOf(JavaCompile.class);
+        assertThat(project.getTasks().findByName("jarOpenglBindings")).isInstanceOf(Jar.class);
+        final SourceSet main = project.getExtensions()
+                .getByType(SourceSetContainer.class)
+                .getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        assertThat(main.getJava().getSrcDirs())
+                .as("Generated sources should not be compiled with the main sources")
+                .noneMatch(dir -> dir.getPath().contains("jextract"));
+        assertThat(project.getConfigurations()
+                        .getByName(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME)
+                        .getDependencies())
+                .hasOnlyElementsOfType(FileCollectionDependency.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void archivedOutputIsUnpackedIntoMainSources() {
+        // Arrange
+        final Project project = ProjectBuilder.builder().build();
+        project.getPluginManager().apply("de.timscho.jextract");
+        project.getPluginManager().apply("java");
+
+        final JextractExtension extension = project.getExtensions().getByType(JextractExtension.class);
+
+        // Act
+        extension.libraries(libs -> libs.register("opengl", lib -> {
+            lib.getHeaderFile().set(project.file("gl.h"));
+            lib.getTargetPackage().set("com.gl");
+            lib.getArchiveOutput().set(true);
+        }));
+
+        // Assert
+        final JextractTask task = (JextractTask) project.getTasks().getByName("generateOpenglBindings");
+        assertThat(task.getOutputDirectory().isPresent()).isFalse();
+        assertThat(task.getSourcesArchive().get().getAsFile()).hasName("sources.zip");
+        assertThat(project.getTasks().findByName("unpackOpenglBindings")).isInstanceOf(Sync.class);
+        final SourceSet main = project.getExtensions()
+                .getByType(SourceSetContainer.class)
+                .getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        assertThat(main.getJava().getSrcDirs()).contains(project.file("build/generated/sources/jextract/opengl"));
+    }
 }
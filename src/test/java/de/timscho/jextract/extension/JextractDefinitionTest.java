@@ -42,4 +42,22 @@ class JextractDefinitionTest {
         // Assert
         assertThat(definition.getNativeLibraryLoading().getResourcePath().get()).isEqualTo("/libs/test.utils");
     }
+
+    @Test
+    void canConfigureSymbolFilter() {
+        // Arrange
+        Project project = ProjectBuilder.builder().build();
+        JextractDefinition definition = project.getObjects().newInstance(JextractDefinition.class, "testLib");
+
+        // Act
+        definition.symbols(symbols -> {
+            symbols.getIncludeNames().add("SSL_.*");
+            symbols.getKinds().add(SymbolKind.FUNCTION);
+        });
+
+        // Assert
+        assertThat(definition.getSymbols().getIncludeNames().get()).containsExactly("SSL_.*");
+        assertThat(definition.getSymbols().getKinds().get()).containsExactly(SymbolKind.FUNCTION);
+        assertThat(definition.getSymbols().getHeaders().get()).isEmpty();
+    }
 }
@@ -0,0 +1,181 @@
+package de.timscho.jextract.internal.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.timscho.jextract.internal.execution.JextractToolAction;
+import de.timscho.jextract.internal.model.PlatformType;
+import de.timscho.jextract.internal.model.SupportedPlatform;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Stream;
+import javax.tools.ToolProvider;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JextractDaemonClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path daemonsDir;
+    private JextractDaemonClient client;
+
+    @BeforeEach
+    void createClient() throws IOException {
+        this.daemonsDir = this.tempDir.resolve("daemons");
+        final boolean windows = SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS;
+        this.client = JextractDaemonClient.builder()
+                .daemonsDir(this.daemonsDir)
+                .runtimeJava(Path.of(System.getProperty("java.home"), "bin", windows ? "java.exe" : "java")
+                        .toFile())
+                .jvmArgs(List.of("--module-path", this.stubToolModule().toString()))
+                .idleTimeout(Duration.ofMinutes(5))
+                .logger(Logging.getLogger(JextractDaemonClientTest.class))
+                .build();
+    }
+
+    @AfterEach
+    void stopDaemons() throws IOException {
+        if (!Files.isDirectory(this.daemonsDir)) {
+            return;
+        }
+        try (Stream<Path> daemonDirs = Files.list(this.daemonsDir)) {
+            for (final Path daemonDir : daemonDirs.toList()) {
+                final Path stateFile = daemonDir.resolve("daemon.properties");
+                if (Files.exists(stateFile)) {
+                    JextractDaemonClientTest.process(stateFile).ifPresent(process -> {
+                        process.destroy();
+                        process.onExit().join();
+                    });
+                }
+            }
+        }
+    }
+
+    @Test
+    void spawnsDaemonOnFirstRequest() throws IOException {
+        // Act
+        this.client.run(this.tempDir.toFile(), List.of("header.h"));
+
+        // Assert
+        final Path stateFile = this.stateFile();
+        assertThat(stateFile).exists();
+        assertThat(JextractDaemonClientTest.process(stateFile)).isPresent();
+    }
+
+    @Test
+    void reusesHealthyDaemon() throws IOException {
+        // Arrange
+        this.client.run(this.tempDir.toFile(), List.of("first.h"));
+        final long firstPid = JextractDaemonClientTest.pid(this.stateFile());
+
+        // Act
+        this.client.run(this.tempDir.toFile(), List.of("second.h"));
+
+        // Assert
+        assertThat(JextractDaemonClientTest.pid(this.stateFile())).isEqualTo(firstPid);
+    }
+
+    @Test
+    void restartsDaemonBehindStaleStateFile() throws IOException {
+        // Arrange
+        this.client.run(this.tempDir.toFile(), List.of("first.h"));
+        final Path stateFile = this.stateFile();
+        final long firstPid = JextractDaemonClientTest.pid(stateFile);
+        // A killed daemon leaves its state file behind
+        final ProcessHandle first = JextractDaemonClientTest.process(stateFile).orElseThrow();
+        first.destroyForcibly();
+        first.onExit().join();
+        assertThat(stateFile).exists();
+
+        // Act
+        this.client.run(this.tempDir.toFile(), List.of("second.h"));
+
+        // Assert
+        assertThat(JextractDaemonClientTest.pid(stateFile)).isNotEqualTo(firstPid);
+        assertThat(JextractDaemonClientTest.process(stateFile)).isPresent();
+    }
+
+    @Test
+    void reportsToolFailureWithOutput() {
+        // Act & Assert
+        assertThatThrownBy(() -> this.client.run(this.tempDir.toFile(), List.of("--fail", "header.h")))
+                .isInstanceOf(GradleException.class)
+                .hasMessageContaining("exit code 1")
+                .hasMessageContaining("Args: --fail header.h");
+    }
+
+    /**
+     * Compiles a module named like the jextract module of a distribution, providing a tool that echoes its
+     * arguments like {@link StubJextractToolProvider}.
+     */
+    private Path stubToolModule() throws IOException {
+        final Path sources = this.tempDir.resolve("stub-sources");
+        final Path stubPackage = sources.resolve("stub");
+        Files.createDirectories(stubPackage);
+        Files.writeString(
+                sources.resolve("module-info.java"),
+                "module " + JextractToolAction.MODULE_NAME + " {\n"
+                        + "    provides java.util.spi.ToolProvider with stub.StubTool;\n"
+                        + "}\n");
+        Files.writeString(
+                stubPackage.resolve("StubTool.java"),
+                """
+                package stub;
+
+                public class StubTool implements java.util.spi.ToolProvider {
+                    public String name() {
+                        return "jextract";
+                    }
+
+                    public int run(java.io.PrintWriter out, java.io.PrintWriter err, String... args) {
+                        out.println("Args: " + String.join(" ", args));
+                        return args.length > 0 && "--fail".equals(args[0]) ? 1 : 0;
+                    }
+                }
+                """);
+
+        final Path modules = this.tempDir.resolve("modules");
+        final Path module = modules.resolve(JextractToolAction.MODULE_NAME);
+        final int exitCode = ToolProvider.getSystemJavaCompiler()
+                .run(
+                        null,
+                        null,
+                        null,
+                        "-d",
+                        module.toString(),
+                        sources.resolve("module-info.java").toString(),
+                        stubPackage.resolve("StubTool.java").toString());
+        assertThat(exitCode).isZero();
+        return modules;
+    }
+
+    private Path stateFile() throws IOException {
+        try (Stream<Path> daemonDirs = Files.list(this.daemonsDir)) {
+            return daemonDirs.findFirst().orElseThrow().resolve("daemon.properties");
+        }
+    }
+
+    private static long pid(final Path stateFile) throws IOException {
+        final Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+        }
+        return Long.parseLong(state.getProperty(DaemonProtocol.PID_KEY));
+    }
+
+    private static Optional<ProcessHandle> process(final Path stateFile) throws IOException {
+        return ProcessHandle.of(JextractDaemonClientTest.pid(stateFile));
+    }
+}
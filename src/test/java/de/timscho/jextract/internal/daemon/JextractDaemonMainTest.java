@@ -0,0 +1,139 @@
+package de.timscho.jextract.internal.daemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JextractDaemonMainTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JextractDaemonMain daemon;
+    private Thread serving;
+    private Properties state;
+
+    @BeforeEach
+    void startDaemon() throws Exception {
+        final Path stateFile = this.tempDir.resolve("daemon.properties");
+        this.daemon = JextractDaemonMain.start(stateFile, Duration.ofSeconds(60));
+        this.serving = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                this.daemon.serve();
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+
+        this.state = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            this.state.load(in);
+        }
+    }
+
+    @AfterEach
+    void stopDaemon() throws Exception {
+        this.daemon.stop();
+        this.serving.join(Duration.ofSeconds(10));
+        assertThat(this.serving.isAlive()).isFalse();
+    }
+
+    @Test
+    void answersHealthCheck() throws Exception {
+        // Act
+        try (Socket socket = this.connect();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            DaemonProtocol.writeString(out, this.state.getProperty(DaemonProtocol.TOKEN_KEY));
+            DaemonProtocol.writeString(out, DaemonProtocol.PING);
+            out.flush();
+
+            // Assert
+            assertThat(DaemonProtocol.readString(in)).isEqualTo(DaemonProtocol.PONG);
+        }
+    }
+
+    @Test
+    void runsToolWithIncludeDirsResolvedAgainstWorkingDir() throws Exception {
+        // Arrange
+        final Path workingDir = this.tempDir.resolve("project");
+
+        // Act
+        try (Socket socket = this.connect();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            DaemonProtocol.writeString(out, this.state.getProperty(DaemonProtocol.TOKEN_KEY));
+            DaemonProtocol.writeString(out, DaemonProtocol.RUN);
+            DaemonProtocol.writeString(out, workingDir.toString());
+            DaemonProtocol.writeStrings(out, List.of("-I", "include", "header.h"));
+            out.flush();
+
+            // Assert
+            assertThat(in.readInt()).isZero();
+            assertThat(DaemonProtocol.readString(in))
+                    .contains("Args: -I " + workingDir.resolve("include") + " header.h");
+        }
+    }
+
+    @Test
+    void publishesStateReadableByOwnerOnly() throws Exception {
+        // Arrange
+        final Path stateFile = this.tempDir.resolve("daemon.properties");
+        Assumptions.assumeTrue(stateFile.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        // Act
+        final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(stateFile);
+
+        // Assert
+        assertThat(permissions)
+                .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    }
+
+    @Test
+    void ignoresRequestsWithWrongToken() throws Exception {
+        // Act
+        try (Socket socket = this.connect();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            DaemonProtocol.writeString(out, "not-the-token");
+            DaemonProtocol.writeString(out, DaemonProtocol.PING);
+            out.flush();
+
+            // Assert
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void removesStateFileWhenStopped() throws Exception {
+        // Act
+        this.daemon.stop();
+        this.serving.join(Duration.ofSeconds(10));
+
+        // Assert
+        assertThat(this.tempDir.resolve("daemon.properties")).doesNotExist();
+    }
+
+    private Socket connect() throws Exception {
+        return new Socket(
+                InetAddress.getLoopbackAddress(), Integer.parseInt(this.state.getProperty(DaemonProtocol.PORT_KEY)));
+    }
+}
@@ -0,0 +1,20 @@
+package de.timscho.jextract.internal.daemon;
+
+import java.io.PrintWriter;
+import java.util.spi.ToolProvider;
+
+/**
+ * Stands in for the jextract tool provider of a real distribution, echoing the arguments it was called with.
+ */
+public class StubJextractToolProvider implements ToolProvider {
+    @Override
+    public String name() {
+        return "jextract";
+    }
+
+    @Override
+    public int run(final PrintWriter out, final PrintWriter err, final String... args) {
+        out.println("Args: " + String.join(" ", args));
+        return args.length > 0 && "--fail".equals(args[0]) ? 1 : 0;
+    }
+}
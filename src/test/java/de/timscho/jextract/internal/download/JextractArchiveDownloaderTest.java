@@ -0,0 +1,185 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.logging.Logging;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JextractArchiveDownloaderTest {
+    private static final String ARCHIVE_PATH = "/jextract.tar.gz";
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger activeRangeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRangeRequests = new AtomicInteger();
+    private @Nullable HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+    }
+
+    @Test
+    void extractsArchiveFromSingleStream() throws Exception {
+        // Arrange
+        final byte[] archive = JextractArchiveDownloaderTest.sampleArchive();
+        final URI uri = this.serve(archive, false, null);
+
+        // Act
+        final String digest = this.downloader(uri).downloadAndExtract(this.tempDir);
+
+        // Assert
+        assertThat(digest).isEqualTo(JextractArchiveDownloaderTest.sha256(archive));
+        assertThat(this.tempDir.resolve("jextract-25/bin/jextract")).hasContent("#!/bin/sh");
+        assertThat(this.rangeRequests).hasValue(0);
+    }
+
+    @Test
+    void extractsArchiveFromConcurrentRangeRequests() throws Exception {
+        // Arrange
+        final byte[] archive = JextractArchiveDownloaderTest.sampleArchive();
+        final URI uri = this.serve(archive, true, JextractArchiveDownloaderTest.sha256(archive));
+
+        // Act
+        final String digest = JextractArchiveDownloader.builder()
+                .httpClient(HttpClient.newHttpClient())
+                .uri(uri)
+                .logger(Logging.getLogger(JextractArchiveDownloaderTest.class))
+                .segmentSize(64)
+                .rangeParallelism(3)
+                .build()
+                .downloadAndExtract(this.tempDir);
+
+        // Assert
+        assertThat(digest).isEqualTo(JextractArchiveDownloaderTest.sha256(archive));
+        assertThat(this.tempDir.resolve("jextract-25/bin/jextract")).hasContent("#!/bin/sh");
+        assertThat(this.tempDir.resolve("jextract-25/conf/jextract.conf")).hasContent("conf");
+        assertThat(this.rangeRequests.get()).isGreaterThan(1);
+        assertThat(this.maxActiveRangeRequests.get()).isBetween(2, 3);
+    }
+
+    @Test
+    void failsOnDigestMismatch() throws Exception {
+        // Arrange
+        final byte[] archive = JextractArchiveDownloaderTest.sampleArchive();
+        final URI uri = this.serve(archive, false, "0".repeat(64));
+
+        // Act & Assert
+        assertThatThrownBy(() -> this.downloader(uri).downloadAndExtract(this.tempDir))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("SHA-256 mismatch");
+    }
+
+    private JextractArchiveDownloader downloader(final URI uri) {
+        return JextractArchiveDownloader.builder()
+                .httpClient(HttpClient.newHttpClient())
+                .uri(uri)
+                .logger(Logging.getLogger(JextractArchiveDownloaderTest.class))
+                .build();
+    }
+
+    private URI serve(final byte[] archive, final boolean acceptRanges, @Nullable final String digest)
+            throws IOException {
+        final HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        httpServer.createContext(JextractArchiveDownloaderTest.ARCHIVE_PATH, exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith(".sha256")) {
+                this.respondDigest(exchange, digest);
+            } else {
+                this.respondArchive(exchange, archive, acceptRanges);
+            }
+        });
+        httpServer.start();
+        this.server = httpServer;
+        return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort()
+                + JextractArchiveDownloaderTest.ARCHIVE_PATH);
+    }
+
+    private void respondDigest(final HttpExchange exchange, @Nullable final String digest) throws IOException {
+        if (digest == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        final byte[] body = (digest + "  jextract.tar.gz\n").getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void respondArchive(final HttpExchange exchange, final byte[] archive, final boolean acceptRanges)
+            throws IOException {
+        if (acceptRanges) {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(archive.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        byte[] body = archive;
+        int status = 200;
+        if (acceptRanges && range != null) {
+            this.rangeRequests.incrementAndGet();
+            this.maxActiveRangeRequests.accumulateAndGet(this.activeRangeRequests.incrementAndGet(), Math::max);
+            try {
+                // Hold the request so the client's following requests overlap with it
+                Thread.sleep(10);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Released before responding, the client may only send its next request once it has the body
+                this.activeRangeRequests.decrementAndGet();
+            }
+            final String[] bounds = range.substring("bytes=".length()).split("-");
+            final int start = Integer.parseInt(bounds[0]);
+            final int end = Integer.parseInt(bounds[1]);
+            body = java.util.Arrays.copyOfRange(archive, start, end + 1);
+            status = 206;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] sampleArchive() {
+        final byte[] padding = new byte[4096];
+        new java.util.Random(42).nextBytes(padding);
+        return TarGzExtractorTest.archive(
+                new TarGzExtractorTest.Entry(
+                        "jextract-25/bin/jextract", '0', 0755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8)),
+                new TarGzExtractorTest.Entry("jextract-25/lib/random.bin", '0', 0644, padding),
+                new TarGzExtractorTest.Entry(
+                        "jextract-25/conf/jextract.conf", '0', 0644, "conf".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String sha256(final byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -24,6 +24,20 @@ class JextractUrlGeneratorTest {
         assertThat(url).isEqualTo(expectedUrl);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "25-jextract+2-4, LINUX_X64, 25.2:openjdk:25-jextract+2-4:linux-x64@tar.gz",
+        "26-jextract+5-1, WINDOWS_X64, 26.5:openjdk:26-jextract+5-1:windows-x64@tar.gz"
+    })
+    void generatesDependencyNotationCorrectly(
+            final String version, final SupportedPlatform platform, final String expectedNotation) {
+        // Act
+        final String notation = JextractUrlGenerator.generateDependencyNotation(version, platform);
+
+        // Assert
+        assertThat(notation).isEqualTo(expectedNotation);
+    }
+
     @Test
     void throwsOnInvalidVersionFormat() {
         // Arrange
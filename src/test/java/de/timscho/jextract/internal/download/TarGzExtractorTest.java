@@ -0,0 +1,212 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.timscho.jextract.internal.model.PlatformType;
+import de.timscho.jextract.internal.model.SupportedPlatform;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TarGzExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extractsFilesDirectoriesAndLongNames() throws IOException {
+        // Arrange
+        final String longName = "jextract-25/" + "nested/".repeat(20) + "deep.txt";
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("jextract-25/", '5', 0755, new byte[0]),
+                new Entry("jextract-25/bin/jextract", '0', 0755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8)),
+                new Entry(longName, '0', 0644, "deep".getBytes(StandardCharsets.UTF_8)));
+
+        // Act
+        new TarGzExtractor(this.tempDir, 2).extract(new ByteArrayInputStream(archive));
+
+        // Assert
+        assertThat(this.tempDir.resolve("jextract-25/bin/jextract")).hasContent("#!/bin/sh");
+        assertThat(this.tempDir.resolve(longName)).hasContent("deep");
+    }
+
+    @Test
+    void rejectsEntriesOutsideOfTargetDirectory() {
+        // Arrange
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("../escape.txt", '0', 0644, "evil".getBytes(StandardCharsets.UTF_8)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> new TarGzExtractor(this.tempDir, 1).extract(new ByteArrayInputStream(archive)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside of the target directory");
+        assertThat(this.tempDir.resolveSibling("escape.txt")).doesNotExist();
+    }
+
+    @Test
+    void rejectsArchiveWithCorruptGzipTrailer() {
+        // Arrange
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("jextract-25/bin/jextract", '0', 0755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8)));
+        // The trailer ends with the CRC32 and the size of the uncompressed data
+        archive[archive.length - 8] ^= 0x01;
+
+        // Act & Assert
+        assertThatThrownBy(() -> new TarGzExtractor(this.tempDir, 1).extract(new ByteArrayInputStream(archive)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupt GZIP trailer");
+    }
+
+    @Test
+    void extractsSymbolicLinksInsideOfTargetDirectory() throws IOException {
+        // Arrange
+        TarGzExtractorTest.assumeSymbolicLinks();
+        final Path target = this.tempDir.resolve("target");
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("lib/libclang.so", '2', 0777, new byte[0], "libclang.so.19"),
+                new Entry("lib/libclang.so.19", '0', 0644, "clang".getBytes(StandardCharsets.UTF_8)));
+
+        // Act
+        new TarGzExtractor(target, 1).extract(new ByteArrayInputStream(archive));
+
+        // Assert
+        assertThat(target.resolve("lib/libclang.so")).isSymbolicLink().hasContent("clang");
+    }
+
+    @Test
+    void rejectsSymbolicLinksPointingOutsideOfTargetDirectory() {
+        // Arrange
+        final Path target = this.tempDir.resolve("target");
+        final byte[] archive =
+                TarGzExtractorTest.archive(new Entry("lib/escape", '2', 0777, new byte[0], "../../outside"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> new TarGzExtractor(target, 1).extract(new ByteArrayInputStream(archive)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside of the target directory");
+        assertThat(target.resolve("lib/escape")).doesNotExist();
+    }
+
+    @Test
+    void rejectsChainedSymbolicLinksLeavingTargetDirectory() {
+        // Arrange
+        TarGzExtractorTest.assumeSymbolicLinks();
+        final Path target = this.tempDir.resolve("target");
+        // Lexically "self/.." is the target directory itself, but "self" resolves to the target directory first
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("self", '2', 0777, new byte[0], "."),
+                new Entry("up", '2', 0777, new byte[0], "self/.."));
+
+        // Act & Assert
+        assertThatThrownBy(() -> new TarGzExtractor(target, 1).extract(new ByteArrayInputStream(archive)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside of the target directory");
+    }
+
+    @Test
+    void neverWritesEntriesThroughSymbolicLinks() {
+        // Arrange
+        TarGzExtractorTest.assumeSymbolicLinks();
+        final Path target = this.tempDir.resolve("target");
+        final byte[] archive = TarGzExtractorTest.archive(
+                new Entry("self", '2', 0777, new byte[0], "."),
+                new Entry("up", '2', 0777, new byte[0], "self/.."),
+                new Entry("up/escape.txt", '0', 0644, "evil".getBytes(StandardCharsets.UTF_8)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> new TarGzExtractor(target, 2).extract(new ByteArrayInputStream(archive)))
+                .isInstanceOf(IOException.class);
+        assertThat(this.tempDir.resolve("escape.txt")).doesNotExist();
+    }
+
+    @Test
+    void streamsLargeEntriesToDisk() throws IOException {
+        // Arrange
+        final byte[] large = new byte[5 * 1024 * 1024 + 17];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        final byte[] archive = TarGzExtractorTest.archive(new Entry("lib/libclang.so", '0', 0644, large));
+
+        // Act
+        new TarGzExtractor(this.tempDir, 4).extract(new ByteArrayInputStream(archive));
+
+        // Assert
+        assertThat(Files.readAllBytes(this.tempDir.resolve("lib/libclang.so"))).isEqualTo(large);
+    }
+
+    record Entry(String name, char type, int mode, byte[] content, String link) {
+        Entry(final String name, final char type, final int mode, final byte[] content) {
+            this(name, type, mode, content, "");
+        }
+    }
+
+    private static void assumeSymbolicLinks() {
+        Assumptions.assumeFalse(
+                SupportedPlatform.getCurrentSupported().getPlatformType() == PlatformType.WINDOWS,
+                "Creating symbolic links requires extra privileges on Windows");
+    }
+
+    static byte[] archive(final Entry... entries) {
+        try {
+            final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            for (final Entry entry : entries) {
+                final byte[] nameBytes = entry.name().getBytes(StandardCharsets.UTF_8);
+                if (nameBytes.length > 100) {
+                    final byte[] longName = new byte[nameBytes.length + 1];
+                    System.arraycopy(nameBytes, 0, longName, 0, nameBytes.length);
+                    TarGzExtractorTest.writeEntry(tar, "././@LongLink", 'L', 0644, longName, "");
+                }
+                TarGzExtractorTest.writeEntry(
+                        tar, entry.name(), entry.type(), entry.mode(), entry.content(), entry.link());
+            }
+            tar.write(new byte[1024]);
+
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(tar.toByteArray());
+            }
+            return compressed.toByteArray();
+        } catch (final IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static void writeEntry(
+            final ByteArrayOutputStream tar,
+            final String name,
+            final char type,
+            final int mode,
+            final byte[] content,
+            final String link)
+            throws IOException {
+        final byte[] header = new byte[512];
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        TarGzExtractorTest.putOctal(header, 100, 8, mode);
+        TarGzExtractorTest.putOctal(header, 124, 12, content.length);
+        header[156] = (byte) type;
+        final byte[] linkBytes = link.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(linkBytes, 0, header, 157, Math.min(linkBytes.length, 100));
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+        tar.write(header);
+        tar.write(content);
+        final int remainder = content.length % 512;
+        if (remainder != 0) {
+            tar.write(new byte[512 - remainder]);
+        }
+    }
+
+    private static void putOctal(final byte[] header, final int offset, final int length, final long value) {
+        final String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+    }
+}
@@ -0,0 +1,178 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ToolCacheCleanupTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void evictsVersionsUnusedForLongerThanMaxAge() throws Exception {
+        // Arrange
+        final Path stale = this.cachedVersion("24-jextract_1-1", Duration.ofDays(40), 16);
+        final Path fresh = this.cachedVersion("25-jextract_2-4", Duration.ofDays(2), 16);
+
+        // Act
+        final boolean cleaned = this.cleanup(0, Set.of()).cleanupIfDue();
+
+        // Assert
+        assertThat(cleaned).isTrue();
+        assertThat(stale).doesNotExist();
+        assertThat(fresh).isDirectory();
+        assertThat(this.tempDir).isDirectoryNotContaining("glob:**.tmp-*");
+    }
+
+    @Test
+    void keepsProtectedVersions() throws Exception {
+        // Arrange
+        final Path stale = this.cachedVersion("24-jextract_1-1", Duration.ofDays(40), 16);
+
+        // Act
+        this.cleanup(0, Set.of("24-jextract_1-1")).cleanupIfDue();
+
+        // Assert
+        assertThat(stale).isDirectory();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedVersionsUntilSizeBudgetIsMet() throws Exception {
+        // Arrange
+        final Path oldest = this.cachedVersion("23-jextract_1-1", Duration.ofDays(5), 1024);
+        final Path older = this.cachedVersion("24-jextract_1-1", Duration.ofDays(3), 1024);
+        final Path recent = this.cachedVersion("25-jextract_2-4", Duration.ofDays(1), 1024);
+
+        // Act
+        this.cleanup(2500, Set.of()).cleanupIfDue();
+
+        // Assert
+        assertThat(oldest).doesNotExist();
+        assertThat(older).isDirectory();
+        assertThat(recent).isDirectory();
+    }
+
+    @Test
+    void skipsVersionsLockedByAnotherBuild() throws Exception {
+        // Arrange
+        final Path stale = this.cachedVersion("24-jextract_1-1", Duration.ofDays(40), 16);
+
+        // Act
+        final Path lockFile = this.tempDir.resolve("24-jextract_1-1.lock");
+        try (ToolCacheLock _ = ToolCacheLock.acquire(lockFile, Logging.getLogger(ToolCacheCleanupTest.class))) {
+            this.cleanup(0, Set.of()).cleanupIfDue();
+        }
+
+        // Assert
+        assertThat(stale).isDirectory();
+    }
+
+    @Test
+    void runsAtMostOncePerInterval() throws Exception {
+        // Arrange
+        this.cachedVersion("25-jextract_2-4", Duration.ofDays(1), 16);
+        this.cleanup(0, Set.of()).cleanupIfDue();
+        final Path stale = this.cachedVersion("24-jextract_1-1", Duration.ofDays(40), 16);
+
+        // Act
+        final boolean cleaned = this.cleanup(0, Set.of()).cleanupIfDue();
+
+        // Assert
+        assertThat(cleaned).isFalse();
+        assertThat(stale).isDirectory();
+    }
+
+    @Test
+    void keepsRecentlyUsedVersionsWithoutMaxAge() throws Exception {
+        // Arrange
+        final Path inUse = this.cachedVersion("25-jextract_2-4", Duration.ofMinutes(10), 16);
+        final Path stale = this.cachedVersion("24-jextract_1-1", Duration.ofHours(2), 16);
+        final ToolCacheCleanup cleanup = ToolCacheCleanup.builder()
+                .cacheBase(this.tempDir)
+                .maxUnusedAge(Duration.ZERO)
+                .maxSizeBytes(0)
+                .protectedVersions(Set.of())
+                .logger(Logging.getLogger(ToolCacheCleanupTest.class))
+                .build();
+
+        // Act
+        cleanup.cleanupIfDue();
+
+        // Assert
+        assertThat(inUse).isDirectory();
+        assertThat(stale).doesNotExist();
+    }
+
+    @Test
+    void refreshesUseMarkerOlderThanHalfTheProtectionWindow() throws Exception {
+        // Arrange
+        final Path recent = this.cachedVersion("25-jextract_2-4", Duration.ofMinutes(10), 16);
+        final Path aging = this.cachedVersion("24-jextract_1-1", Duration.ofMinutes(40), 16);
+        final FileTime recentMark = Files.getLastModifiedTime(recent.resolve(ToolCacheCleanup.LAST_USED_NAME));
+        final Instant before = Instant.now();
+
+        // Act
+        ToolCacheCleanup.markUsed(recent);
+        ToolCacheCleanup.markUsed(aging);
+
+        // Assert
+        assertThat(Files.getLastModifiedTime(recent.resolve(ToolCacheCleanup.LAST_USED_NAME)))
+                .isEqualTo(recentMark);
+        assertThat(Files.getLastModifiedTime(aging.resolve(ToolCacheCleanup.LAST_USED_NAME))
+                        .toInstant())
+                .isAfterOrEqualTo(before.minusSeconds(1));
+    }
+
+    @Test
+    void evictsSharedArchivesUnusedForLongerThanMaxAge() throws Exception {
+        // Arrange
+        final Path stale = this.sharedArchive("0123456789abcdef", Duration.ofDays(40));
+        final Path fresh = this.sharedArchive("fedcba9876543210", Duration.ofDays(2));
+
+        // Act
+        this.cleanup(0, Set.of()).cleanupIfDue();
+
+        // Assert
+        assertThat(stale).doesNotExist();
+        assertThat(fresh).exists();
+    }
+
+    private ToolCacheCleanup cleanup(final long maxSizeBytes, final Set<String> protectedVersions) {
+        return ToolCacheCleanup.builder()
+                .cacheBase(this.tempDir)
+                .maxUnusedAge(Duration.ofDays(30))
+                .maxSizeBytes(maxSizeBytes)
+                .protectedVersions(protectedVersions)
+                .logger(Logging.getLogger(ToolCacheCleanupTest.class))
+                .build();
+    }
+
+    private Path sharedArchive(final String key, final Duration unusedFor) throws Exception {
+        final Path archiveDir =
+                Files.createDirectories(this.tempDir.resolve(ToolSharedArchive.DIRECTORY_NAME).resolve(key));
+        final Path archive = Files.write(archiveDir.resolve(ToolSharedArchive.ARCHIVE_NAME), new byte[16]);
+
+        final Path marker = Files.createFile(archiveDir.resolve(ToolCacheCleanup.LAST_USED_NAME));
+        Files.setLastModifiedTime(marker, FileTime.from(Instant.now().minus(unusedFor)));
+        return archive;
+    }
+
+    private Path cachedVersion(final String name, final Duration unusedFor, final int size) throws Exception {
+        final Path versionDir = Files.createDirectories(this.tempDir.resolve(name));
+        Files.write(versionDir.resolve("payload"), new byte[size]);
+        Files.createFile(versionDir.resolve(JextractToolService.FILE_INTEGRITY_NAME));
+
+        final Path marker = Files.createFile(versionDir.resolve(ToolCacheCleanup.LAST_USED_NAME));
+        Files.setLastModifiedTime(marker, FileTime.from(Instant.now().minus(unusedFor)));
+        return versionDir;
+    }
+}
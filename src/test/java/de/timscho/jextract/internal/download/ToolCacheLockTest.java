@@ -0,0 +1,69 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ToolCacheLockTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tryAcquireFailsWhileLockIsHeldByAnotherThread() throws Exception {
+        // Arrange
+        final Path lockFile = this.tempDir.resolve("25-jextract_2-4.lock");
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            try (ToolCacheLock _ = ToolCacheLock.acquire(lockFile, Logging.getLogger(ToolCacheLockTest.class))) {
+                acquired.countDown();
+                release.await();
+            } catch (final Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        assertThat(acquired.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Act & Assert
+        assertThat(ToolCacheLock.tryAcquire(lockFile)).isNull();
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+
+        try (ToolCacheLock lock = ToolCacheLock.tryAcquire(lockFile)) {
+            assertThat(lock).isNotNull();
+        }
+    }
+
+    @Test
+    void acquireWaitsForCurrentHolder() throws Exception {
+        // Arrange
+        final Path lockFile = this.tempDir.resolve("version.lock");
+        final ToolCacheLock first = ToolCacheLock.acquire(lockFile, Logging.getLogger(ToolCacheLockTest.class));
+
+        // Act
+        final CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try (ToolCacheLock _ = ToolCacheLock.acquire(lockFile, Logging.getLogger(ToolCacheLockTest.class))) {
+                // Acquired after the first holder released the lock
+            } catch (final Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        Thread.sleep(200);
+        final boolean finishedWhileHeld = waiter.isDone();
+        first.close();
+        waiter.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(finishedWhileHeld).isFalse();
+        assertThat(waiter).isCompleted();
+    }
+}
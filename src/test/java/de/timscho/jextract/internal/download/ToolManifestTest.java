@@ -0,0 +1,39 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ToolManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writtenManifestCanBeReadBack() throws Exception {
+        // Arrange
+        final ToolManifest manifest = ToolManifest.builder()
+                .executable("jextract-25/bin/jextract")
+                .platform("linux-x64")
+                .sha256("abc123")
+                .version("25-jextract+2-4")
+                .build();
+
+        // Act
+        manifest.write(this.tempDir);
+        final ToolManifest read = ToolManifest.read(this.tempDir);
+
+        // Assert
+        assertThat(read).isEqualTo(manifest);
+        assertThat(read.resolveExecutable(this.tempDir))
+                .isEqualTo(this.tempDir.resolve("jextract-25").resolve("bin").resolve("jextract"));
+    }
+
+    @Test
+    void missingManifestReadsAsNull() throws Exception {
+        // Act & Assert
+        assertThat(ToolManifest.read(this.tempDir)).isNull();
+    }
+}
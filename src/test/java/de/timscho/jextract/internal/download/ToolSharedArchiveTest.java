@@ -0,0 +1,123 @@
+package de.timscho.jextract.internal.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ToolSharedArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void firstLaunchCreatesArchiveInToolCache() throws Exception {
+        // Arrange
+        final File executable = this.distribution();
+        final Path archivesDir = this.tempDir.resolve("cache").resolve(ToolSharedArchive.DIRECTORY_NAME);
+
+        // Act
+        try (ToolSharedArchive sharedArchive =
+                ToolSharedArchive.open(executable, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class))) {
+            // Assert
+            assertThat(sharedArchive.getJvmOptions()).hasSize(2);
+            final Path archive = ToolSharedArchiveTest.archive(sharedArchive);
+            assertThat(archive.getParent().getParent()).isEqualTo(archivesDir);
+            assertThat(archive.getFileName()).hasToString(ToolSharedArchive.ARCHIVE_NAME);
+            assertThat(sharedArchive.getJvmOptions().getLast()).isEqualTo("-XX:+AutoCreateSharedArchive");
+        }
+    }
+
+    @Test
+    void neverWritesIntoDistribution() throws Exception {
+        // Arrange
+        final File executable = this.distribution();
+        final Path distributionDir = executable.toPath().getParent().getParent();
+
+        // Act
+        try (ToolSharedArchive _ = ToolSharedArchive.open(
+                executable, this.tempDir.resolve("cache"), Logging.getLogger(ToolSharedArchiveTest.class))) {
+            // Assert
+            try (Stream<Path> files = Files.walk(distributionDir)) {
+                assertThat(files.filter(Files::isRegularFile)).containsExactly(executable.toPath());
+            }
+        }
+    }
+
+    @Test
+    void distributionsGetSeparateArchives() throws Exception {
+        // Arrange
+        final File first = this.distribution("first");
+        final File second = this.distribution("second");
+        final Path archivesDir = this.tempDir.resolve("cache");
+
+        // Act
+        try (ToolSharedArchive firstArchive =
+                        ToolSharedArchive.open(first, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class));
+                ToolSharedArchive secondArchive =
+                        ToolSharedArchive.open(second, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class))) {
+            // Assert
+            assertThat(ToolSharedArchiveTest.archive(firstArchive))
+                    .isNotEqualTo(ToolSharedArchiveTest.archive(secondArchive));
+            assertThat(secondArchive.getJvmOptions()).contains("-XX:+AutoCreateSharedArchive");
+        }
+    }
+
+    @Test
+    void concurrentLaunchOnlyMapsExistingArchive() throws Exception {
+        // Arrange
+        final File executable = this.distribution();
+        final Path archivesDir = this.tempDir.resolve("cache");
+
+        try (ToolSharedArchive first =
+                ToolSharedArchive.open(executable, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class))) {
+            final Path archive = Files.createFile(ToolSharedArchiveTest.archive(first));
+
+            // Act
+            final ToolSharedArchive concurrent = CompletableFuture.supplyAsync(() -> ToolSharedArchive.open(
+                            executable, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class)))
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(concurrent.getJvmOptions()).containsExactly("-XX:SharedArchiveFile=" + archive);
+        }
+    }
+
+    @Test
+    void concurrentLaunchWithoutArchiveAddsNoOptions() throws Exception {
+        // Arrange
+        final File executable = this.distribution();
+        final Path archivesDir = this.tempDir.resolve("cache");
+
+        try (ToolSharedArchive _ =
+                ToolSharedArchive.open(executable, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class))) {
+            // Act
+            final ToolSharedArchive concurrent = CompletableFuture.supplyAsync(() -> ToolSharedArchive.open(
+                            executable, archivesDir, Logging.getLogger(ToolSharedArchiveTest.class)))
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(concurrent.getJvmOptions()).isEmpty();
+        }
+    }
+
+    private static Path archive(final ToolSharedArchive sharedArchive) {
+        return Path.of(sharedArchive.getJvmOptions().getFirst().substring("-XX:SharedArchiveFile=".length()));
+    }
+
+    private File distribution() throws Exception {
+        return this.distribution("jextract-25");
+    }
+
+    private File distribution(final String name) throws Exception {
+        final Path binDir = Files.createDirectories(this.tempDir.resolve(name).resolve("bin"));
+        return Files.createFile(binDir.resolve("jextract")).toFile();
+    }
+}
@@ -0,0 +1,31 @@
+package de.timscho.jextract.internal.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JextractBudgetServiceTest {
+
+    @Test
+    void readsHeapFromJvmArgs() {
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmx2g"))).isEqualTo(2048);
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmx768m"))).isEqualTo(768);
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmx1048576k"))).isEqualTo(1024);
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmx268435456"))).isEqualTo(256);
+    }
+
+    @Test
+    void lastHeapOptionWins() {
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmx1g", "-XX:TieredStopAtLevel=1", "-Xmx3G")))
+                .isEqualTo(3072);
+    }
+
+    @Test
+    void defaultsWithoutOrWithInvalidHeapOption() {
+        assertThat(JextractBudgetService.memoryMegabytes(List.of()))
+                .isEqualTo(JextractBudgetService.DEFAULT_MEMORY_MEGABYTES);
+        assertThat(JextractBudgetService.memoryMegabytes(List.of("-Xmxlots")))
+                .isEqualTo(JextractBudgetService.DEFAULT_MEMORY_MEGABYTES);
+    }
+}
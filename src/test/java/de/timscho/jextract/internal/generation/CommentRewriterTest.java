@@ -0,0 +1,124 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.timscho.jextract.extension.CommentPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommentRewriterTest {
+    private static final String SOURCE = """
+            // Generated by jextract
+
+            package com.example;
+
+            /**
+             * {@snippet lang=c :
+             * struct point {
+             *     int x;
+             * }
+             * }
+             */
+            public class point {
+                static final String SEPARATOR = "/* not a comment */";
+                static final char SLASH = '/'; // trailing
+
+                /**
+                 * {@snippet lang=c :
+                 * int add(int a, int b)
+                 * }
+                 */
+                public static int add(int a, int b) { /* inline */
+                    return a + b;
+                }
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void stripsAllComments() throws Exception {
+        // Arrange
+        final Path file = this.writeSource();
+
+        // Act
+        final int rewritten = CommentRewriter.builder()
+                .policy(CommentPolicy.STRIP)
+                .build()
+                .rewrite(this.tempDir);
+
+        // Assert
+        assertThat(rewritten).isEqualTo(1);
+        assertThat(Files.readString(file)).isEqualTo("""
+
+                package com.example;
+
+                public class point {
+                    static final String SEPARATOR = "/* not a comment */";
+                    static final char SLASH = '/';
+
+                    public static int add(int a, int b) {
+                        return a + b;
+                    }
+                }
+                """);
+    }
+
+    @Test
+    void shortensBlockCommentsToSummaries() throws Exception {
+        // Arrange
+        final Path file = this.writeSource();
+        final CommentRewriter rewriter =
+                CommentRewriter.builder().policy(CommentPolicy.SUMMARY).build();
+
+        // Act
+        final int rewritten = rewriter.rewrite(this.tempDir);
+        final int rewrittenAgain = rewriter.rewrite(this.tempDir);
+
+        // Assert
+        assertThat(rewritten).isEqualTo(1);
+        assertThat(rewrittenAgain).isZero();
+        assertThat(Files.readString(file)).isEqualTo("""
+                // Generated by jextract
+
+                package com.example;
+
+                /** struct point &#123; */
+                public class point {
+                    static final String SEPARATOR = "/* not a comment */";
+                    static final char SLASH = '/'; // trailing
+
+                    /** int add(int a, int b) */
+                    public static int add(int a, int b) { /* inline */
+                        return a + b;
+                    }
+                }
+                """);
+    }
+
+    @Test
+    void keepsCommentsByDefault() throws Exception {
+        // Arrange
+        final Path file = this.writeSource();
+
+        // Act
+        final int rewritten = CommentRewriter.builder()
+                .policy(CommentPolicy.KEEP)
+                .build()
+                .rewrite(this.tempDir);
+
+        // Assert
+        assertThat(rewritten).isZero();
+        assertThat(Files.readString(file)).isEqualTo(CommentRewriterTest.SOURCE);
+    }
+
+    private Path writeSource() throws Exception {
+        final Path file = this.tempDir.resolve("com/example/point.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, CommentRewriterTest.SOURCE);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GeneratedSourcePublisherTest {
+    private static final FileTime PUBLISHED_AT = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepsUnchangedFilesAndRewritesChangedOnes() throws Exception {
+        // Arrange
+        final Path staging = this.tempDir.resolve("staging");
+        final Path output = this.tempDir.resolve("output");
+        this.write(staging, "com/example/point.java", "class point {}");
+        this.write(staging, "com/example/sdk_h.java", "class sdk_h { void open() {} }");
+        this.write(output, "com/example/point.java", "class point {}");
+        this.write(output, "com/example/sdk_h.java", "class sdk_h {}");
+
+        // Act
+        final GeneratedSourcePublisher.Result result = GeneratedSourcePublisher.publish(staging, output);
+
+        // Assert
+        assertThat(result).isEqualTo(new GeneratedSourcePublisher.Result(1, 1, 0));
+        assertThat(Files.getLastModifiedTime(output.resolve("com/example/point.java")))
+                .isEqualTo(GeneratedSourcePublisherTest.PUBLISHED_AT);
+        assertThat(output.resolve("com/example/sdk_h.java")).hasContent("class sdk_h { void open() {} }");
+    }
+
+    @Test
+    void deletesFilesAndDirectoriesMissingFromStaging() throws Exception {
+        // Arrange
+        final Path staging = this.tempDir.resolve("staging");
+        final Path output = this.tempDir.resolve("output");
+        this.write(staging, "com/example/sdk_h.java", "class sdk_h {}");
+        this.write(output, "com/example/sdk_h.java", "class sdk_h {}");
+        this.write(output, "com/example/window.java", "class window {}");
+        this.write(output, "com/example/old/legacy.java", "class legacy {}");
+
+        // Act
+        final GeneratedSourcePublisher.Result result = GeneratedSourcePublisher.publish(staging, output);
+
+        // Assert
+        assertThat(result).isEqualTo(new GeneratedSourcePublisher.Result(0, 1, 2));
+        assertThat(output.resolve("com/example/window.java")).doesNotExist();
+        assertThat(output.resolve("com/example/old")).doesNotExist();
+        assertThat(output).exists();
+    }
+
+    private void write(final Path root, final String path, final String content) throws Exception {
+        final Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, GeneratedSourcePublisherTest.PUBLISHED_AT);
+    }
+}
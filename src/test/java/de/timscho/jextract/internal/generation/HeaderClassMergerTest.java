@@ -0,0 +1,184 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HeaderClassMergerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void chainsShardMembersBelowTopHeaderClass() throws Exception {
+        // Arrange
+        final Path output = this.tempDir.resolve("output");
+        final Path shard = this.tempDir.resolve("shard-1");
+        this.write(output, "sdk_h.java", """
+                package com.example;
+                public class sdk_h extends sdk_h_1 {
+                    static final int SHARED = 1;
+                    public static int open() { return 0; }
+                }
+                """);
+        this.write(output, "sdk_h_1.java", "package com.example;\nclass sdk_h_1 { static void helper() {} }\n");
+        this.write(output, "point.java", "package com.example;\npublic class point { }\n");
+        this.write(shard, "sdk_h.java", """
+                package com.example;
+                public class sdk_h extends sdk_h_1 {
+                    static final int SHARED = 1;
+                    public static int close(int handle) { return handle; }
+                }
+                """);
+        this.write(shard, "sdk_h_1.java", "package com.example;\nclass sdk_h_1 { static void helper() {} }\n");
+        this.write(shard, "point.java", "package com.example;\npublic class point { int changed; }\n");
+        this.write(shard, "window.java", "package com.example;\npublic class window { }\n");
+
+        // Act
+        HeaderClassMerger.builder()
+                .outputDirectory(output)
+                .targetPackage("com.example")
+                .headerClassName("sdk_h")
+                .logger(Logging.getLogger(HeaderClassMergerTest.class))
+                .build()
+                .merge(shard);
+
+        // Assert
+        final ClassOrInterfaceDeclaration header = StaticJavaParser.parse(output.resolve("com/example/sdk_h.java"))
+                .getClassByName("sdk_h")
+                .orElseThrow();
+        final ClassOrInterfaceDeclaration link = StaticJavaParser.parse(output.resolve("com/example/sdk_h_2.java"))
+                .getClassByName("sdk_h_2")
+                .orElseThrow();
+        assertThat(header.getExtendedTypes())
+                .extracting(ClassOrInterfaceType::getNameAsString)
+                .containsExactly("sdk_h_2");
+        assertThat(header.getMethodsByName("open")).hasSize(1);
+        assertThat(header.getFields()).hasSize(1);
+        assertThat(link.getExtendedTypes())
+                .extracting(ClassOrInterfaceType::getNameAsString)
+                .containsExactly("sdk_h_1");
+        assertThat(link.getMethodsByName("close")).hasSize(1);
+        assertThat(link.getMethodsByName("helper")).isEmpty();
+        assertThat(link.getFields()).isEmpty();
+        assertThat(output.resolve("com/example/sdk_h_1.java")).content().doesNotContain("close");
+        assertThat(output.resolve("com/example/window.java")).exists();
+        assertThat(output.resolve("com/example/point.java")).content().doesNotContain("changed");
+    }
+
+    @Test
+    void keepsEveryLinkWithinClassFileLimits() throws Exception {
+        // Arrange, every constant takes three entries of the constant pool, together they exceed its 65535 entries
+        final int constantsPerShard = 11_000;
+        final Path output = this.tempDir.resolve("output");
+        final Path shard = this.tempDir.resolve("shard-1");
+        this.write(output, "sdk_h.java", HeaderClassMergerTest.headerClass("a", constantsPerShard, ""));
+        this.write(shard, "sdk_h.java", HeaderClassMergerTest.headerClass(
+                "b", constantsPerShard, "    public static int handle() { return helper(); }\n"));
+        this.write(output, "Use.java", """
+                package com.example;
+                class Use { int use() { return (sdk_h.a0 + sdk_h.b10999).length() + sdk_h.handle(); } }
+                """);
+
+        // Act
+        HeaderClassMerger.builder()
+                .outputDirectory(output)
+                .targetPackage("com.example")
+                .headerClassName("sdk_h")
+                .logger(Logging.getLogger(HeaderClassMergerTest.class))
+                .build()
+                .merge(shard);
+
+        // Assert
+        final List<Path> sources;
+        try (Stream<Path> files = Files.list(output.resolve("com/example"))) {
+            sources = files.sorted().toList();
+        }
+        assertThat(sources).extracting(file -> file.getFileName().toString())
+                .containsExactly("Use.java", "sdk_h.java", "sdk_h_1.java", "sdk_h_2.java");
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final int exitCode = compiler.run(
+                null,
+                null,
+                null,
+                Stream.concat(
+                                Stream.of("-d", this.tempDir.resolve("classes").toString()),
+                                sources.stream().map(Path::toString))
+                        .toArray(String[]::new));
+        assertThat(exitCode).isZero();
+    }
+
+    @Test
+    void removesBindingsOfSymbols() throws Exception {
+        // Arrange
+        final Path output = this.tempDir.resolve("output");
+        this.write(output, "sdk_h.java", """
+                package com.example;
+                public class sdk_h extends sdk_h_1 {
+                    private static class sdk_open { static final int HANDLE = 0; }
+                    public static int sdk_open() { return 0; }
+                    public static int sdk_open$address() { return 0; }
+                    public static int sdk_close() { return 0; }
+                }
+                """);
+        this.write(output, "sdk_h_1.java", "package com.example;\nclass sdk_h_1 { static final int point = 1; }\n");
+        this.write(output, "point.java", "package com.example;\npublic class point { }\n");
+        this.write(output, "window.java", "package com.example;\npublic class window { }\n");
+
+        // Act
+        HeaderClassMerger.builder()
+                .outputDirectory(output)
+                .targetPackage("com.example")
+                .headerClassName("sdk_h")
+                .logger(Logging.getLogger(HeaderClassMergerTest.class))
+                .build()
+                .remove(Set.of("sdk_open", "point"));
+
+        // Assert
+        final TypeDeclaration<?> header = StaticJavaParser.parse(output.resolve("com/example/sdk_h.java"))
+                .getType(0);
+        assertThat(header.getMembers()).hasSize(1);
+        assertThat(header.getMethodsByName("sdk_close")).hasSize(1);
+        assertThat(output.resolve("com/example/sdk_h_1.java")).content().doesNotContain("point");
+        assertThat(output.resolve("com/example/point.java")).doesNotExist();
+        assertThat(output.resolve("com/example/window.java")).exists();
+    }
+
+    private static String headerClass(final String prefix, final int constants, final String extra) {
+        final StringBuilder source = new StringBuilder("""
+                package com.example;
+                public class sdk_h {
+                    sdk_h() {}
+                    static int helper() { return 1; }
+                """);
+        for (int index = 0; index < constants; index++) {
+            source.append("    public static final String ")
+                    .append(prefix)
+                    .append(index)
+                    .append(" = \"value ")
+                    .append(prefix)
+                    .append(index)
+                    .append("\";\n");
+        }
+        return source.append(extra).append("}\n").toString();
+    }
+
+    private void write(final Path root, final String name, final String content) throws Exception {
+        final Path file = root.resolve("com/example").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,61 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class HeaderDeclarationsTest {
+
+    @Test
+    void attributesDeclarationsToTheirNames() {
+        // Arrange
+        final String source = """
+                #ifdef __cplusplus
+                extern "C" {
+                #endif
+                #define VERSION (3)
+                #define MAX(a, b) ((a) > (b) ? (a) : (b))
+                typedef struct point { int x, y; } point_t;
+                enum color { RED, GREEN = 2 };
+                typedef void (*callback)(int code);
+                extern int counter, limits[4];
+                __attribute__((visibility("default"))) int sdk_open(const char *path);
+                static inline int twice(int v) { return v * 2; }
+                #ifdef __cplusplus
+                }
+                #endif
+                """;
+
+        // Act
+        final List<HeaderDeclarations.Declaration> declarations = HeaderDeclarations.parse(source);
+
+        // Assert
+        assertThat(declarations)
+                .map(HeaderDeclarations.Declaration::declared)
+                .filteredOn(declared -> !declared.isEmpty())
+                .containsExactly(
+                        Set.of("VERSION"),
+                        Set.of("point", "point_t"),
+                        Set.of("color", "RED", "GREEN"),
+                        Set.of("callback"),
+                        Set.of("counter", "limits"),
+                        Set.of("sdk_open"),
+                        Set.of("twice"));
+    }
+
+    @Test
+    void ignoresCommentsAndLayout() {
+        // Arrange
+        final String compact = "int sdk_open(int flags);";
+        final String documented = "/** Opens the SDK. */\nint sdk_open(\n        int flags); // Since 1.0\n";
+
+        // Act
+        final List<HeaderDeclarations.Declaration> first = HeaderDeclarations.parse(compact);
+        final List<HeaderDeclarations.Declaration> second = HeaderDeclarations.parse(documented);
+
+        // Assert
+        assertThat(second).isEqualTo(first);
+    }
+}
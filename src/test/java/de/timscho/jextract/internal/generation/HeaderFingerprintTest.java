@@ -0,0 +1,70 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HeaderFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ignoresCommentsAndWhitespace() {
+        // Arrange
+        final String original = "#define SQUARE(x) ((x) * (x))\nint add(int a, int b);\n";
+        final String reformatted = """
+                /* Copyright 2025 */
+                #define SQUARE(x)   ((x)*(x))   // squares
+                int  add(int a,
+                         int b);
+                """;
+
+        // Act
+        final String first = HeaderFingerprint.normalize(original);
+        final String second = HeaderFingerprint.normalize(reformatted);
+
+        // Assert
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void keepsSignificantWhitespace() {
+        // Assert
+        assertThat(HeaderFingerprint.normalize("#define F(x) x"))
+                .as("Function-like and object-like macros differ")
+                .isNotEqualTo(HeaderFingerprint.normalize("#define F (x) x"));
+        assertThat(HeaderFingerprint.normalize("int a = b+ +c;"))
+                .isNotEqualTo(HeaderFingerprint.normalize("int a = b++c;"));
+        assertThat(HeaderFingerprint.normalize("#define A 1\nint x;"))
+                .as("Line breaks end directives")
+                .isNotEqualTo(HeaderFingerprint.normalize("#define A 1 int x;"));
+        assertThat(HeaderFingerprint.normalize("const char* s = \"a  // b\";"))
+                .contains("\"a  // b\"");
+    }
+
+    @Test
+    void changesWithTokensAndContext() throws Exception {
+        // Arrange
+        final File header = this.tempDir.resolve("math.h").toFile();
+        Files.writeString(header.toPath(), "int add(int a, int b);");
+        final String original = HeaderFingerprint.compute(List.of(header), List.of("--target-package", "com.math"));
+
+        // Act
+        final String otherContext = HeaderFingerprint.compute(List.of(header), List.of("--target-package", "org.math"));
+        Files.writeString(header.toPath(), "// Adds\nint add(int a,int b);");
+        final String commentOnly = HeaderFingerprint.compute(List.of(header), List.of("--target-package", "com.math"));
+        Files.writeString(header.toPath(), "long add(int a, int b);");
+        final String otherTokens = HeaderFingerprint.compute(List.of(header), List.of("--target-package", "com.math"));
+
+        // Assert
+        assertThat(commentOnly).isEqualTo(original);
+        assertThat(otherContext).isNotEqualTo(original);
+        assertThat(otherTokens).isNotEqualTo(original);
+    }
+}
@@ -0,0 +1,62 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IncludeScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void followsQuotedAndAngleIncludesTransitively() throws Exception {
+        // Arrange
+        final Path src = Files.createDirectories(this.tempDir.resolve("src"));
+        final Path include = Files.createDirectories(this.tempDir.resolve("include"));
+        Files.writeString(src.resolve("main.h"), """
+                #include "local.h"
+                #  include <sdk/types.h>
+                #include <stdio.h>
+                #include SDK_PLATFORM_HEADER
+                """);
+        Files.writeString(src.resolve("local.h"), "#include \"main.h\"\n");
+        Files.createDirectories(include.resolve("sdk"));
+        Files.writeString(include.resolve("sdk/types.h"), "#include \"config.h\"\n");
+        Files.writeString(include.resolve("sdk/config.h"), "#define SDK 1\n");
+        Files.writeString(include.resolve("sdk/unused.h"), "int unused();\n");
+
+        // Act
+        final Set<File> closure =
+                IncludeScanner.scan(List.of(src.resolve("main.h").toFile()), List.of(include.toFile()));
+
+        // Assert
+        assertThat(closure)
+                .containsExactlyInAnyOrder(
+                        src.resolve("local.h").toFile(),
+                        include.resolve("sdk/types.h").toFile(),
+                        include.resolve("sdk/config.h").toFile());
+    }
+
+    @Test
+    void readsIncludeDirsFromCompilerArgs() {
+        // Arrange
+        final File baseDir = this.tempDir.toFile();
+        final String absolute = this.tempDir.resolve("abs").toString();
+
+        // Act
+        final List<File> includeDirs = IncludeScanner.includeDirs(
+                List.of("-I", "include", "-I" + absolute, "--include-dir", "more", "-DDEBUG", "--include-function", "f"),
+                baseDir);
+
+        // Assert
+        assertThat(includeDirs)
+                .containsExactly(new File(baseDir, "include"), new File(absolute), new File(baseDir, "more"));
+    }
+}
@@ -2,6 +2,7 @@ package de.timscho.jextract.internal.generation;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import de.timscho.jextract.extension.ExtractionBase;
 import de.timscho.jextract.extension.NativeLibraryLoadingConfig;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -100,6 +101,51 @@ class NativeLibraryLoaderGeneratorTest {
                         .contains("getExtractionDirectory"));
     }
 
+    @Test
+    void generatesWithRelativeExtractionPath() throws IOException {
+        // Arrange
+        final ObjectFactory objectFactory = ProjectBuilder.builder().build().getObjects();
+        final NativeLibraryLoadingConfig config = objectFactory.newInstance(NativeLibraryLoadingConfig.class);
+        config.getResourcePath().set("native/lib");
+        config.getExtractionPath().set("example/natives");
+        config.getExtractionBase().set(ExtractionBase.USER_HOME);
+
+        final Logger logger = Logging.getLogger(NativeLibraryLoaderGeneratorTest.class);
+        final NativeLibraryLoaderGenerator generator =
+                new NativeLibraryLoaderGenerator("com.custom", "CustomLib", config, this.tempDir, logger);
+
+        // Act
+        generator.generate();
+
+        // Assert
+        final String content = Files.readString(this.tempDir.resolve("com/custom/CustomLib_NativeLibraryLoader.java"));
+        assertThat(content)
+                .as("Should resolve the extraction path at runtime")
+                .contains("System.getProperty(\"user.home\")")
+                .contains("\"example/natives\"")
+                .doesNotContain(this.tempDir.toString());
+    }
+
+    @Test
+    void escapesExtractionPathInGeneratedLiteral() throws IOException {
+        // Arrange
+        final ObjectFactory objectFactory = ProjectBuilder.builder().build().getObjects();
+        final NativeLibraryLoadingConfig config = objectFactory.newInstance(NativeLibraryLoadingConfig.class);
+        config.getResourcePath().set("native/lib");
+        config.getExtractionPath().set("natives\\\"; System.exit(1); //");
+
+        final Logger logger = Logging.getLogger(NativeLibraryLoaderGeneratorTest.class);
+        final NativeLibraryLoaderGenerator generator =
+                new NativeLibraryLoaderGenerator("com.custom", "CustomLib", config, this.tempDir, logger);
+
+        // Act
+        generator.generate();
+
+        // Assert
+        final String content = Files.readString(this.tempDir.resolve("com/custom/CustomLib_NativeLibraryLoader.java"));
+        assertThat(content).contains("java.nio.file.Path.of(baseDir, \"natives\\\\\\\"; System.exit(1); //\");");
+    }
+
     @Test
     void generatesWithCachingEnabled() throws IOException {
         // Arrange
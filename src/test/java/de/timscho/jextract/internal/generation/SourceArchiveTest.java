@@ -0,0 +1,65 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceArchiveTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesEntriesSortedByPath() throws Exception {
+        // Arrange
+        final Path sources = this.tempDir.resolve("sources");
+        this.write(sources, "com/example/sdk_h.java", "class sdk_h {}");
+        this.write(sources, "com/example/point.java", "class point {}");
+        final Path archive = this.tempDir.resolve("sources.zip");
+
+        // Act
+        SourceArchive.write(sources, archive);
+
+        // Assert
+        final List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        assertThat(names).containsExactly("com/example/point.java", "com/example/sdk_h.java");
+        assertThat(archive.resolveSibling("sources.zip.part")).doesNotExist();
+    }
+
+    @Test
+    void identicalSourcesProduceIdenticalArchives() throws Exception {
+        // Arrange
+        final Path sources = this.tempDir.resolve("sources");
+        this.write(sources, "com/example/sdk_h.java", "class sdk_h {}");
+        final Path first = this.tempDir.resolve("first.zip");
+        final Path second = this.tempDir.resolve("second.zip");
+
+        // Act
+        SourceArchive.write(sources, first);
+        Files.setLastModifiedTime(
+                sources.resolve("com/example/sdk_h.java"), FileTime.from(Instant.parse("2030-01-01T00:00:00Z")));
+        SourceArchive.write(sources, second);
+
+        // Assert
+        assertThat(Files.mismatch(first, second)).isEqualTo(-1L);
+    }
+
+    private void write(final Path root, final String path, final String content) throws Exception {
+        final Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,61 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceNormalizerTest {
+    private static final FileTime GENERATED_AT = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void relativizesPathsInCommentsAndNormalizesLineEndings() throws Exception {
+        // Arrange
+        final Path project = this.tempDir.resolve("project");
+        final Path header = project.resolve("src/main/c/sdk.h");
+        final Path sources = this.tempDir.resolve("sources");
+        final Path file = sources.resolve("com/example/sdk_h.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "/**\r\n * Declared in " + header + "\r\n */\r\nclass sdk_h {\r\n}\r\n");
+        final SourceNormalizer normalizer = SourceNormalizer.builder().root(project).build();
+
+        // Act
+        final SourceNormalizer.Result result = normalizer.normalize(sources);
+
+        // Assert
+        assertThat(result.rewritten()).isEqualTo(1);
+        assertThat(result.machineSpecific()).isEmpty();
+        assertThat(Files.readString(file))
+                .isEqualTo("/**\n * Declared in " + Path.of("src/main/c/sdk.h") + "\n */\nclass sdk_h {\n}\n");
+    }
+
+    @Test
+    void keepsPathsInCodeAndReportsThem() throws Exception {
+        // Arrange
+        final Path project = this.tempDir.resolve("project");
+        final Path library = project.resolve("lib/libsdk.so");
+        final Path sources = this.tempDir.resolve("sources");
+        final Path file = sources.resolve("com/example/sdk_h.java");
+        Files.createDirectories(file.getParent());
+        final String source = "class sdk_h {\n    static final String LIBRARY = \""
+                + library.toString().replace('\\', '/') + "\";\n}\n";
+        Files.writeString(file, source);
+        Files.setLastModifiedTime(file, SourceNormalizerTest.GENERATED_AT);
+
+        // Act
+        final SourceNormalizer.Result result = SourceNormalizer.builder().root(project).build().normalize(sources);
+
+        // Assert
+        assertThat(result.rewritten()).isZero();
+        assertThat(result.machineSpecific()).containsExactly(Path.of("com/example/sdk_h.java"));
+        assertThat(file).hasContent(source);
+        assertThat(Files.getLastModifiedTime(file)).isEqualTo(SourceNormalizerTest.GENERATED_AT);
+    }
+}
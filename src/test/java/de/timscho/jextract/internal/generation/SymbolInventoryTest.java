@@ -0,0 +1,114 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.timscho.jextract.extension.SymbolKind;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SymbolInventoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesIncludeLinesAndIgnoresComments() throws Exception {
+        // Arrange
+        final Path dump = this.tempDir.resolve("includes.txt");
+        Files.writeString(dump, """
+                #### Extracted from: /usr/include/sdk.h
+
+                --include-function sdk_open     # header: /usr/include/sdk.h
+                --include-struct sdk_handle     # header: /usr/include/sdk.h
+                --include-macro SDK_VERSION     # header: /usr/include/sdk.h
+                --include-function sdk_open     # header: /usr/include/sdk.h
+                """);
+
+        // Act
+        final SymbolInventory inventory = SymbolInventory.parse(dump);
+
+        // Assert
+        assertThat(inventory.symbols())
+                .containsExactly(
+                        new SymbolInventory.Symbol(SymbolKind.FUNCTION, "sdk_open", "/usr/include/sdk.h"),
+                        new SymbolInventory.Symbol(SymbolKind.STRUCT, "sdk_handle", "/usr/include/sdk.h"));
+    }
+
+    @Test
+    void distributesFunctionsAndRepeatsTypesInEveryShard() {
+        // Arrange
+        final SymbolInventory inventory = new SymbolInventory(List.of(
+                new SymbolInventory.Symbol(SymbolKind.STRUCT, "point", null),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "a", null),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "b", null),
+                new SymbolInventory.Symbol(SymbolKind.VAR, "c", null)));
+
+        // Act
+        final List<List<String>> shards = inventory.shard(2);
+
+        // Assert
+        assertThat(shards)
+                .containsExactly(
+                        List.of("--include-struct", "point", "--include-function", "a", "--include-var", "c"),
+                        List.of("--include-struct", "point", "--include-function", "b"));
+    }
+
+    @Test
+    void createsNoMoreShardsThanSymbols() {
+        // Arrange
+        final SymbolInventory inventory =
+                new SymbolInventory(List.of(new SymbolInventory.Symbol(SymbolKind.FUNCTION, "only", null)));
+
+        // Act
+        final List<List<String>> shards = inventory.shard(8);
+
+        // Assert
+        assertThat(shards).containsExactly(List.of("--include-function", "only"));
+    }
+
+    @Test
+    void filtersByNameHeaderAndKind() {
+        // Arrange
+        final SymbolInventory inventory = new SymbolInventory(List.of(
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "SSL_new", "/usr/include/openssl/ssl.h"),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "SSL_free_deprecated", "/usr/include/openssl/ssl.h"),
+                new SymbolInventory.Symbol(SymbolKind.STRUCT, "SSL_CTX", "/usr/include/openssl/ssl.h"),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "SSL_helper", "/usr/include/other.h"),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "BIO_new", "/usr/include/openssl/bio.h")));
+        final SymbolFilter filter = new SymbolFilter(
+                List.of("SSL_.*"),
+                List.of(".*_deprecated"),
+                List.of(".+/openssl/.*"),
+                Set.of(SymbolKind.FUNCTION));
+
+        // Act
+        final SymbolInventory selection = inventory.filter(filter);
+
+        // Assert
+        assertThat(selection.symbols())
+                .extracting(SymbolInventory.Symbol::name)
+                .containsExactly("SSL_new");
+    }
+
+    @Test
+    void writesSelectionAsArgumentFile() throws Exception {
+        // Arrange
+        final SymbolInventory inventory = new SymbolInventory(List.of(
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "add", "/math.h"),
+                new SymbolInventory.Symbol(SymbolKind.STRUCT, "point", "/math.h")));
+        final Path argFile = this.tempDir.resolve("selected.args");
+
+        // Act
+        inventory.write(argFile);
+
+        // Assert
+        assertThat(Files.readAllLines(argFile)).containsExactly("--include-function add", "--include-struct point");
+        assertThat(SymbolInventory.parse(argFile).symbols())
+                .extracting(SymbolInventory.Symbol::name)
+                .containsExactly("add", "point");
+    }
+}
@@ -0,0 +1,111 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.timscho.jextract.extension.SymbolKind;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SymbolManifestTest {
+    private static final String HEADER = """
+            typedef struct point { int x; } point_t;
+            #define LIMIT 4
+            int sdk_open(int flags);
+            point_t sdk_origin(void);
+            extern int sdk_table[LIMIT];
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void addedFunctionOnlyChangesItself() throws Exception {
+        // Arrange
+        final Path header = this.tempDir.resolve("sdk.h");
+        Files.writeString(header, SymbolManifestTest.HEADER);
+        final SymbolManifest previous = SymbolManifest.compute(this.inventory(header));
+
+        // Act
+        Files.writeString(header, "/* Docs */\n" + SymbolManifestTest.HEADER + "int sdk_close(int handle);\n");
+        final SymbolManifest.Changes changes = SymbolManifest.compute(
+                        this.inventory(header, new SymbolInventory.Symbol(
+                                SymbolKind.FUNCTION, "sdk_close", header.toString())))
+                .changesSince(previous);
+
+        // Assert
+        assertThat(changes.changed()).containsExactly("--include-function sdk_close");
+        assertThat(changes.removed()).isEmpty();
+    }
+
+    @Test
+    void changedTypesAndConstantsChangeTheirUsers() throws Exception {
+        // Arrange
+        final Path header = this.tempDir.resolve("sdk.h");
+        Files.writeString(header, SymbolManifestTest.HEADER);
+        final SymbolManifest previous = SymbolManifest.compute(this.inventory(header));
+
+        // Act
+        Files.writeString(header, SymbolManifestTest.HEADER.replace("int x;", "long x;").replace("4", "8"));
+        final SymbolManifest.Changes changes =
+                SymbolManifest.compute(this.inventory(header)).changesSince(previous);
+
+        // Assert
+        assertThat(changes.changed())
+                .containsExactlyInAnyOrder(
+                        "--include-struct point",
+                        "--include-typedef point_t",
+                        "--include-function sdk_origin",
+                        "--include-constant LIMIT",
+                        "--include-var sdk_table");
+    }
+
+    @Test
+    void removedSymbolsAreReported() throws Exception {
+        // Arrange
+        final Path header = this.tempDir.resolve("sdk.h");
+        Files.writeString(header, SymbolManifestTest.HEADER);
+        final SymbolManifest previous = SymbolManifest.compute(this.inventory(header));
+
+        // Act
+        final SymbolManifest.Changes changes = SymbolManifest.compute(new SymbolInventory(List.of(
+                        new SymbolInventory.Symbol(SymbolKind.FUNCTION, "sdk_open", header.toString()))))
+                .changesSince(previous);
+
+        // Assert
+        assertThat(changes.changed()).isEmpty();
+        assertThat(changes.removed()).hasSize(5).doesNotContain("--include-function sdk_open");
+    }
+
+    @Test
+    void writtenManifestReadsBack() throws Exception {
+        // Arrange
+        final Path header = this.tempDir.resolve("sdk.h");
+        Files.writeString(header, SymbolManifestTest.HEADER);
+        final SymbolManifest manifest = SymbolManifest.compute(this.inventory(header));
+        final Path file = this.tempDir.resolve("manifest.txt");
+
+        // Act
+        manifest.write(file);
+
+        // Assert
+        assertThat(SymbolManifest.readIfExists(file)).isEqualTo(manifest);
+        assertThat(SymbolManifest.readIfExists(this.tempDir.resolve("missing.txt"))).isNull();
+    }
+
+    private SymbolInventory inventory(final Path header, final SymbolInventory.Symbol... additional) {
+        final String path = header.toString();
+        final List<SymbolInventory.Symbol> symbols = new ArrayList<>(List.of(
+                new SymbolInventory.Symbol(SymbolKind.STRUCT, "point", path),
+                new SymbolInventory.Symbol(SymbolKind.TYPEDEF, "point_t", path),
+                new SymbolInventory.Symbol(SymbolKind.CONSTANT, "LIMIT", path),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "sdk_open", path),
+                new SymbolInventory.Symbol(SymbolKind.FUNCTION, "sdk_origin", path),
+                new SymbolInventory.Symbol(SymbolKind.VAR, "sdk_table", path)));
+        symbols.addAll(List.of(additional));
+        return new SymbolInventory(symbols);
+    }
+}
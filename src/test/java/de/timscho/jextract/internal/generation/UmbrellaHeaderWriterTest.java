@@ -0,0 +1,36 @@
+package de.timscho.jextract.internal.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UmbrellaHeaderWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void includesHeadersByAbsolutePathInOrder() throws Exception {
+        // Arrange
+        final File first = this.tempDir.resolve("sdk/window.h").toFile();
+        final File second = this.tempDir.resolve("sdk/input.h").toFile();
+        final Path umbrella = this.tempDir.resolve("tmp/sdk.h");
+
+        // Act
+        UmbrellaHeaderWriter.write(umbrella, List.of(first, second));
+
+        // Assert
+        final List<String> includes = Files.readAllLines(umbrella).stream()
+                .filter(line -> line.startsWith("#include"))
+                .toList();
+        assertThat(includes)
+                .containsExactly(
+                        "#include \"" + first.getAbsolutePath().replace(File.separatorChar, '/') + "\"",
+                        "#include \"" + second.getAbsolutePath().replace(File.separatorChar, '/') + "\"");
+    }
+}
@@ -2,6 +2,10 @@ package de.timscho.jextract.task;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import de.timscho.jextract.internal.download.JextractBinaryLocator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
@@ -28,4 +32,41 @@ class JextractTaskTest {
         assertThat(task.getLibraryName().get()).isEqualTo("testlib");
         assertThat(task.getCompilerArgs().get()).containsExactly("-I/usr/include");
     }
+
+    @Test
+    void identifiesInstallationByLauncherAndRuntimeImage() throws IOException {
+        // Arrange
+        final Project project = ProjectBuilder.builder().build();
+        final JextractTask task = project.getTasks().create("jextract", JextractTask.class);
+        final Path toolHome = project.getProjectDir().toPath().resolve("jextract-25");
+        final Path launcher = toolHome.resolve("bin").resolve(JextractBinaryLocator.binaryName());
+        Files.createDirectories(launcher.getParent());
+        Files.createFile(launcher);
+        Files.createDirectories(toolHome.resolve("runtime/lib"));
+        Files.createFile(toolHome.resolve("runtime/release"));
+        Files.createFile(toolHome.resolve("runtime/lib/modules"));
+        Files.createFile(toolHome.resolve("runtime/lib/libclang.so"));
+
+        // Act
+        task.getToolHome().set(toolHome.toFile());
+
+        // Assert
+        assertThat(task.getToolIdentityFiles().getFiles())
+                .containsExactlyInAnyOrder(
+                        launcher.toFile(),
+                        toolHome.resolve("runtime/release").toFile(),
+                        toolHome.resolve("runtime/lib/modules").toFile());
+    }
+
+    @Test
+    void identifiesDownloadedToolByVersionOnly() {
+        // Arrange
+        final Project project = ProjectBuilder.builder().build();
+
+        // Act
+        final JextractTask task = project.getTasks().create("jextract", JextractTask.class);
+
+        // Assert
+        assertThat(task.getToolIdentityFiles().isEmpty()).isTrue();
+    }
 }